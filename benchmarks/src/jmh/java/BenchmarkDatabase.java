@@ -0,0 +1,211 @@
+import ElectionSystem.VoteData;
+import com.zeroc.Ice.Communicator;
+import com.zeroc.Ice.InitializationData;
+import com.zeroc.Ice.Util;
+import jakarta.persistence.EntityManager;
+import models.elections.Candidate;
+import models.elections.Election;
+import models.votaciones.Citizen;
+import models.votaciones.Department;
+import models.votaciones.Municipality;
+import models.votaciones.VotingStation;
+import models.votaciones.VotingTable;
+import repositories.elections.CacheInvalidationRepository;
+import repositories.elections.CandidateRepository;
+import repositories.elections.ElectionRepository;
+import repositories.elections.VoteRepository;
+import repositories.elections.VotedCitizenRepository;
+import repositories.votaciones.CitizenRepository;
+import repositories.votaciones.VotingTableRepository;
+import utils.JPAUtil;
+import utils.ServerConfig;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * In-memory H2 stand-in for the votaciones and elections PostgreSQL databases, seeded with a
+ * synthetic census, plus a ServerImpl wired to it exactly as ServerMain does. Each JMH fork is a
+ * fresh JVM, so every trial starts from an empty database.
+ *
+ * With -Dbenchmark.postgres=jdbc:postgresql://host:port/ the same schema is created instead in the
+ * existing PostgreSQL databases bench_votaciones and bench_elections (user and password from
+ * benchmark.postgres.user and benchmark.postgres.password); their tables are dropped and recreated
+ * by every trial.
+ */
+public class BenchmarkDatabase {
+
+    private static final String H2_OPTIONS = ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+    private static final long FIRST_DOCUMENT = 1_000_000_000L;
+    private static final String POSTGRES_URL = System.getProperty("benchmark.postgres", "");
+
+    private final Communicator communicator;
+    private final int tables;
+    private final int citizensPerTable;
+    private ServerImpl server;
+
+    /**
+     * @param serverProperties Server.* overrides, e.g. the batch size under test
+     */
+    public BenchmarkDatabase(int tables, int citizensPerTable, int candidates, Map<String, String> serverProperties) {
+        this.tables = tables;
+        this.citizensPerTable = citizensPerTable;
+
+        InitializationData initData = new InitializationData();
+        initData.properties = Util.createProperties();
+        if (isPostgres()) {
+            initData.properties.setProperty("database.driver", "org.postgresql.Driver");
+            initData.properties.setProperty("database.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+        } else {
+            initData.properties.setProperty("database.driver", "org.h2.Driver");
+            initData.properties.setProperty("database.dialect", "org.hibernate.dialect.H2Dialect");
+        }
+        for (String database : new String[] {"votaciones", "elections"}) {
+            if (isPostgres()) {
+                initData.properties.setProperty("database." + database + ".url", POSTGRES_URL + "bench_" + database);
+                initData.properties.setProperty("database." + database + ".user", System.getProperty("benchmark.postgres.user", "electuser"));
+                initData.properties.setProperty("database." + database + ".password", System.getProperty("benchmark.postgres.password", "123456"));
+            } else {
+                initData.properties.setProperty("database." + database + ".url", "jdbc:h2:mem:" + database + H2_OPTIONS);
+                initData.properties.setProperty("database." + database + ".user", "sa");
+                initData.properties.setProperty("database." + database + ".password", "");
+            }
+            initData.properties.setProperty("database." + database + ".schema", "create");
+        }
+        initData.properties.setProperty("Server.Journal.Dir", "");
+        serverProperties.forEach(initData.properties::setProperty);
+
+        this.communicator = Util.initialize(initData);
+        ServerConfig.initialize(communicator);
+        JPAUtil.initialize(communicator);
+
+        seedCensus();
+        seedElection(candidates);
+    }
+
+    private void seedCensus() {
+        EntityManager em = JPAUtil.getEntityManagerVoting();
+        try {
+            JPAUtil.executeInTransactionVoid(em, votingEM -> {
+                Department department = new Department();
+                department.setName("Valle del Cauca");
+                votingEM.persist(department);
+
+                Municipality municipality = new Municipality();
+                municipality.setName("Cali");
+                municipality.setDepartment(department);
+                votingEM.persist(municipality);
+
+                VotingStation station = new VotingStation();
+                station.setName("Puesto 1");
+                station.setConsecutive(1);
+                station.setAddress("Calle 5");
+                station.setMunicipality(municipality);
+                votingEM.persist(station);
+
+                long document = FIRST_DOCUMENT;
+                for (int t = 1; t <= tables; t++) {
+                    VotingTable table = new VotingTable();
+                    table.setConsecutive(t);
+                    table.setVotingStation(station);
+                    votingEM.persist(table);
+
+                    for (int c = 0; c < citizensPerTable; c++) {
+                        Citizen citizen = new Citizen();
+                        citizen.setDocument(Long.toString(document++));
+                        citizen.setFirstName("Nombre");
+                        citizen.setLastName("Apellido");
+                        citizen.setVotingTable(table);
+                        votingEM.persist(citizen);
+                    }
+                    votingEM.flush();
+                    votingEM.clear();
+                    station = votingEM.getReference(VotingStation.class, station.getId());
+                }
+            });
+        } finally {
+            em.close();
+        }
+    }
+
+    private void seedElection(int candidates) {
+        EntityManager em = JPAUtil.getEntityManagerElections();
+        try {
+            JPAUtil.executeInTransactionVoid(em, electionsEM -> {
+                Election election = new Election();
+                election.setName("Elecciones benchmark");
+                election.setStartTime(LocalDateTime.now().minusHours(1));
+                election.setEndTime(LocalDateTime.now().plusHours(8));
+                electionsEM.persist(election);
+
+                for (int i = 1; i <= candidates; i++) {
+                    Candidate candidate = new Candidate();
+                    candidate.setFirstName("Candidato");
+                    candidate.setLastName(Integer.toString(i));
+                    candidate.setParty("Partido " + i);
+                    candidate.setElection(election);
+                    electionsEM.persist(candidate);
+                }
+            });
+        } finally {
+            em.close();
+        }
+    }
+
+    /** Builds a new ServerImpl over the current database contents, shutting down the previous one. */
+    public ServerImpl startServer() {
+        stopServer();
+        server = new ServerImpl(new ElectionRepository(), new CandidateRepository(),
+                                new VoteRepository(), new CitizenRepository(), new VotingTableRepository(),
+                                new VotedCitizenRepository(), new CacheInvalidationRepository());
+        return server;
+    }
+
+    public void stopServer() {
+        if (server != null) {
+            server.shutdown();
+            server = null;
+        }
+    }
+
+    /** Forgets every vote so the same citizens can vote again in the next iteration. */
+    public void clearVotes() {
+        EntityManager em = JPAUtil.getEntityManagerElections();
+        try {
+            JPAUtil.executeInTransactionVoid(em, electionsEM -> {
+                electionsEM.createNativeQuery("DELETE FROM votes").executeUpdate();
+                electionsEM.createNativeQuery("DELETE FROM voted_citizens").executeUpdate();
+            });
+        } finally {
+            em.close();
+        }
+    }
+
+    public static boolean isPostgres() {
+        return !POSTGRES_URL.isEmpty();
+    }
+
+    public int citizenCount() {
+        return tables * citizensPerTable;
+    }
+
+    /** Document of the n-th seeded citizen, 0-based. */
+    public String document(int n) {
+        return Long.toString(FIRST_DOCUMENT + n);
+    }
+
+    /** A valid vote for the n-th seeded citizen. Table ids follow insertion order, starting at 1. */
+    public VoteData vote(int n, int candidateId) {
+        return new VoteData(document(n), candidateId, n / citizensPerTable + 1, LocalDateTime.now().toString());
+    }
+
+    public Communicator communicator() {
+        return communicator;
+    }
+
+    public void close() {
+        stopServer();
+        JPAUtil.shutdown();
+        communicator.destroy();
+    }
+}
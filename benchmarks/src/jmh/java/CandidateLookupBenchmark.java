@@ -0,0 +1,61 @@
+import ElectionSystem.VoteData;
+import models.elections.Candidate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The candidate check registerVote runs before a vote is queued, on its own and as the full
+ * rejection a voting table sees for an unknown candidate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CandidateLookupBenchmark {
+
+    @Param({"12", "200"})
+    public int candidates;
+
+    private BenchmarkDatabase database;
+    private ServerImpl server;
+    private VoteData unknownCandidateVote;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(1, 10, candidates, Collections.emptyMap());
+        server = database.startServer();
+        unknownCandidateVote = database.vote(0, candidates + 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Candidate findFirstCandidate() {
+        return server.findCandidate(1);
+    }
+
+    @Benchmark
+    public Candidate findLastCandidate() {
+        return server.findCandidate(candidates);
+    }
+
+    @Benchmark
+    public boolean registerVoteUnknownCandidate() {
+        CompletableFuture<Void> outcome = server.registerVoteAsync(unknownCandidateVote, null).toCompletableFuture();
+        return outcome.isCompletedExceptionally();
+    }
+}
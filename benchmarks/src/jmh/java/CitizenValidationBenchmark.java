@@ -0,0 +1,79 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import repositories.votaciones.CitizenRepository;
+import services.votaciones.CitizenDirectory;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving a document to (citizen, table) the way the vote writers do: through the in-memory
+ * CitizenDirectory, and through CitizenRepository against the database it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CitizenValidationBenchmark {
+
+    @Param({"100000"})
+    public int citizens;
+
+    private BenchmarkDatabase database;
+    private CitizenDirectory directory;
+    private CitizenRepository citizenRepository;
+    private String[] documents;
+    private String[] unknownDocuments;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(citizens / 200, 200, 12, Collections.emptyMap());
+        citizenRepository = new CitizenRepository();
+
+        CitizenDirectory.Builder builder = CitizenDirectory.builder(database.citizenCount());
+        citizenRepository.streamCitizenKeys((citizenId, document, tableId) -> builder.add(document, citizenId, tableId));
+        directory = builder.build();
+
+        Random random = new Random(42);
+        documents = new String[4096];
+        unknownDocuments = new String[documents.length];
+        for (int i = 0; i < documents.length; i++) {
+            documents[i] = database.document(random.nextInt(database.citizenCount()));
+            unknownDocuments[i] = database.document(database.citizenCount() + random.nextInt(1_000_000));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public long directoryHit(Cursor cursor) {
+        return directory.lookup(documents[cursor.next++ & (documents.length - 1)]);
+    }
+
+    @Benchmark
+    public long directoryMiss(Cursor cursor) {
+        return directory.lookup(unknownDocuments[cursor.next++ & (unknownDocuments.length - 1)]);
+    }
+
+    @Benchmark
+    public Integer databaseHit(Cursor cursor) {
+        // Uncached native lookup, the fallback when the directory is disabled.
+        return citizenRepository.findVotingTableIdByDocument(documents[cursor.next++ & (documents.length - 1)]);
+    }
+}
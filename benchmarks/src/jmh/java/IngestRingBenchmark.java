@@ -0,0 +1,81 @@
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import utils.MpscRingBuffer;
+import utils.WaitStrategy;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vote hand-off between the Ice dispatch threads and the ingest thread: four producers offering
+ * into ServerImpl's ring against the single consumer draining it, next to the LinkedBlockingQueue
+ * the server used before. Producers outrun the consumer, so compare the poll rows; the offer rows
+ * include fast rejections on a full queue.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IngestRingBenchmark {
+
+    private static final int CAPACITY = 131072;
+    private static final Object VOTE = new Object();
+
+    @State(Scope.Group)
+    public static class Ring {
+        @Param({"blocking", "park", "yield"})
+        public String waitStrategy;
+
+        MpscRingBuffer<Object> ring;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            ring = new MpscRingBuffer<>(CAPACITY, WaitStrategy.named(waitStrategy));
+        }
+    }
+
+    @State(Scope.Group)
+    public static class Linked {
+        LinkedBlockingQueue<Object> queue;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            queue = new LinkedBlockingQueue<>(CAPACITY);
+        }
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(4)
+    public boolean ringOffer(Ring state) {
+        return state.ring.offer(VOTE);
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public Object ringPoll(Ring state) throws InterruptedException {
+        return state.ring.poll(1, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("linkedQueue")
+    @GroupThreads(4)
+    public boolean linkedOffer(Linked state) {
+        return state.queue.offer(VOTE);
+    }
+
+    @Benchmark
+    @Group("linkedQueue")
+    @GroupThreads(1)
+    public Object linkedPoll(Linked state) throws InterruptedException {
+        return state.queue.poll(1, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,87 @@
+import ElectionSystem.VoteData;
+import com.zeroc.Ice.Current;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole registerVote path against the in-memory database: candidate check, ingest ring, batch
+ * writer, citizen validation, duplicate check and commit. Every citizen votes once per iteration,
+ * waiting for the commit (the awaitPersisted context), and the votes are wiped between iterations.
+ * Reported time is per vote.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OperationsPerInvocation(RegisterVoteBenchmark.VOTES)
+public class RegisterVoteBenchmark {
+
+    static final int VOTES = 20_000;
+    private static final int CANDIDATES = 12;
+
+    @Param({"1", "50", "200"})
+    public int voteBatchSize;
+
+    private BenchmarkDatabase database;
+    private ServerImpl server;
+    private VoteData[] votes;
+    private Current awaitPersisted;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("Server.VoteBatch.Size", Integer.toString(voteBatchSize));
+        database = new BenchmarkDatabase(VOTES / 200, 200, CANDIDATES, properties);
+
+        votes = new VoteData[VOTES];
+        for (int i = 0; i < VOTES; i++) {
+            votes[i] = database.vote(i, i % CANDIDATES + 1);
+        }
+
+        awaitPersisted = new Current();
+        awaitPersisted.ctx = Collections.singletonMap(ServerImpl.AWAIT_PERSISTED_CONTEXT, "true");
+    }
+
+    @Setup(Level.Iteration)
+    public void startServer() {
+        database.clearVotes();
+        server = database.startServer();
+    }
+
+    @TearDown(Level.Iteration)
+    public void stopServer() {
+        database.stopServer();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public void registerVotes() {
+        CompletableFuture<?>[] outcomes = new CompletableFuture<?>[votes.length];
+        for (int i = 0; i < votes.length; i++) {
+            outcomes[i] = server.registerVoteAsync(votes[i], awaitPersisted).toCompletableFuture();
+        }
+        CompletableFuture.allOf(outcomes).join();
+    }
+}
@@ -0,0 +1,122 @@
+import ElectionSystem.CandidateResult;
+import ElectionSystem.CitizenData;
+import ElectionSystem.ElectionData;
+import ElectionSystem.VotingTableData;
+import models.elections.Candidate;
+import models.elections.Election;
+import models.votaciones.Citizen;
+import models.votaciones.VotingTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import services.elections.TallyEngine;
+import utils.ElectionDataConverter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The entity to Ice struct conversions behind getElectionData, getVotingTablesFromStation,
+ * getCitizensByTableId and the results calls. Pure CPU, no database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResultConversionBenchmark {
+
+    @Param({"300"})
+    public int citizensPerTable;
+
+    @Param({"12"})
+    public int candidateCount;
+
+    private static final int TABLES = 1000;
+
+    private Election election;
+    private List<Candidate> candidates;
+    private VotingTable table;
+    private List<Citizen> citizens;
+    private TallyEngine tally;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        election = new Election();
+        election.setId(1);
+        election.setName("Elecciones benchmark");
+        election.setStartTime(LocalDateTime.of(2025, 5, 25, 8, 0));
+        election.setEndTime(LocalDateTime.of(2025, 5, 25, 16, 0));
+
+        candidates = new ArrayList<>();
+        int[] candidateIds = new int[candidateCount];
+        for (int i = 1; i <= candidateCount; i++) {
+            Candidate candidate = new Candidate();
+            candidate.setId(i);
+            candidate.setFirstName("Candidato");
+            candidate.setLastName(Integer.toString(i));
+            candidate.setParty("Partido " + i);
+            candidate.setElection(election);
+            candidates.add(candidate);
+            candidateIds[i - 1] = i;
+        }
+
+        table = new VotingTable();
+        table.setId(1);
+        table.setConsecutive(1);
+        citizens = new ArrayList<>();
+        for (int i = 1; i <= citizensPerTable; i++) {
+            Citizen citizen = new Citizen();
+            citizen.setId(i);
+            citizen.setDocument(Long.toString(1_000_000_000L + i));
+            citizen.setFirstName("Nombre");
+            citizen.setLastName("Apellido");
+            citizen.setVotingTable(table);
+            citizens.add(citizen);
+        }
+
+        tally = new TallyEngine(candidateIds);
+        Map<Integer, Map<Integer, Integer>> seed = new HashMap<>();
+        for (int tableId = 1; tableId <= TABLES; tableId++) {
+            Map<Integer, Integer> votes = new HashMap<>();
+            for (int candidateId : candidateIds) {
+                votes.put(candidateId, (tableId * 31 + candidateId) % 50);
+            }
+            seed.put(tableId, votes);
+        }
+        tally.seed(seed);
+    }
+
+    @Benchmark
+    public ElectionData electionData() {
+        return ElectionDataConverter.toElectionData(election, candidates);
+    }
+
+    @Benchmark
+    public VotingTableData votingTableData() {
+        return ElectionDataConverter.toVotingTableData(table, citizens);
+    }
+
+    @Benchmark
+    public CitizenData[] citizensByTable() {
+        return ElectionDataConverter.toCitizenData(citizens);
+    }
+
+    @Benchmark
+    public CandidateResult[] globalResults() {
+        return ElectionDataConverter.toCandidateResults(candidates, tally);
+    }
+
+    @Benchmark
+    public Map<Integer, CandidateResult[]> resultsByVotingTable() {
+        return ElectionDataConverter.toTableResults(candidates, tally.votesByTable());
+    }
+}
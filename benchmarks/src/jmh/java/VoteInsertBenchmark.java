@@ -0,0 +1,174 @@
+import jakarta.persistence.EntityManager;
+import models.elections.Vote;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.JPAUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserting votes in transactions of batchSize rows, as the vote writers do, with the two id
+ * strategies Vote has had: an IDENTITY column, where the driver must return each generated key so
+ * every row is its own round trip, and the pooled-lo sequence, where one nextval covers
+ * Vote.ID_ALLOCATION_SIZE rows and each transaction is one JDBC batch. Both run over plain JDBC
+ * on tables with the same columns and indexes, so only the id strategy differs. Meaningful on
+ * PostgreSQL (see BenchmarkDatabase); on H2 there are no network round trips to save.
+ * Reported time is per vote.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OperationsPerInvocation(VoteInsertBenchmark.VOTES)
+public class VoteInsertBenchmark {
+
+    static final int VOTES = 20_000;
+    private static final int CANDIDATES = 12;
+
+    @Param({"identity", "sequence"})
+    public String idGeneration;
+
+    @Param({"50", "200"})
+    public int batchSize;
+
+    private BenchmarkDatabase database;
+    private int electionId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = new BenchmarkDatabase(1, 1, CANDIDATES, Collections.emptyMap());
+        electionId = inTransaction(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE IF EXISTS votes_identity");
+                statement.execute("CREATE TABLE votes_identity (" +
+                                  "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                                  "timestamp TIMESTAMP NOT NULL, " +
+                                  "candidate_id INT NOT NULL REFERENCES candidate(id), " +
+                                  "election_id INT NOT NULL REFERENCES election(id), " +
+                                  "table_id INT NOT NULL)");
+                // The index Vote declares on votes.
+                statement.execute("CREATE INDEX idx_vote_identity_table_candidate ON votes_identity (table_id, candidate_id)");
+                try (ResultSet election = statement.executeQuery("SELECT MIN(id) FROM election")) {
+                    election.next();
+                    return election.getInt(1);
+                }
+            }
+        });
+    }
+
+    @Setup(Level.Iteration)
+    public void clearVotes() {
+        inTransaction(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM votes");
+                statement.executeUpdate("DELETE FROM votes_identity");
+            }
+            return null;
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public void insertVotes() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long[] nextId = {0};
+        long[] blockEnd = {0};
+        for (int from = 0; from < VOTES; from += batchSize) {
+            int first = from;
+            int rows = Math.min(batchSize, VOTES - from);
+            inTransaction(connection -> {
+                if (idGeneration.equals("identity")) {
+                    insertWithIdentity(connection, now, first, rows);
+                } else {
+                    insertWithSequence(connection, now, first, rows, nextId, blockEnd);
+                }
+                return null;
+            });
+        }
+    }
+
+    private void insertWithIdentity(Connection connection, Timestamp now, int first, int rows) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO votes_identity (timestamp, candidate_id, election_id, table_id) VALUES (?, ?, ?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            for (int i = first; i < first + rows; i++) {
+                bindVote(insert, 1, now, i);
+                insert.executeUpdate();
+                try (ResultSet key = insert.getGeneratedKeys()) {
+                    key.next();
+                }
+            }
+        }
+    }
+
+    private void insertWithSequence(Connection connection, Timestamp now, int first, int rows,
+                                    long[] nextId, long[] blockEnd) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO votes (id, timestamp, candidate_id, election_id, table_id) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = first; i < first + rows; i++) {
+                if (nextId[0] == blockEnd[0]) {
+                    nextId[0] = nextSequenceValue(connection);
+                    blockEnd[0] = nextId[0] + Vote.ID_ALLOCATION_SIZE;
+                }
+                insert.setLong(1, nextId[0]++);
+                bindVote(insert, 2, now, i);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private void bindVote(PreparedStatement insert, int parameter, Timestamp now, int vote) throws SQLException {
+        insert.setTimestamp(parameter, now);
+        insert.setInt(parameter + 1, vote % CANDIDATES + 1);
+        insert.setInt(parameter + 2, electionId);
+        insert.setInt(parameter + 3, vote / 200 + 1);
+    }
+
+    private static long nextSequenceValue(Connection connection) throws SQLException {
+        String sql = BenchmarkDatabase.isPostgres() ? "SELECT nextval('votes_id_seq')" : "SELECT NEXT VALUE FOR votes_id_seq";
+        try (Statement statement = connection.createStatement(); ResultSet value = statement.executeQuery(sql)) {
+            value.next();
+            return value.getLong(1);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Work<T> {
+        T execute(Connection connection) throws SQLException;
+    }
+
+    private static <T> T inTransaction(Work<T> work) {
+        EntityManager em = JPAUtil.getEntityManagerElections();
+        try {
+            return JPAUtil.executeInTransaction(em, electionsEM -> electionsEM.unwrap(Session.class).doReturningWork(work::execute));
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+import ElectionSystem.VoteData;
+import ElectionSystem.VoteDataSeqHelper;
+import com.zeroc.Ice.Communicator;
+import com.zeroc.Ice.InputStream;
+import com.zeroc.Ice.OutputStream;
+import com.zeroc.Ice.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ice encoding of the vote payloads: one VoteData as sent by registerVote, and the VoteDataSeq
+ * batches sent by registerVotes and submitVotes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VoteMarshallingBenchmark {
+
+    @Param({"1", "50", "200"})
+    public int batchSize;
+
+    private Communicator communicator;
+    private VoteData vote;
+    private VoteData[] batch;
+    private byte[] encodedVote;
+    private byte[] encodedBatch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        communicator = Util.initialize();
+        vote = new VoteData("1000012345", 3, 17, "2025-05-25T10:15:30.123");
+        batch = new VoteData[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            batch[i] = new VoteData(Long.toString(1_000_000_000L + i), i % 12 + 1, i / 200 + 1, "2025-05-25T10:15:30.123");
+        }
+        encodedVote = writeVote();
+        encodedBatch = writeBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        communicator.destroy();
+    }
+
+    @Benchmark
+    public byte[] writeVote() {
+        OutputStream out = new OutputStream(communicator);
+        VoteData.ice_write(out, vote);
+        return out.finished();
+    }
+
+    @Benchmark
+    public VoteData readVote() {
+        return VoteData.ice_read(new InputStream(communicator, encodedVote));
+    }
+
+    @Benchmark
+    public byte[] writeBatch() {
+        OutputStream out = new OutputStream(communicator);
+        VoteDataSeqHelper.write(out, batch);
+        return out.finished();
+    }
+
+    @Benchmark
+    public VoteData[] readBatch() {
+        return VoteDataSeqHelper.read(new InputStream(communicator, encodedBatch));
+    }
+}
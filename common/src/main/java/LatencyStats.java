@@ -0,0 +1,72 @@
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.SingleWriterRecorder;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request latency for the stress test. Each worker thread records into its own
+ * SingleWriterRecorder, so recording is wait-free and threads share nothing; the reporting thread
+ * merges the recorders into a histogram of the last interval and a cumulative one.
+ * Nanosecond resolution, 3 significant digits, values up to one hour.
+ */
+public class LatencyStats {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.HOURS.toNanos(1);
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final List<SingleWriterRecorder> recorders = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<SingleWriterRecorder> threadRecorder = ThreadLocal.withInitial(() -> {
+        SingleWriterRecorder recorder = new SingleWriterRecorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        recorders.add(recorder);
+        return recorder;
+    });
+    private final Histogram cumulative = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+
+    public void record(long latencyNanos) {
+        threadRecorder.get().recordValue(Math.min(Math.max(0, latencyNanos), HIGHEST_TRACKABLE_NANOS));
+    }
+
+    /** What the workers recorded since the previous call, also folded into the cumulative histogram. */
+    public synchronized Histogram interval() {
+        Histogram interval = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+        for (SingleWriterRecorder recorder : recorders) {
+            interval.add(recorder.getIntervalHistogram());
+        }
+        cumulative.add(interval);
+        return interval;
+    }
+
+    /** Everything recorded so far. */
+    public synchronized Histogram total() {
+        interval();
+        return cumulative.copy();
+    }
+
+    public static String percentiles(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return "p50=- p90=- p99=- p99.9=- max=-";
+        }
+        return String.format("p50=%s p90=%s p99=%s p99.9=%s max=%s",
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+
+    /** Writes the cumulative distribution in milliseconds, in the .hgrm format HdrHistogram's plotter reads. */
+    public void writeHgrm(String path) throws FileNotFoundException {
+        Histogram histogram = total();
+        try (PrintStream out = new PrintStream(path)) {
+            histogram.outputPercentileDistribution(out, 1_000_000.0);
+        }
+    }
+}
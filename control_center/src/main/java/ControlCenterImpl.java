@@ -16,14 +16,20 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 
 public class ControlCenterImpl implements ControlCenterService {
@@ -35,6 +41,12 @@ public class ControlCenterImpl implements ControlCenterService {
     private static final String PENDING_VOTES_FILE = "pending_votes.csv";
     private final Set<String> pendingKeys = new HashSet<>();
     private static final long RETRY_INTERVAL_MS = 60000;
+    private final AtomicBoolean earlyRetryScheduled = new AtomicBoolean(false);
+    private volatile long retryNotBefore = 0;
+    private final VoteCoalescer voteCoalescer = new VoteCoalescer(
+        Integer.getInteger("CONTROL_CENTER_BATCH_SIZE", 200),
+        Long.getLong("CONTROL_CENTER_BATCH_LINGER_MS", 5),
+        votes -> sendBatch(votes));
     private EventObserverI observerServant;
     private final Map<String, ElectionActivityObserverPrx> electionActivitySubscribers = new ConcurrentHashMap<>();
     private boolean electionActive = false;
@@ -92,6 +104,10 @@ public class ControlCenterImpl implements ControlCenterService {
 
         @Override
         public void _notify(ElectionEvent event, Current current) {
+            if (event.type == EventType.CacheInvalidated) {
+                // Dirigido a los proxy caches; el centro de control no guarda consultas.
+                return;
+            }
             // Process notification in separate thread to avoid blocking
             new Thread(() -> {
                 try {
@@ -184,6 +200,9 @@ public class ControlCenterImpl implements ControlCenterService {
         return serverService.getCandidates();
     }
     synchronized void processPendingVotes() {
+        if (System.currentTimeMillis() < retryNotBefore) {
+            return;
+        }
         while (!pendingVotes.isEmpty()) {
         VoteData vote = pendingVotes.peek();
         try {
@@ -191,6 +210,11 @@ public class ControlCenterImpl implements ControlCenterService {
             dequeuePendingVote();
             System.out.println("ControlCenter [" + controlCenterId + "]: Pending vote sent successfully for " 
                                 + vote.citizenDocument);
+        } catch (ServerOverloaded e) {
+            System.err.println("ControlCenter [" + controlCenterId + "]: Servidor saturado, reintentando votos pendientes en "
+                               + e.retryAfterMs + "ms");
+            scheduleEarlyRetry(e.retryAfterMs);
+            break;
         } catch (ConnectTimeoutException | ConnectionRefusedException | NotRegisteredException e) {
             System.err.println("ControlCenter [" + controlCenterId
                                + "]: Failed to send pending vote, server unavailable. Will retry later: "
@@ -206,6 +230,81 @@ public class ControlCenterImpl implements ControlCenterService {
     }
 
 
+    private synchronized void enqueuePendingVote(VoteData vote) {
+        enqueuePendingVotes(Arrays.asList(vote));
+    }
+
+    // One write of the pending file for the whole batch instead of one per vote.
+    private synchronized void enqueuePendingVotes(List<VoteData> votes) {
+        boolean added = false;
+        for (VoteData vote : votes) {
+            String key = buildVoteKey(vote.citizenDocument, vote.candidateId, vote.tableId);
+            if (pendingKeys.add(key)) {
+                pendingVotes.add(vote);
+                added = true;
+            }
+        }
+        if (added) {
+            savePendingVotesToDisk();
+        }
+    }
+
+    // Sends one coalesced batch with registerVotes. Votes the server did not take are kept in
+    // pendingVotes and reported as Accepted, exactly like a vote that went through: those refused
+    // as Overloaded are sent again after the retry-after the server returned with the batch, and a
+    // batch whose reply was lost is left to the periodic retry.
+    private CompletableFuture<VoteStatus[]> sendBatch(VoteData[] votes) {
+        CompletableFuture<ServerService.RegisterVotesResult> reply;
+        try {
+            reply = serverService.registerVotesAsync(votes);
+        } catch (RuntimeException e) {
+            reply = CompletableFuture.failedFuture(e);
+        }
+
+        return reply.handle((result, error) -> {
+            VoteStatus[] statuses = new VoteStatus[votes.length];
+            if (error != null) {
+                System.err.println("ControlCenter [" + controlCenterId + "]: Error enviando lote de " + votes.length
+                                   + " votos, quedan pendientes para reintento: " + error.getMessage());
+                enqueuePendingVotes(Arrays.asList(votes));
+                Arrays.fill(statuses, VoteStatus.Accepted);
+                return statuses;
+            }
+
+            List<VoteData> overloaded = new ArrayList<>();
+            for (int i = 0; i < votes.length; i++) {
+                VoteStatus status = i < result.returnValue.length ? result.returnValue[i] : VoteStatus.Failed;
+                if (status == VoteStatus.Overloaded) {
+                    overloaded.add(votes[i]);
+                    status = VoteStatus.Accepted;
+                }
+                statuses[i] = status;
+            }
+            if (!overloaded.isEmpty()) {
+                enqueuePendingVotes(overloaded);
+                scheduleEarlyRetry(result.retryAfterMs);
+                System.out.println("ControlCenter [" + controlCenterId + "]: Servidor saturado, " + overloaded.size()
+                                   + " votos en cola para reintento en " + result.retryAfterMs + "ms");
+            }
+            return statuses;
+        });
+    }
+
+    // The server told us when it expects to have room again; retry then instead of waiting for
+    // the next periodic pass. Only one early retry is scheduled at a time.
+    private void scheduleEarlyRetry(int retryAfterMs) {
+        retryNotBefore = System.currentTimeMillis() + retryAfterMs;
+        if (retryAfterMs < RETRY_INTERVAL_MS && earlyRetryScheduled.compareAndSet(false, true)) {
+            retryTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    earlyRetryScheduled.set(false);
+                    processPendingVotes();
+                }
+            }, retryAfterMs);
+        }
+    }
+
     private synchronized void savePendingVotesToDisk() {
     File file = new File(PENDING_VOTES_FILE);
         try (BufferedWriter bw = new BufferedWriter(new FileWriter(file, false))) {
@@ -255,37 +354,78 @@ public class ControlCenterImpl implements ControlCenterService {
         electionActive = false; // Cambiar el estado a inactivo
     }
     @Override
-    public void submitVote(VoteData vote, Current current) throws CitizenAlreadyVoted, CitizenNotFound, CandidateNotFound, CitizenNotBelongToTable, ElectionInactive {
+    public CompletionStage<Void> submitVoteAsync(VoteData vote, Current current) {
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
         if (!electionActive) {
-            throw new ElectionInactive("Election is not currently active. Cannot submit vote.");
+            outcome.completeExceptionally(new ElectionInactive("Election is not currently active. Cannot submit vote."));
+            return outcome;
         }
 
-        try {
-            serverService.registerVote(vote);
-            System.out.println("Vote submitted successfully for document: " + vote.citizenDocument);
-            
-        } catch (CitizenAlreadyVoted e) {
-            throw e;
-        } catch (CitizenNotFound e) {
-            throw e;
-        } catch (CandidateNotFound e) {
-            throw e;
-        } catch (CitizenNotBelongToTable e) {
-            throw e;
-        } catch (Exception e) {
-            String errorMessage = e.getMessage() != null ? e.getMessage() : "";
-            
-            if (errorMessage.contains("queue is full") || 
-                errorMessage.contains("maximum capacity") ||
-                errorMessage.contains("pending queue")) {
-                System.out.println("Vote submitted successfully for document: " + vote.citizenDocument);
+        // Votes from every table share the coalescer, so the server sees a few large batches
+        // instead of one twoway call per vote. Ice needs the user exceptions unwrapped, hence
+        // completing the outcome by hand rather than throwing from the callback.
+        voteCoalescer.submit(vote).whenComplete((status, error) -> {
+            if (error != null) {
+                // The coalescer itself failed; keep the vote like one the server could not take.
+                System.err.println("ControlCenter [" + controlCenterId + "]: Error enviando voto, queda pendiente para reintento: " + error.getMessage());
+                enqueuePendingVote(vote);
+                outcome.complete(null);
                 return;
             }
-            
-            e.printStackTrace(System.err);
-            System.err.println("Failed to submit vote due to an unexpected server error: " + e.getMessage());
-            throw new UnknownException(e); 
+            switch (status) {
+                case Accepted:
+                    outcome.complete(null);
+                    break;
+                case AlreadyVoted:
+                    outcome.completeExceptionally(new CitizenAlreadyVoted("Citizen " + vote.citizenDocument + " has already voted"));
+                    break;
+                case UnknownCitizen:
+                    outcome.completeExceptionally(new CitizenNotFound("Citizen " + vote.citizenDocument + " not found"));
+                    break;
+                case UnknownCandidate:
+                    outcome.completeExceptionally(new CandidateNotFound("Candidate " + vote.candidateId + " not found"));
+                    break;
+                case WrongTable:
+                    outcome.completeExceptionally(new CitizenNotBelongToTable("Citizen " + vote.citizenDocument + " does not belong to table " + vote.tableId));
+                    break;
+                case Inactive:
+                    outcome.completeExceptionally(new ElectionInactive("Election is not currently active. Cannot submit vote."));
+                    break;
+                default:
+                    System.err.println("Failed to submit vote due to an unexpected server error for document: " + vote.citizenDocument);
+                    outcome.completeExceptionally(new UnknownException("Server could not register the vote (" + status + ")"));
+                    break;
+            }
+        });
+        return outcome;
+    }
+
+    @Override
+    public CompletionStage<VoteStatus[]> submitVotesAsync(VoteData[] votes, Current current) {
+        VoteStatus[] statuses = new VoteStatus[votes.length];
+        if (!electionActive) {
+            Arrays.fill(statuses, VoteStatus.Inactive);
+            return CompletableFuture.completedFuture(statuses);
+        }
+
+        CompletableFuture<?>[] pending = new CompletableFuture<?>[votes.length];
+        for (int i = 0; i < votes.length; i++) {
+            final int index = i;
+            final VoteData vote = votes[i];
+            pending[i] = voteCoalescer.submit(vote).handle((status, error) -> {
+                if (error != null) {
+                    // Same as submitVote: keep the vote and let the retry task send it.
+                    System.err.println("ControlCenter [" + controlCenterId + "]: Error enviando voto, queda pendiente para reintento: " + error.getMessage());
+                    enqueuePendingVote(vote);
+                    statuses[index] = VoteStatus.Accepted;
+                } else {
+                    statuses[index] = status;
+                }
+                return null;
+            });
         }
+
+        return CompletableFuture.allOf(pending).thenApply(done -> statuses);
     }
 
     private void notifyElectionStarted() {
@@ -356,6 +496,28 @@ public class ControlCenterImpl implements ControlCenterService {
         }
     }
 
+    // The cursor lives on the server; the control center only relays the pages, so the
+    // declared exceptions are passed through for the voting table to handle.
+    @Override
+    public long openCitizenCursor(int tableId, Current current) throws ServerOverloaded {
+        return serverService.openCitizenCursor(tableId);
+    }
+
+    @Override
+    public CitizenData[] nextCitizens(long cursorId, int maxCitizens, Current current) throws CursorNotFound {
+        return serverService.nextCitizens(cursorId, maxCitizens);
+    }
+
+    @Override
+    public void closeCitizenCursor(long cursorId, Current current) {
+        try {
+            serverService.closeCitizenCursor(cursorId);
+        } catch (Exception e) {
+            // The server reaps idle cursors anyway.
+            System.err.println("ControlCenter [" + controlCenterId + "]: Error closing citizen cursor " + cursorId + ": " + e.getMessage());
+        }
+    }
+
     private void exportResultsToCSV() {
     try {
         System.out.println("Exportando resultados...");
@@ -0,0 +1,115 @@
+import ElectionSystem.VoteData;
+import ElectionSystem.VoteStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects votes coming from many voting tables and forwards them to the server in batches,
+ * sent when maxBatchSize votes have accumulated or lingerMs after the first vote of the batch,
+ * whichever comes first. Each submitted vote gets its own status future.
+ */
+public class VoteCoalescer {
+
+    private static class PendingVote {
+        final VoteData vote;
+        final CompletableFuture<VoteStatus> status = new CompletableFuture<>();
+
+        PendingVote(VoteData vote) {
+            this.vote = vote;
+        }
+    }
+
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final Function<VoteData[], CompletableFuture<VoteStatus[]>> sender;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "vote-coalescer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private List<PendingVote> current = new ArrayList<>();
+    private long generation;
+
+    public VoteCoalescer(int maxBatchSize, long lingerMs, Function<VoteData[], CompletableFuture<VoteStatus[]>> sender) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerMs = Math.max(0, lingerMs);
+        this.sender = sender;
+    }
+
+    public CompletableFuture<VoteStatus> submit(VoteData vote) {
+        PendingVote pending = new PendingVote(vote);
+        List<PendingVote> full = null;
+
+        synchronized (this) {
+            current.add(pending);
+            if (current.size() >= maxBatchSize) {
+                full = takeBatch();
+            } else if (current.size() == 1) {
+                long scheduledGeneration = generation;
+                timer.schedule(() -> flushIfStill(scheduledGeneration), lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        if (full != null) {
+            send(full);
+        }
+        return pending.status;
+    }
+
+    private void flushIfStill(long scheduledGeneration) {
+        List<PendingVote> batch;
+        synchronized (this) {
+            // The batch this timer was armed for already went out because it filled up.
+            if (generation != scheduledGeneration || current.isEmpty()) {
+                return;
+            }
+            batch = takeBatch();
+        }
+        send(batch);
+    }
+
+    private List<PendingVote> takeBatch() {
+        List<PendingVote> batch = current;
+        current = new ArrayList<>(maxBatchSize);
+        generation++;
+        return batch;
+    }
+
+    private void send(List<PendingVote> batch) {
+        VoteData[] votes = new VoteData[batch.size()];
+        for (int i = 0; i < votes.length; i++) {
+            votes[i] = batch.get(i).vote;
+        }
+
+        CompletableFuture<VoteStatus[]> reply;
+        try {
+            reply = sender.apply(votes);
+        } catch (RuntimeException e) {
+            reply = CompletableFuture.failedFuture(e);
+        }
+
+        reply.whenComplete((statuses, error) -> {
+            for (int i = 0; i < batch.size(); i++) {
+                CompletableFuture<VoteStatus> status = batch.get(i).status;
+                if (error != null) {
+                    status.completeExceptionally(error);
+                } else if (statuses == null || i >= statuses.length) {
+                    status.complete(VoteStatus.Failed);
+                } else {
+                    status.complete(statuses[i]);
+                }
+            }
+        });
+    }
+
+    public void shutdown() {
+        timer.shutdown();
+    }
+}
@@ -1,6 +1,9 @@
+import ElectionSystem.ServerService;
 import ElectionSystem.ServerServicePrx;
 import ElectionSystem.VoteData;
 import ElectionSystem.CitizenNotFound;
+import ElectionSystem.VoteStatus;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,6 +15,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.mockito.ArgumentMatchers.any;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import ElectionSystem.ElectionInactive;
 import com.zeroc.Ice.UnknownException;
 
@@ -57,85 +64,119 @@ class ControlCenterImplTest {
         }
     }
 
+    @AfterEach
+    void tearDown() {
+        // Queued votes are written to the working directory; don't let them leak into the next test.
+        new java.io.File("pending_votes.csv").delete();
+    }
+
     @Test
-    void submitVote_serverAvailable_sendsVoteDirectly() throws Exception {
+    void submitVote_serverAvailable_sendsVoteInBatch() throws Exception {
         VoteData vote = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
+        answerEveryVoteWith(VoteStatus.Accepted, 0);
         
-        // Should not throw exception and vote should be sent to server
-        assertDoesNotThrow(() -> controlCenterImpl.submitVote(vote, current));
+        // Should not throw exception and vote should reach the server through registerVotes
+        assertDoesNotThrow(() -> submit(vote));
         
-        // Verify server was called
-        verify(mockServerService).registerVote(vote);
+        verify(mockServerService).registerVotesAsync(argThat(batch -> java.util.Arrays.asList(batch).contains(vote)));
+        verify(mockServerService, never()).registerVote(any());
+        assertFalse(controlCenterImpl.pendingVotes.contains(vote));
     }
 
     @Test
-    void submitVote_serverUnavailable_throwsException() throws Exception {
+    void submitVote_serverUnavailable_queuedForRetry() throws Exception {
         VoteData vote = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
         
-        // Mock server to throw generic exception (server unavailable)
-        doThrow(new RuntimeException("Server unavailable")).when(mockServerService).registerVote(vote);
+        // Mock server to fail the whole batch (server unavailable)
+        when(mockServerService.registerVotesAsync(any()))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Server unavailable")));
         
-        // Generic server errors should throw UnknownException
-        assertThrows(UnknownException.class, () -> controlCenterImpl.submitVote(vote, current));
-        
-        // Verify server was attempted to be called
-        verify(mockServerService).registerVote(vote);
+        // The vote stays with the control center and the retry task sends it later
+        assertDoesNotThrow(() -> submit(vote));
+        assertTrue(controlCenterImpl.pendingVotes.contains(vote));
     }
 
     @Test
-    void submitVote_queueFull_handledAsSuccessfulProcessing() throws Exception {
+    void submitVote_failedOnServer_throwsUnknownExceptionWithoutQueueing() throws Exception {
         VoteData vote = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
         
-        // Mock server to throw queue full exception (capacity issue)
-        doThrow(new RuntimeException("Vote processing queue is full. Server at maximum capacity")).when(mockServerService).registerVote(vote);
-        
-        // Queue full errors should be handled gracefully (not throw exception)
-        assertDoesNotThrow(() -> controlCenterImpl.submitVote(vote, current));
+        // Only Overloaded means the server will take the vote later; Failed is a definitive error
+        answerEveryVoteWith(VoteStatus.Failed, 0);
         
-        // Verify server was called
-        verify(mockServerService).registerVote(vote);
+        assertThrows(UnknownException.class, () -> submit(vote));
+        assertFalse(controlCenterImpl.pendingVotes.contains(vote));
     }
 
     @Test
-    void submitVote_pendingQueueError_handledAsSuccessfulProcessing() throws Exception {
+    void submitVote_serverOverloaded_queuedForRetry() throws Exception {
         VoteData vote = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
         
-        // Mock server to throw pending queue error (capacity issue)
-        doThrow(new RuntimeException("pending queue")).when(mockServerService).registerVote(vote);
-        
-        // Pending queue errors should be handled gracefully (not throw exception)
-        assertDoesNotThrow(() -> controlCenterImpl.submitVote(vote, current));
+        // Mock server to reject the vote with an explicit backpressure signal
+        answerEveryVoteWith(VoteStatus.Overloaded, 60000);
         
-        // Verify server was called
-        verify(mockServerService).registerVote(vote);
+        // Overloaded votes are kept by the control center instead of failing the voting table
+        assertDoesNotThrow(() -> submit(vote));
+        assertTrue(controlCenterImpl.pendingVotes.contains(vote));
     }
 
     @Test
-    void submitVote_maximumCapacityError_handledAsSuccessfulProcessing() throws Exception {
-        VoteData vote = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
-        
-        // Mock server to throw maximum capacity error
-        doThrow(new RuntimeException("maximum capacity")).when(mockServerService).registerVote(vote);
+    void submitVotes_forwardsBatchAndReturnsPerVoteStatus() throws Exception {
+        VoteData first = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
+        VoteData second = new VoteData("67890", 1, 1, "2023-01-01 10:00:01");
+        
+        // Mock server to answer the coalesced batch with one status per vote
+        when(mockServerService.registerVotesAsync(any())).thenAnswer(invocation -> {
+            VoteData[] batch = invocation.getArgument(0);
+            VoteStatus[] statuses = new VoteStatus[batch.length];
+            for (int i = 0; i < batch.length; i++) {
+                statuses[i] = "67890".equals(batch[i].citizenDocument) ? VoteStatus.AlreadyVoted : VoteStatus.Accepted;
+            }
+            return CompletableFuture.completedFuture(new ServerService.RegisterVotesResult(statuses, 0));
+        });
+        
+        VoteStatus[] statuses = controlCenterImpl.submitVotesAsync(new VoteData[] { first, second }, current)
+            .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        
+        assertArrayEquals(new VoteStatus[] { VoteStatus.Accepted, VoteStatus.AlreadyVoted }, statuses);
+        verify(mockServerService, atLeastOnce()).registerVotesAsync(any());
+    }
+
+    @Test
+    void submitVotes_serverUnavailable_queuesVotesAndAccepts() throws Exception {
+        VoteData first = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
+        VoteData second = new VoteData("67890", 1, 1, "2023-01-01 10:00:01");
+        when(mockServerService.registerVotesAsync(any()))
+            .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Server unavailable")));
+        
+        VoteStatus[] statuses = controlCenterImpl.submitVotesAsync(new VoteData[] { first, second }, current)
+            .toCompletableFuture().get(5, TimeUnit.SECONDS);
+        
+        assertArrayEquals(new VoteStatus[] { VoteStatus.Accepted, VoteStatus.Accepted }, statuses);
+        assertTrue(controlCenterImpl.pendingVotes.contains(first));
+        assertTrue(controlCenterImpl.pendingVotes.contains(second));
+    }
+
+    @Test
+    void submitVotes_electionInactive_marksAllInactive() throws Exception {
+        controlCenterImpl.endElection(current);
         
-        // Maximum capacity errors should be handled gracefully (not throw exception)
-        assertDoesNotThrow(() -> controlCenterImpl.submitVote(vote, current));
+        VoteData vote = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
+        VoteStatus[] statuses = controlCenterImpl.submitVotesAsync(new VoteData[] { vote }, current)
+            .toCompletableFuture().join();
         
-        // Verify server was called
-        verify(mockServerService).registerVote(vote);
+        assertArrayEquals(new VoteStatus[] { VoteStatus.Inactive }, statuses);
+        verify(mockServerService, never()).registerVotesAsync(any());
     }
 
     @Test
     void submitVote_knownElectionExceptions_propagated() throws Exception {
         VoteData vote = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
         
-        // Mock server to throw known election system exceptions - these should still be propagated
-        doThrow(new CitizenNotFound("Citizen not found")).when(mockServerService).registerVote(vote);
-        
-        // Should throw the same exception (not handled as capacity issue)
-        assertThrows(CitizenNotFound.class, () -> controlCenterImpl.submitVote(vote, current));
+        // Per-vote rejections come back as the declared exceptions (not handled as capacity issue)
+        answerEveryVoteWith(VoteStatus.UnknownCitizen, 0);
         
-        // Verify server was called
-        verify(mockServerService).registerVote(vote);
+        assertThrows(CitizenNotFound.class, () -> submit(vote));
+        assertFalse(controlCenterImpl.pendingVotes.contains(vote));
     }
 
     @Test
@@ -148,7 +189,8 @@ class ControlCenterImplTest {
         
         // Verify election is active by trying to submit a vote
         VoteData vote = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
-        assertDoesNotThrow(() -> controlCenterImpl.submitVote(vote, current));
+        answerEveryVoteWith(VoteStatus.Accepted, 0);
+        assertDoesNotThrow(() -> submit(vote));
     }
 
     @Test
@@ -161,7 +203,7 @@ class ControlCenterImplTest {
         
         // Verify election is inactive by trying to submit a vote
         VoteData vote = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
-        assertThrows(ElectionInactive.class, () -> controlCenterImpl.submitVote(vote, current));
+        assertThrows(ElectionInactive.class, () -> submit(vote));
     }
 
     @Test
@@ -172,9 +214,27 @@ class ControlCenterImplTest {
         VoteData vote = new VoteData("12345", 1, 1, "2023-01-01 10:00:00");
         
         // Should throw ElectionInactive exception
-        assertThrows(ElectionInactive.class, () -> controlCenterImpl.submitVote(vote, current));
+        assertThrows(ElectionInactive.class, () -> submit(vote));
         
         // Verify server was never called
-        verify(mockServerService, never()).registerVote(any());
+        verify(mockServerService, never()).registerVotesAsync(any());
+    }
+
+    private void answerEveryVoteWith(VoteStatus status, int retryAfterMs) {
+        when(mockServerService.registerVotesAsync(any())).thenAnswer(invocation -> {
+            VoteData[] batch = invocation.getArgument(0);
+            VoteStatus[] statuses = new VoteStatus[batch.length];
+            java.util.Arrays.fill(statuses, status);
+            return CompletableFuture.completedFuture(new ServerService.RegisterVotesResult(statuses, retryAfterMs));
+        });
+    }
+
+    // submitVote is AMD: wait for the outcome and rethrow what Ice would send to the voting table.
+    private void submit(VoteData vote) throws Throwable {
+        try {
+            controlCenterImpl.submitVoteAsync(vote, current).toCompletableFuture().get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
     }
 }
\ No newline at end of file
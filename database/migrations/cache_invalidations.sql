@@ -0,0 +1,9 @@
+-- Crea cache_invalidations, el registro compartido por el que cada réplica del servidor lee las
+-- invalidaciones de caché (invalidateDocuments, clearCache) que recibió la otra. Ejecutar en la base
+-- 'elections'; se puede aplicar con los servidores en marcha.
+CREATE TABLE IF NOT EXISTS cache_invalidations (
+    id BIGSERIAL PRIMARY KEY,
+    scope VARCHAR(16) NOT NULL,
+    documents TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,34 @@
+-- Reemplaza vote_totals (actualizada en cada transacción de votos) por results_by_table_candidate,
+-- que acumula el rollup de los servidores, y crea results_pending, donde cada transacción de votos
+-- deja sus conteos, y la fila de turnos en results_rollup. Requiere haber aplicado antes
+-- votes_partitioned_by_table.sql. Ejecutar en la base 'elections' con los servidores detenidos:
+-- vote_totals cuenta entonces todos los votos, así que no queda nada pendiente.
+BEGIN;
+
+LOCK TABLE votes, vote_totals IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE vote_totals RENAME TO results_by_table_candidate;
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('ALTER TABLE vote_totals_p%s RENAME TO results_by_table_candidate_p%s',
+                       lpad(i::text, 2, '0'), lpad(i::text, 2, '0'));
+    END LOOP;
+END $$;
+
+CREATE TABLE results_pending (
+    id BIGSERIAL PRIMARY KEY,
+    table_id INT NOT NULL,
+    candidate_id INT NOT NULL,
+    votes BIGINT NOT NULL
+);
+
+CREATE TABLE results_rollup (
+    id INT PRIMARY KEY,
+    rolled_at TIMESTAMP
+);
+
+INSERT INTO results_rollup (id, rolled_at) VALUES (1, CURRENT_TIMESTAMP);
+
+COMMIT;
@@ -0,0 +1,16 @@
+-- Migra votes.id de SERIAL (secuencia de a 1, INT) a la secuencia de a 500 que espera Vote con el
+-- optimizador pooled-lo. Los ids existentes no cambian; los nuevos continúan después del mayor.
+-- Ejecutar en la base 'elections' con los servidores detenidos. El cambio a BIGINT reescribe la
+-- tabla, así que tarda en proporción al número de votos.
+BEGIN;
+
+LOCK TABLE votes IN ACCESS EXCLUSIVE MODE;
+
+ALTER TABLE votes ALTER COLUMN id TYPE BIGINT;
+ALTER SEQUENCE votes_id_seq AS BIGINT;
+
+-- El próximo nextval devuelve max(id) + 1, inicio de un bloque de 500 ids libres
+SELECT setval('votes_id_seq', COALESCE((SELECT MAX(id) FROM votes), 0) + 1, false);
+ALTER SEQUENCE votes_id_seq INCREMENT BY 500;
+
+COMMIT;
@@ -0,0 +1,59 @@
+-- Pasa votes a la tabla particionada por hash de table_id de user.sql, con un solo índice
+-- secundario, y crea vote_totals a partir de los votos existentes. Requiere haber aplicado antes
+-- votes_id_pooled_sequence.sql. Ejecutar en la base 'elections' con los servidores detenidos; copia
+-- todos los votos, así que tarda en proporción a su número.
+BEGIN;
+
+LOCK TABLE votes IN ACCESS EXCLUSIVE MODE;
+
+-- La secuencia pertenece a votes.id y se borraría con la tabla vieja
+ALTER SEQUENCE votes_id_seq OWNED BY NONE;
+ALTER TABLE votes RENAME TO votes_unpartitioned;
+-- Libera el nombre votes_pkey para la llave de la tabla nueva
+ALTER TABLE votes_unpartitioned DROP CONSTRAINT IF EXISTS votes_pkey;
+
+CREATE TABLE votes (
+    id BIGINT NOT NULL DEFAULT nextval('votes_id_seq'),
+    candidate_id INT NOT NULL,
+    election_id INT NOT NULL,
+    table_id INT NOT NULL,
+    timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, table_id),
+    CONSTRAINT fk_vote_candidate FOREIGN KEY (candidate_id) REFERENCES candidate(id),
+    CONSTRAINT fk_vote_election FOREIGN KEY (election_id) REFERENCES election(id)
+) PARTITION BY HASH (table_id);
+
+CREATE TABLE vote_totals (
+    table_id INT NOT NULL,
+    candidate_id INT NOT NULL,
+    votes BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (table_id, candidate_id),
+    CONSTRAINT fk_vote_total_candidate FOREIGN KEY (candidate_id) REFERENCES candidate(id)
+) PARTITION BY HASH (table_id);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE votes_p%s PARTITION OF votes FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                       lpad(i::text, 2, '0'), i);
+        EXECUTE format('CREATE TABLE vote_totals_p%s PARTITION OF vote_totals FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                       lpad(i::text, 2, '0'), i);
+    END LOOP;
+END $$;
+
+INSERT INTO votes (id, candidate_id, election_id, table_id, timestamp)
+SELECT id, candidate_id, election_id, table_id, timestamp FROM votes_unpartitioned;
+
+-- El índice se crea después de copiar: más rápido que mantenerlo fila a fila
+CREATE INDEX idx_vote_table_candidate ON votes (table_id, candidate_id);
+
+INSERT INTO vote_totals (table_id, candidate_id, votes)
+SELECT table_id, candidate_id, COUNT(*) FROM votes GROUP BY table_id, candidate_id;
+
+ALTER SEQUENCE votes_id_seq OWNED BY votes.id;
+DROP TABLE votes_unpartitioned;
+
+ANALYZE votes;
+ANALYZE vote_totals;
+
+COMMIT;
@@ -23,16 +23,76 @@ CREATE TABLE candidate (
 );
 
 
+-- Los ids de votes salen de una secuencia que avanza de a 500 (Vote.ID_ALLOCATION_SIZE): Hibernate
+-- reserva un bloque por cada nextval y puede insertar por lotes. Bases existentes con id SERIAL:
+-- ver migrations/votes_id_pooled_sequence.sql
+CREATE SEQUENCE votes_id_seq AS BIGINT INCREMENT BY 500;
+
+-- votes y results_by_table_candidate se particionan por hash de table_id en 16 particiones: los ids de mesa son
+-- densos, así que el hash reparte parejo, y los votos de una mesa quedan en una sola partición.
+-- La llave primaria debe incluir table_id; los ids siguen siendo únicos porque salen de la secuencia.
 CREATE TABLE votes (
-    id SERIAL PRIMARY KEY, 
+    id BIGINT NOT NULL DEFAULT nextval('votes_id_seq'),
     candidate_id INT NOT NULL,
     election_id INT NOT NULL,
     table_id INT NOT NULL,      
     timestamp TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, table_id),
     CONSTRAINT fk_vote_candidate FOREIGN KEY (candidate_id) REFERENCES candidate(id),
     CONSTRAINT fk_vote_election FOREIGN KEY (election_id) REFERENCES election(id)
+) PARTITION BY HASH (table_id);
+
+-- Índice secundario (el de Vote): votos de una mesa por candidato
+CREATE INDEX idx_vote_table_candidate ON votes (table_id, candidate_id);
+
+-- Votos por mesa y candidato acumulados por el rollup de los servidores a partir de results_pending;
+-- los resultados son este acumulado más lo pendiente
+CREATE TABLE results_by_table_candidate (
+    table_id INT NOT NULL,
+    candidate_id INT NOT NULL,
+    votes BIGINT NOT NULL DEFAULT 0,
+    PRIMARY KEY (table_id, candidate_id),
+    CONSTRAINT fk_result_candidate FOREIGN KEY (candidate_id) REFERENCES candidate(id)
+) PARTITION BY HASH (table_id);
+
+-- Conteos por mesa y candidato de cada lote, escritos en la misma transacción que sus votos; el
+-- rollup los borra al acumularlos. Solo recibe inserciones y queda pequeña, así que no se particiona
+CREATE TABLE results_pending (
+    id BIGSERIAL PRIMARY KEY,
+    table_id INT NOT NULL,
+    candidate_id INT NOT NULL,
+    votes BIGINT NOT NULL
 );
 
+-- Fila única que los servidores bloquean para acumular por turnos
+CREATE TABLE results_rollup (
+    id INT PRIMARY KEY,
+    rolled_at TIMESTAMP
+);
+
+INSERT INTO results_rollup (id) VALUES (1);
+
+-- Invalidaciones de caché (invalidateDocuments, clearCache) que cada servidor aplica y deja aquí
+-- para que la otra réplica las lea y las aplique también; se borran pasada una hora
+CREATE TABLE cache_invalidations (
+    id BIGSERIAL PRIMARY KEY,
+    scope VARCHAR(16) NOT NULL,
+    documents TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+DO $$
+BEGIN
+    FOR i IN 0..15 LOOP
+        EXECUTE format('CREATE TABLE votes_p%s PARTITION OF votes FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                       lpad(i::text, 2, '0'), i);
+        EXECUTE format('CREATE TABLE results_by_table_candidate_p%s PARTITION OF results_by_table_candidate FOR VALUES WITH (MODULUS 16, REMAINDER %s)',
+                       lpad(i::text, 2, '0'), i);
+    END LOOP;
+END $$;
+
+ALTER SEQUENCE votes_id_seq OWNED BY votes.id;
+
 CREATE TABLE voted_citizens (
     citizen_id SERIAL PRIMARY KEY
 );
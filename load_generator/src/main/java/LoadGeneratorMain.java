@@ -0,0 +1,174 @@
+import com.zeroc.Ice.Communicator;
+import com.zeroc.Ice.Properties;
+import com.zeroc.Ice.Util;
+
+import ElectionSystem.VoteStationPrx;
+import ElectionSystem.queryStationPrx;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+public class LoadGeneratorMain {
+
+    private static final String USAGE =
+        "Usage: load_generator <vote|query> <profile> [profile args]\n" +
+        "  constant <rate> <seconds>\n" +
+        "  step <startRate> <stepRate> <stepSeconds> <steps>\n" +
+        "  ramp <fromRate> <toRate> <seconds>\n" +
+        "  spike <baseRate> <spikeRate> <seconds> <spikeAtSeconds> <spikeSeconds>";
+
+    public static void main(String[] args) {
+        List<String> remainingArgs = new ArrayList<>();
+        try (Communicator communicator = Util.initialize(args, "config.loadgen.cfg", remainingArgs)) {
+            // Ice consumed the --Property=value arguments; what is left is the command line proper.
+            String[] remaining = remainingArgs.toArray(new String[0]);
+            if (remaining.length < 2) {
+                System.err.println(USAGE);
+                return;
+            }
+
+            Properties props = communicator.getProperties();
+            String target = remaining[0].toLowerCase();
+            LoadProfile profile;
+            try {
+                profile = LoadProfile.parse(remaining, 1);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                System.err.println(USAGE);
+                return;
+            }
+
+            List<String> documents = loadDocuments(props);
+            if (documents.isEmpty()) {
+                System.err.println("ERROR: no citizen documents to send");
+                return;
+            }
+            System.out.println("Loaded " + documents.size() + " citizen documents");
+
+            int timeoutMs = props.getPropertyAsIntWithDefault("LoadGenerator.TimeoutMs", 10000);
+            OpenLoopGenerator.Request request;
+            switch (target) {
+                case "vote":
+                    request = voteRequest(communicator, props, documents, timeoutMs);
+                    break;
+                case "query":
+                    request = queryRequest(communicator, props, documents, timeoutMs);
+                    break;
+                default:
+                    System.err.println(USAGE);
+                    return;
+            }
+            if (request == null) {
+                return;
+            }
+
+            OpenLoopGenerator generator = new OpenLoopGenerator(
+                profile,
+                request,
+                props.getPropertyAsIntWithDefault("LoadGenerator.ReportIntervalSeconds", 5),
+                props.getPropertyAsIntWithDefault("LoadGenerator.MaxOutstanding", 20000)
+            );
+            generator.run(props.getPropertyAsIntWithDefault("LoadGenerator.DrainSeconds", 30));
+            generator.printSummary();
+
+            String hgrmFile = props.getProperty("LoadGenerator.HgrmFile");
+            if (!hgrmFile.isEmpty()) {
+                generator.writeHgrm(hgrmFile);
+                System.out.println("Latency distribution written to " + hgrmFile);
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Load generator interrupted");
+        } catch (Exception e) {
+            System.err.println("Error en LoadGenerator: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Documents are sent in order and wrap around, so each citizen votes once per pass; repeated
+    // votes come back as already-voted and are counted as such.
+    private static OpenLoopGenerator.Request voteRequest(Communicator communicator, Properties props,
+                                                         List<String> documents, int timeoutMs) {
+        VoteStationPrx voteStation = VoteStationPrx.checkedCast(
+            communicator.stringToProxy(props.getProperty("LoadGenerator.VoteStation.Proxy")));
+        if (voteStation == null) {
+            System.err.println("ERROR: could not reach VoteStation at " + props.getProperty("LoadGenerator.VoteStation.Proxy"));
+            return null;
+        }
+        VoteStationPrx station = voteStation.ice_invocationTimeout(timeoutMs);
+
+        int[] candidateIds = parseCandidateIds(props.getPropertyWithDefault("LoadGenerator.CandidateIds", "1"));
+        System.out.println("Sending votes to " + station + " for candidates " +
+                         Arrays.toString(candidateIds));
+
+        return sequence -> station
+            .voteAsync(documents.get((int) (sequence % documents.size())), candidateIds[(int) (sequence % candidateIds.length)])
+            .thenApply(LoadGeneratorMain::voteOutcome);
+    }
+
+    private static String voteOutcome(int code) {
+        switch (code) {
+            case 0:
+                return "accepted";
+            case 1:
+                return "wrong_table";
+            case 2:
+                return "already_voted";
+            case 3:
+                return "citizen_not_found";
+            default:
+                return "code_" + code;
+        }
+    }
+
+    private static OpenLoopGenerator.Request queryRequest(Communicator communicator, Properties props,
+                                                          List<String> documents, int timeoutMs) {
+        queryStationPrx queryStation = queryStationPrx.checkedCast(
+            communicator.stringToProxy(props.getProperty("LoadGenerator.QueryStation.Proxy")));
+        if (queryStation == null) {
+            System.err.println("ERROR: could not reach QueryStation at " + props.getProperty("LoadGenerator.QueryStation.Proxy"));
+            return null;
+        }
+        queryStationPrx station = queryStation.ice_invocationTimeout(timeoutMs);
+        System.out.println("Sending queries to " + station);
+
+        return sequence -> station
+            .queryAsync(documents.get(ThreadLocalRandom.current().nextInt(documents.size())))
+            .thenApply(result -> result != null && result.found ? "found" : "not_found");
+    }
+
+    private static int[] parseCandidateIds(String value) {
+        String[] parts = value.split(",");
+        int[] ids = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            ids[i] = Integer.parseInt(parts[i].trim());
+        }
+        return ids;
+    }
+
+    // One document per line from LoadGenerator.DocumentsFile, or a synthetic numeric range.
+    private static List<String> loadDocuments(Properties props) throws IOException {
+        String file = props.getProperty("LoadGenerator.DocumentsFile");
+        if (!file.isEmpty()) {
+            return Files.readAllLines(Paths.get(file)).stream()
+                .map(String::trim)
+                .filter(line -> !line.isEmpty())
+                .collect(Collectors.toList());
+        }
+
+        long first = Long.parseLong(props.getPropertyWithDefault("LoadGenerator.FirstDocument", "1"));
+        int count = props.getPropertyAsIntWithDefault("LoadGenerator.DocumentCount", 100000);
+        List<String> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            documents.add(Long.toString(first + i));
+        }
+        return documents;
+    }
+}
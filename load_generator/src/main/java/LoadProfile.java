@@ -0,0 +1,160 @@
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offered load over time, in requests per second. The generator integrates it into a timeline of
+ * intended send times, so the schedule never depends on how fast the server answers.
+ */
+public abstract class LoadProfile {
+
+    private final long durationNanos;
+
+    protected LoadProfile(long durationSeconds) {
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+    }
+
+    /** Target rate at {@code elapsedNanos} after the start of the run. */
+    public abstract double rateAt(long elapsedNanos);
+
+    public abstract String describe();
+
+    public long durationNanos() {
+        return durationNanos;
+    }
+
+    protected static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+
+    /**
+     * constant &lt;rate&gt; &lt;seconds&gt;
+     * step &lt;startRate&gt; &lt;stepRate&gt; &lt;stepSeconds&gt; &lt;steps&gt;
+     * ramp &lt;fromRate&gt; &lt;toRate&gt; &lt;seconds&gt;
+     * spike &lt;baseRate&gt; &lt;spikeRate&gt; &lt;seconds&gt; &lt;spikeAtSeconds&gt; &lt;spikeSeconds&gt;
+     */
+    public static LoadProfile parse(String[] args, int offset) {
+        if (args.length <= offset) {
+            throw new IllegalArgumentException("Missing load profile");
+        }
+        String name = args[offset].toLowerCase();
+        double[] values = new double[args.length - offset - 1];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Double.parseDouble(args[offset + 1 + i]);
+        }
+
+        switch (name) {
+            case "constant":
+                require(name, values, 2);
+                return new Constant(values[0], (long) values[1]);
+            case "step":
+                require(name, values, 4);
+                return new Step(values[0], values[1], (long) values[2], (int) values[3]);
+            case "ramp":
+                require(name, values, 3);
+                return new Ramp(values[0], values[1], (long) values[2]);
+            case "spike":
+                require(name, values, 5);
+                return new Spike(values[0], values[1], (long) values[2], (long) values[3], (long) values[4]);
+            default:
+                throw new IllegalArgumentException("Unknown load profile: " + name);
+        }
+    }
+
+    private static void require(String name, double[] values, int count) {
+        if (values.length != count) {
+            throw new IllegalArgumentException("Profile " + name + " takes " + count + " arguments, got " + values.length);
+        }
+    }
+
+    static class Constant extends LoadProfile {
+        private final double rate;
+
+        Constant(double rate, long seconds) {
+            super(seconds);
+            this.rate = rate;
+        }
+
+        @Override
+        public double rateAt(long elapsedNanos) {
+            return rate;
+        }
+
+        @Override
+        public String describe() {
+            return String.format("constant %.0f req/s for %.0fs", rate, seconds(durationNanos()));
+        }
+    }
+
+    /** Holds each rate for stepSeconds, then adds stepRate. The knee is the first step whose tail blows up. */
+    static class Step extends LoadProfile {
+        private final double startRate;
+        private final double stepRate;
+        private final long stepNanos;
+
+        Step(double startRate, double stepRate, long stepSeconds, int steps) {
+            super(stepSeconds * steps);
+            this.startRate = startRate;
+            this.stepRate = stepRate;
+            this.stepNanos = TimeUnit.SECONDS.toNanos(stepSeconds);
+        }
+
+        @Override
+        public double rateAt(long elapsedNanos) {
+            return startRate + stepRate * (elapsedNanos / stepNanos);
+        }
+
+        @Override
+        public String describe() {
+            return String.format("step from %.0f req/s, +%.0f every %.0fs, for %.0fs",
+                    startRate, stepRate, seconds(stepNanos), seconds(durationNanos()));
+        }
+    }
+
+    static class Ramp extends LoadProfile {
+        private final double fromRate;
+        private final double toRate;
+
+        Ramp(double fromRate, double toRate, long seconds) {
+            super(seconds);
+            this.fromRate = fromRate;
+            this.toRate = toRate;
+        }
+
+        @Override
+        public double rateAt(long elapsedNanos) {
+            double progress = Math.min(1.0, (double) elapsedNanos / durationNanos());
+            return fromRate + (toRate - fromRate) * progress;
+        }
+
+        @Override
+        public String describe() {
+            return String.format("ramp %.0f -> %.0f req/s over %.0fs", fromRate, toRate, seconds(durationNanos()));
+        }
+    }
+
+    /** Base load with a burst, e.g. the opening of the polling stations. */
+    static class Spike extends LoadProfile {
+        private final double baseRate;
+        private final double spikeRate;
+        private final long spikeStartNanos;
+        private final long spikeEndNanos;
+
+        Spike(double baseRate, double spikeRate, long seconds, long spikeAtSeconds, long spikeSeconds) {
+            super(seconds);
+            this.baseRate = baseRate;
+            this.spikeRate = spikeRate;
+            this.spikeStartNanos = TimeUnit.SECONDS.toNanos(spikeAtSeconds);
+            this.spikeEndNanos = spikeStartNanos + TimeUnit.SECONDS.toNanos(spikeSeconds);
+        }
+
+        @Override
+        public double rateAt(long elapsedNanos) {
+            return elapsedNanos >= spikeStartNanos && elapsedNanos < spikeEndNanos ? spikeRate : baseRate;
+        }
+
+        @Override
+        public String describe() {
+            return String.format("spike %.0f req/s with %.0f req/s from %.0fs to %.0fs, for %.0fs",
+                    baseRate, spikeRate, seconds(spikeStartNanos), seconds(spikeEndNanos), seconds(durationNanos()));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load: requests are sent on a fixed timeline derived from the {@link LoadProfile}, as
+ * async invocations, whether or not earlier ones have been answered. Latency is measured from the
+ * intended send time, not from when the request actually went out, so a stalled server or a
+ * late scheduler shows up in the percentiles instead of silently lowering the offered load.
+ */
+public class OpenLoopGenerator {
+
+    /** Sends request number {@code sequence}; the future completes with an outcome label. */
+    @FunctionalInterface
+    public interface Request {
+        CompletableFuture<String> send(long sequence);
+    }
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(10);
+    private static final int SIGNIFICANT_DIGITS = 3;
+    // Rate 0 in a profile means "send nothing for now"; look again after this long.
+    private static final long IDLE_STEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final LoadProfile profile;
+    private final Request request;
+    private final long reportIntervalNanos;
+    private final int maxOutstanding;
+
+    private final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final Histogram cumulative = new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS);
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder saturated = new LongAdder();
+    private final AtomicLong outstanding = new AtomicLong();
+    // Largest gap between an intended send time and the moment the request was actually sent.
+    private final AtomicLong maxSendLagNanos = new AtomicLong();
+
+    private volatile long startNanos;
+    private long lastReportSent;
+    private long lastReportCompleted;
+
+    public OpenLoopGenerator(LoadProfile profile, Request request, int reportIntervalSeconds, int maxOutstanding) {
+        this.profile = profile;
+        this.request = request;
+        this.reportIntervalNanos = TimeUnit.SECONDS.toNanos(Math.max(1, reportIntervalSeconds));
+        this.maxOutstanding = Math.max(1, maxOutstanding);
+    }
+
+    public void run(int drainSeconds) throws InterruptedException {
+        System.out.println("Load profile: " + profile.describe());
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "load-report");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        startNanos = System.nanoTime();
+        reporter.scheduleAtFixedRate(this::report, reportIntervalNanos, reportIntervalNanos, TimeUnit.NANOSECONDS);
+        try {
+            schedule();
+            awaitOutstanding(drainSeconds);
+        } finally {
+            reporter.shutdownNow();
+        }
+        report();
+    }
+
+    private void schedule() {
+        double intendedOffset = 0;
+        long sequence = 0;
+
+        while (intendedOffset < profile.durationNanos()) {
+            long offset = (long) intendedOffset;
+            double rate = profile.rateAt(offset);
+            if (rate <= 0) {
+                intendedOffset += IDLE_STEP_NANOS;
+                continue;
+            }
+
+            long intendedTime = startNanos + offset;
+            long now;
+            while ((now = System.nanoTime()) < intendedTime) {
+                LockSupport.parkNanos(intendedTime - now);
+            }
+            maxSendLagNanos.accumulateAndGet(now - intendedTime, Math::max);
+
+            send(sequence++, intendedTime);
+            intendedOffset += 1_000_000_000.0 / rate;
+        }
+    }
+
+    private void send(long sequence, long intendedTime) {
+        sent.increment();
+        if (outstanding.get() >= maxOutstanding) {
+            // Counted, not queued: waiting here would stall the timeline for every later request.
+            saturated.increment();
+            return;
+        }
+
+        outstanding.incrementAndGet();
+        CompletableFuture<String> reply;
+        try {
+            reply = request.send(sequence);
+        } catch (RuntimeException e) {
+            reply = CompletableFuture.failedFuture(e);
+        }
+
+        reply.whenComplete((outcome, error) -> {
+            recorder.recordValue(Math.min(Math.max(0, System.nanoTime() - intendedTime), HIGHEST_TRACKABLE_NANOS));
+            String label = error == null ? outcome : "error:" + rootCause(error).getClass().getSimpleName();
+            outcomes.computeIfAbsent(label, k -> new LongAdder()).increment();
+            completed.increment();
+            outstanding.decrementAndGet();
+        });
+    }
+
+    private static Throwable rootCause(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private void awaitOutstanding(int drainSeconds) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Math.max(0, drainSeconds));
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private synchronized void report() {
+        Histogram interval = recorder.getIntervalHistogram();
+        cumulative.add(interval);
+
+        long elapsed = System.nanoTime() - startNanos;
+        long sentNow = sent.sum();
+        long completedNow = completed.sum();
+        double intervalSeconds = interval.getEndTimeStamp() > interval.getStartTimeStamp()
+            ? (interval.getEndTimeStamp() - interval.getStartTimeStamp()) / 1000.0
+            : reportIntervalNanos / 1_000_000_000.0;
+
+        System.out.printf("[%.0fs] target %.0f req/s, sent %.0f/s, completed %.0f/s, outstanding %d, saturated %d, latency %s%n",
+                elapsed / 1_000_000_000.0,
+                profile.rateAt(Math.min(elapsed, profile.durationNanos() - 1)),
+                (sentNow - lastReportSent) / intervalSeconds,
+                (completedNow - lastReportCompleted) / intervalSeconds,
+                outstanding.get(),
+                saturated.sum(),
+                percentiles(interval));
+
+        lastReportSent = sentNow;
+        lastReportCompleted = completedNow;
+    }
+
+    public synchronized void printSummary() {
+        System.out.println("\n=== LOAD GENERATOR RESULTS ===");
+        System.out.println("Profile: " + profile.describe());
+        System.out.println("Sent: " + sent.sum());
+        System.out.println("Completed: " + completed.sum());
+        System.out.println("Not sent, too many outstanding (" + maxOutstanding + "): " + saturated.sum());
+        System.out.println("Unanswered at end: " + outstanding.get());
+        System.out.printf("Max scheduler lag: %.2fms%n", maxSendLagNanos.get() / 1_000_000.0);
+        System.out.println("Outcomes:");
+        Map<String, LongAdder> sorted = new TreeMap<>(outcomes);
+        for (Map.Entry<String, LongAdder> entry : sorted.entrySet()) {
+            System.out.println("  " + entry.getKey() + ": " + entry.getValue().sum());
+        }
+        System.out.println("Latency from intended send time: " + percentiles(cumulative));
+        System.out.println("==============================");
+    }
+
+    /** Writes the whole run's distribution in milliseconds, in the .hgrm format HdrHistogram's plotter reads. */
+    public synchronized void writeHgrm(String path) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(path)) {
+            cumulative.outputPercentileDistribution(out, 1_000_000.0);
+        }
+    }
+
+    static String percentiles(Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            return "p50=- p90=- p99=- p99.9=- max=-";
+        }
+        return String.format("p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms",
+                histogram.getValueAtPercentile(50) / 1_000_000.0,
+                histogram.getValueAtPercentile(90) / 1_000_000.0,
+                histogram.getValueAtPercentile(99) / 1_000_000.0,
+                histogram.getValueAtPercentile(99.9) / 1_000_000.0,
+                histogram.getMaxValue() / 1_000_000.0);
+    }
+}
@@ -0,0 +1,207 @@
+import ElectionSystem.PollingPlace;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * On-disk copy of the proxy cache so a restarted proxy starts warm.
+ *
+ * Layout, big-endian: magic, version, place count, entry count, write time (epoch ms), position
+ * count; then each invalidation position (server epoch as length-prefixed UTF-8, last sequence
+ * seen); then each polling place once (table id, station id, and station name, address,
+ * municipality and department as length-prefixed UTF-8); then per entry the expiry (epoch ms), the
+ * document as length-prefixed UTF-8 and the table id, -1 for a document not in the census.
+ * Expiries are wall-clock times because nanoTime does not survive a restart. The file is written
+ * through a mapping into a temporary file that is then moved into place, so a crash mid-write
+ * leaves the previous snapshot.
+ *
+ * The positions are read before the entries are collected, so every invalidation they account for
+ * was applied before the entries were copied. After loading, the proxy compares them with what the
+ * server reports and drops the restored entries if invalidations were sent in between.
+ */
+public class CacheSnapshot {
+
+    private static final int MAGIC = 0x50584331; // "PXC1"
+    private static final int VERSION = 3;
+    private static final int HEADER_BYTES = 4 + 4 + 4 + 4 + 8 + 4;
+    private static final int NOT_FOUND = -1;
+
+    private static final class Record {
+        final byte[] key;
+        final int tableId;
+        final long expiresAtMillis;
+
+        Record(byte[] key, int tableId, long expiresAtMillis) {
+            this.key = key;
+            this.tableId = tableId;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * Writes the entries with the invalidation positions (server epoch -> last sequence applied)
+     * they reflect. Returns the number of entries written.
+     */
+    public static int write(ClockCache<String, PollingPlace> cache, Map<String, Long> positions, Path file) throws IOException {
+        long nowMillis = System.currentTimeMillis();
+        Map<String, Long> positionsCopy = new HashMap<>(positions);
+        long[] size = {HEADER_BYTES};
+        for (String epoch : positionsCopy.keySet()) {
+            size[0] += 4 + utf8(epoch).length + 8;
+        }
+        List<Record> records = new ArrayList<>(cache.size());
+        Map<Integer, byte[][]> places = new HashMap<>();
+        Map<Integer, PollingPlace> placeIds = new HashMap<>();
+        cache.forEach((key, place, remainingNanos) -> {
+            int tableId = place.found ? place.tableId : NOT_FOUND;
+            if (place.found && placeIds.putIfAbsent(tableId, place) == null) {
+                byte[][] strings = {
+                    utf8(place.stationName), utf8(place.address), utf8(place.municipality), utf8(place.department)
+                };
+                places.put(tableId, strings);
+                size[0] += 4 + 4;
+                for (byte[] string : strings) {
+                    size[0] += 4 + string.length;
+                }
+            }
+            Record record = new Record(key.getBytes(StandardCharsets.UTF_8), tableId,
+                                       nowMillis + TimeUnit.NANOSECONDS.toMillis(remainingNanos));
+            records.add(record);
+            size[0] += 8 + 4 + record.key.length + 4;
+        });
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size[0]);
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(places.size());
+            buffer.putInt(records.size());
+            buffer.putLong(nowMillis);
+            buffer.putInt(positionsCopy.size());
+            for (Map.Entry<String, Long> position : positionsCopy.entrySet()) {
+                byte[] epoch = utf8(position.getKey());
+                buffer.putInt(epoch.length);
+                buffer.put(epoch);
+                buffer.putLong(position.getValue());
+            }
+            for (Map.Entry<Integer, byte[][]> place : places.entrySet()) {
+                buffer.putInt(place.getKey());
+                buffer.putInt(placeIds.get(place.getKey()).stationId);
+                for (byte[] string : place.getValue()) {
+                    buffer.putInt(string.length);
+                    buffer.put(string);
+                }
+            }
+            for (Record record : records) {
+                buffer.putLong(record.expiresAtMillis);
+                buffer.putInt(record.key.length);
+                buffer.put(record.key);
+                buffer.putInt(record.tableId);
+            }
+            buffer.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return records.size();
+    }
+
+    /**
+     * Loads the entries that are still valid, passing each polling place through {@code intern}
+     * once, and puts the snapshot's invalidation positions in {@code positions}. A snapshot older
+     * than {@code maxAgeMillis} is ignored, and no restored entry outlives that age: until the
+     * server reports its position, invalidations sent while the proxy was down may be missing.
+     * Returns the number of entries loaded, 0 if there is no usable snapshot.
+     */
+    public static int load(Path file, ClockCache<String, PollingPlace> cache, Map<String, Long> positions,
+                           UnaryOperator<PollingPlace> intern, long maxAgeMillis) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES) {
+                System.err.println("CacheSnapshot: " + file + " is truncated, ignoring it");
+                return 0;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                System.err.println("CacheSnapshot: " + file + " is not a cache snapshot of this version, ignoring it");
+                return 0;
+            }
+            int placeCount = buffer.getInt();
+            int count = buffer.getInt();
+            long writtenAtMillis = buffer.getLong();
+            int positionCount = buffer.getInt();
+            long nowMillis = System.currentTimeMillis();
+            if (nowMillis - writtenAtMillis > maxAgeMillis) {
+                System.out.println("CacheSnapshot: " + file + " is " + (nowMillis - writtenAtMillis) / 1000 + "s old, not loading it");
+                return 0;
+            }
+            long discardAtMillis = writtenAtMillis + maxAgeMillis;
+
+            int loaded = 0;
+            try {
+                Map<String, Long> snapshotPositions = new HashMap<>();
+                for (int i = 0; i < positionCount; i++) {
+                    String epoch = readString(buffer);
+                    snapshotPositions.put(epoch, buffer.getLong());
+                }
+                // Before any entry, so entries are never restored without the positions they need.
+                positions.putAll(snapshotPositions);
+                Map<Integer, PollingPlace> places = new HashMap<>();
+                for (int i = 0; i < placeCount; i++) {
+                    int tableId = buffer.getInt();
+                    int stationId = buffer.getInt();
+                    PollingPlace place = new PollingPlace(true, tableId, stationId, readString(buffer),
+                                                          readString(buffer), readString(buffer), readString(buffer));
+                    places.put(tableId, intern.apply(place));
+                }
+                PollingPlace notFound = intern.apply(new PollingPlace());
+                for (int i = 0; i < count && loaded < cache.capacity(); i++) {
+                    long expiresAtMillis = buffer.getLong();
+                    String key = readString(buffer);
+                    int tableId = buffer.getInt();
+                    PollingPlace place = tableId == NOT_FOUND ? notFound : places.get(tableId);
+                    if (place == null) {
+                        throw new IllegalArgumentException("unknown table " + tableId);
+                    }
+                    long remainingMillis = Math.min(expiresAtMillis, discardAtMillis) - nowMillis;
+                    if (remainingMillis > 0) {
+                        cache.put(key, place, TimeUnit.MILLISECONDS.toNanos(remainingMillis));
+                        loaded++;
+                    }
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException e) {
+                System.err.println("CacheSnapshot: " + file + " is corrupt after " + loaded + " entries");
+            }
+            return loaded;
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("bad string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
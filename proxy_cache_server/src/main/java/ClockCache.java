@@ -0,0 +1,183 @@
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache with CLOCK eviction and per-entry expiry.
+ *
+ * One map from key to {@link Entry}; the entry carries the value, its expiry and its place in
+ * the clock ring and the {@link TimerWheel}, so there is nothing to keep in sync. A hit only sets
+ * the entry's reference bit, without locking. When the cache is full the hand sweeps the ring,
+ * clearing reference bits, and evicts the first entry that was not used since the hand last
+ * passed it: LRU-like, amortised O(1). Expired entries are removed by the wheel in
+ * {@link #expire()}; until then a read treats them as missing.
+ */
+public class ClockCache<K, V> {
+
+    @FunctionalInterface
+    public interface EntryVisitor<K, V> {
+        void visit(K key, V value, long remainingNanos);
+    }
+
+    static final class Entry<K, V> extends TimerWheel.Timer {
+        final K key;
+        final V value;
+        final long expiresAtNanos;
+        volatile boolean referenced;
+        int slot;
+
+        Entry(K key, V value, long expiresAtNanos) {
+            this.key = key;
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Entry<K, V>> entries;
+    private final Object[] ring;
+    // Slots emptied by expiry or invalidation, reused before the hand has to evict.
+    private final int[] freeSlots;
+    private int freeCount;
+    private int used;
+    private int hand;
+    private final TimerWheel<Entry<K, V>> wheel;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public ClockCache(int capacity, long ttlNanos, long tickNanos) {
+        this.capacity = Math.max(1, capacity);
+        this.ttlNanos = ttlNanos;
+        this.entries = new ConcurrentHashMap<>(this.capacity * 4 / 3 + 1);
+        this.ring = new Object[this.capacity];
+        this.freeSlots = new int[this.capacity];
+        // Enough buckets for one turn to cover the TTL, within reason.
+        int buckets = (int) Math.min(4096, Math.max(16, ttlNanos / Math.max(1, tickNanos) + 1));
+        this.wheel = new TimerWheel<>(tickNanos, buckets, System.nanoTime());
+    }
+
+    public V get(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry == null || System.nanoTime() - entry.expiresAtNanos >= 0) {
+            misses.increment();
+            return null;
+        }
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, ttlNanos);
+    }
+
+    /** Stores an entry that expires in {@code ttlNanos}, at most the cache's own TTL. */
+    public synchronized void put(K key, V value, long ttlNanos) {
+        Entry<K, V> entry = new Entry<>(key, value, System.nanoTime() + Math.min(ttlNanos, this.ttlNanos));
+        Entry<K, V> existing = entries.get(key);
+        int slot;
+        if (existing != null) {
+            wheel.cancel(existing);
+            slot = existing.slot;
+        } else if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else if (used < capacity) {
+            slot = used++;
+        } else {
+            slot = evictOne();
+        }
+        entry.slot = slot;
+        ring[slot] = entry;
+        entries.put(key, entry);
+        wheel.schedule(entry, entry.expiresAtNanos);
+    }
+
+    public synchronized void invalidate(K key) {
+        Entry<K, V> entry = entries.get(key);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    public synchronized void clear() {
+        for (Entry<K, V> entry : entries.values()) {
+            remove(entry);
+        }
+    }
+
+    /** Drops the entries whose expiry has passed; call it about once per tick. */
+    public synchronized void expire() {
+        wheel.advance(System.nanoTime(), entry -> {
+            remove(entry);
+            expirations.increment();
+        });
+    }
+
+    /** Visits the entries that have not expired, without locking; concurrent changes may or may not be seen. */
+    public void forEach(EntryVisitor<K, V> visitor) {
+        long now = System.nanoTime();
+        for (Entry<K, V> entry : entries.values()) {
+            long remaining = entry.expiresAtNanos - now;
+            if (remaining > 0) {
+                visitor.visit(entry.key, entry.value, remaining);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long expirationCount() {
+        return expirations.sum();
+    }
+
+    // Caller holds the lock and the ring has no free slot, so every slot holds an entry.
+    @SuppressWarnings("unchecked")
+    private int evictOne() {
+        while (true) {
+            Entry<K, V> candidate = (Entry<K, V>) ring[hand];
+            int slot = hand;
+            hand = (hand + 1) % capacity;
+            if (candidate.referenced) {
+                candidate.referenced = false;
+                continue;
+            }
+            entries.remove(candidate.key, candidate);
+            wheel.cancel(candidate);
+            ring[slot] = null;
+            evictions.increment();
+            return slot;
+        }
+    }
+
+    private void remove(Entry<K, V> entry) {
+        if (!entries.remove(entry.key, entry)) {
+            return;
+        }
+        wheel.cancel(entry);
+        ring[entry.slot] = null;
+        freeSlots[freeCount++] = entry.slot;
+    }
+}
@@ -17,6 +17,7 @@ public class ProxyCacheServerMain {
             proxyCacheService = new ProxyCacheService(serverProxy, communicator);
             adapter.add(proxyCacheService, Util.stringToIdentity("ProxyCache"));
             adapter.activate();
+            proxyCacheService.subscribeToInvalidations(adapter);
 
             System.out.println("Proxy Cache Server iniciado y esperando consultas...");
             
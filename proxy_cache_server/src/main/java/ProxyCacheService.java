@@ -2,7 +2,14 @@ import com.zeroc.Ice.*;
 import com.zeroc.Ice.Exception;
 
 import ElectionSystem.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ProxyCacheService implements ServerQueryService {
     
@@ -11,8 +18,27 @@ public class ProxyCacheService implements ServerQueryService {
     private final long cacheExpiryTime;
     private final int maxCacheSize;
 
-    private final ConcurrentHashMap<String, String> cache;
-    private final ConcurrentHashMap<String, Long> cacheTimestamps;
+    private final ClockCache<String, PollingPlace> cache;
+    private final ScheduledExecutorService maintenanceExecutor;
+    
+    // One instance per voting table shared by all the cached documents that vote there, and a
+    // single instance for every document that is not in the census.
+    private static final PollingPlace NOT_FOUND = new PollingPlace();
+    private final ConcurrentHashMap<Integer, PollingPlace> places = new ConcurrentHashMap<>();
+    
+    // Backend lookups under way, so concurrent misses on a document wait for the same reply. An
+    // invalidation unregisters the document's lookup, which then answers its callers uncached.
+    private final ConcurrentHashMap<String, CompletableFuture<PollingPlace>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedLookups = new AtomicLong(0);
+    
+    private final int resubscribeSeconds;
+    private final AtomicLong invalidatedDocuments = new AtomicLong(0);
+    private final AtomicLong cacheFlushes = new AtomicLong(0);
+    // Server epoch -> sequence of the last invalidation applied from it (see CacheInvalidationPublisher).
+    private final ConcurrentHashMap<String, Long> invalidationPositions = new ConcurrentHashMap<>();
+    
+    // Empty when snapshots are disabled.
+    private final String snapshotFile;
     
     public ProxyCacheService(ServerServicePrx serverProxy, Communicator communicator) {
         this.serverProxy = serverProxy;
@@ -22,93 +48,255 @@ public class ProxyCacheService implements ServerQueryService {
         this.cacheExpiryTime = props.getPropertyAsIntWithDefault("ProxyCache.CacheExpiryMinutes", 60) * 60 * 1000;
         this.maxCacheSize = props.getPropertyAsIntWithDefault("ProxyCache.MaxCacheSize", 100000);
         
-        this.cache = new ConcurrentHashMap<>(maxCacheSize);
-        this.cacheTimestamps = new ConcurrentHashMap<>(maxCacheSize);
+        this.resubscribeSeconds = Math.max(1, props.getPropertyAsIntWithDefault("ProxyCache.ResubscribeSeconds", 30));
+        long tickMillis = Math.max(10, props.getPropertyAsIntWithDefault("ProxyCache.ExpiryTickMillis", 1000));
+        this.cache = new ClockCache<>(maxCacheSize,
+                                      TimeUnit.MILLISECONDS.toNanos(cacheExpiryTime),
+                                      TimeUnit.MILLISECONDS.toNanos(tickMillis));
         
-        startCacheCleanup();
+        this.maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "proxy-cache-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenanceExecutor.scheduleWithFixedDelay(cache::expire, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        
+        this.snapshotFile = props.getProperty("ProxyCache.SnapshotFile");
+        if (!snapshotFile.isEmpty()) {
+            loadSnapshot(props.getPropertyAsIntWithDefault("ProxyCache.SnapshotMaxAgeSeconds", 900));
+            int interval = Math.max(1, props.getPropertyAsIntWithDefault("ProxyCache.SnapshotIntervalSeconds", 60));
+            maintenanceExecutor.scheduleWithFixedDelay(this::writeSnapshot, interval, interval, TimeUnit.SECONDS);
+        }
         
         System.out.println("ProxyCacheService initialized with " + maxCacheSize + " cache size and " + 
                          (cacheExpiryTime/60000) + " minutes expiry");
     }
     
     @Override
-    public String findVotingStationByDocument(String document, Current current) {
+    public CompletionStage<PollingPlace> findVotingStationByDocumentAsync(String document, Current current) {
         if (document == null || document.trim().isEmpty()) {
-            return null;
+            return CompletableFuture.completedFuture(NOT_FOUND);
         }
         
-        String cachedResult = getCachedResult(document);
-        if (cachedResult != null) {
-            return cachedResult;
+        PollingPlace cachedValue = cache.get(document);
+        if (cachedValue != null) {
+            return CompletableFuture.completedFuture(cachedValue);
         }
         
-        try {
-            String result = serverProxy.findVotingStationByDocument(document);
-            
-            if (result != null) {
-                cacheResult(document, result);
-            } else {
-                cacheResult(document, "NULL_RESULT");
-            }
-            
-            return result;
-            
-        } catch (Exception e) {
-            System.err.println("ProxyCacheService: Error querying server for document " + document + ": " + e.getMessage());
-            return null;
+        CompletableFuture<PollingPlace> pending = new CompletableFuture<>();
+        CompletableFuture<PollingPlace> existing = inFlight.putIfAbsent(document, pending);
+        if (existing != null) {
+            coalescedLookups.incrementAndGet();
+            return existing;
         }
+        
+        serverProxy.findVotingStationByDocumentAsync(document).whenComplete((result, error) -> {
+            if (error != null) {
+                System.err.println("ProxyCacheService: Error querying server for document " + document + ": " + error.getMessage());
+            }
+            completeLookup(document, pending, error == null ? intern(result) : NOT_FOUND, error == null);
+        });
+        return pending;
     }
     
-    private String getCachedResult(String document) {
-        if (cache.size() > maxCacheSize * 0.95) {
-            CompletableFuture.runAsync(this::cleanOldestEntries);
+    // Hits are answered from the cache, documents already being looked up join that lookup, and
+    // the rest go to the server in one call. Registering them in inFlight lets single lookups
+    // arriving meanwhile wait for the batch.
+    @Override
+    public CompletionStage<PollingPlace[]> findVotingStationsByDocumentsAsync(String[] documents, Current current) {
+        PollingPlace[] results = new PollingPlace[documents.length];
+        Map<String, CompletableFuture<PollingPlace>> lookups = new HashMap<>();
+        Map<String, CompletableFuture<PollingPlace>> forwarded = new LinkedHashMap<>();
+        for (int i = 0; i < documents.length; i++) {
+            String document = documents[i];
+            if (document == null || document.trim().isEmpty()) {
+                results[i] = NOT_FOUND;
+                continue;
+            }
+            PollingPlace cachedValue = cache.get(document);
+            if (cachedValue != null) {
+                results[i] = cachedValue;
+            } else if (!lookups.containsKey(document)) {
+                CompletableFuture<PollingPlace> pending = new CompletableFuture<>();
+                CompletableFuture<PollingPlace> existing = inFlight.putIfAbsent(document, pending);
+                if (existing != null) {
+                    coalescedLookups.incrementAndGet();
+                    lookups.put(document, existing);
+                } else {
+                    lookups.put(document, pending);
+                    forwarded.put(document, pending);
+                }
+            }
         }
         
-        Long timestamp = cacheTimestamps.get(document);
-        if (timestamp != null && (System.currentTimeMillis() - timestamp) < cacheExpiryTime) {
-            String cachedValue = cache.get(document);
-            if ("NULL_RESULT".equals(cachedValue)) {
-                return null;
-            }
-            return cachedValue;
-        } else if (timestamp != null) {
-            cache.remove(document);
-            cacheTimestamps.remove(document);
+        if (!forwarded.isEmpty()) {
+            String[] batch = forwarded.keySet().toArray(new String[0]);
+            serverProxy.findVotingStationsByDocumentsAsync(batch).whenComplete((batchResults, error) -> {
+                if (error != null) {
+                    System.err.println("ProxyCacheService: Error querying server for " + batch.length + " documents: " + error.getMessage());
+                }
+                for (int j = 0; j < batch.length; j++) {
+                    completeLookup(batch[j], forwarded.get(batch[j]),
+                                   error == null ? intern(batchResults[j]) : NOT_FOUND, error == null);
+                }
+            });
         }
-        return null;
+        
+        return CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            for (int i = 0; i < documents.length; i++) {
+                if (results[i] == null) {
+                    results[i] = lookups.get(documents[i]).join();
+                }
+            }
+            return results;
+        });
     }
     
-    private void cacheResult(String document, String result) {
-        cache.put(document, result);
-        cacheTimestamps.put(document, System.currentTimeMillis());
+    /**
+     * Caches the reply only if the lookup is still registered, in the same step that unregisters
+     * it: an invalidation or flush that arrived meanwhile has already dropped it, and the reply
+     * may predate the change. A new miss finds either the cached entry or the lookup.
+     */
+    private void completeLookup(String document, CompletableFuture<PollingPlace> pending, PollingPlace place, boolean cacheable) {
+        inFlight.computeIfPresent(document, (key, registered) -> {
+            if (registered != pending) {
+                return registered;
+            }
+            if (cacheable) {
+                cache.put(key, place);
+            }
+            return null;
+        });
+        pending.complete(place);
     }
     
-    private void cleanOldestEntries() {
-        int toRemove = maxCacheSize / 10;
-        cacheTimestamps.entrySet().stream()
-            .sorted(java.util.Map.Entry.comparingByValue())
-            .limit(toRemove)
-            .forEach(entry -> {
-                cache.remove(entry.getKey());
-                cacheTimestamps.remove(entry.getKey());
-            });
+    /**
+     * The shared instance for the place's table, replaced if the server reports the table's
+     * station differently than before.
+     */
+    private PollingPlace intern(PollingPlace place) {
+        if (place == null || !place.found) {
+            return NOT_FOUND;
+        }
+        return places.merge(place.tableId, place, (current, fresh) -> current.equals(fresh) ? current : fresh);
     }
     
-    private void startCacheCleanup() {
-        ScheduledExecutorService cleanupExecutor = Executors.newSingleThreadScheduledExecutor();
-        cleanupExecutor.scheduleAtFixedRate(() -> {
-            long currentTime = System.currentTimeMillis();
-            
-            cacheTimestamps.entrySet().removeIf(entry -> 
-                (currentTime - entry.getValue()) > cacheExpiryTime
-            );
-            
-            cache.keySet().retainAll(cacheTimestamps.keySet());
+    /**
+     * Subscribes to the server's events to hear about CacheInvalidated. The subscription is
+     * renewed periodically: the server forgets subscribers when it restarts or a notify fails.
+     * Whichever replica the group picks will do, since each one also sends the invalidations the
+     * other replica took.
+     */
+    public void subscribeToInvalidations(ObjectAdapter adapter) {
+        Identity identity = Util.stringToIdentity("ProxyCacheObserver-" + UUID.randomUUID());
+        EventObserverPrx observer = EventObserverPrx.uncheckedCast(adapter.add(new InvalidationObserver(), identity));
+        maintenanceExecutor.scheduleWithFixedDelay(() -> {
+            try {
+                serverProxy.subscribe(observer, identity.name);
+            } catch (java.lang.Exception e) {
+                // Caught broadly so the renewal keeps running.
+                System.err.println("ProxyCacheService: Could not subscribe to cache invalidations: " + e.getMessage());
+            }
+        }, 0, resubscribeSeconds, TimeUnit.SECONDS);
+    }
+    
+    private class InvalidationObserver implements EventObserver {
+        @Override
+        public void _notify(ElectionEvent event, Current current) {
+            if (event.type != EventType.CacheInvalidated || event.details == null) {
+                return;
+            }
+            String scope = event.details.get("scope");
+            String epoch = event.details.get("epoch");
+            long sequence = sequence(event.details.get("sequence"));
+            if (epoch == null || sequence < 0) {
+                epoch = null;
+            }
             
-        }, 5, 5, TimeUnit.MINUTES);
+            if ("none".equals(scope)) {
+                // Sent on every (re)subscription with the server's last sequence. Anything past what
+                // was applied here was missed while the proxy was down or unsubscribed; a server not
+                // heard from yet (restarted, or never seen) may have dropped ours before it went down.
+                Long applied = epoch != null ? invalidationPositions.get(epoch) : null;
+                if (epoch != null && applied == null && cache.size() > 0) {
+                    flush("server " + epoch + " has no known invalidation position");
+                } else if (applied != null && sequence > applied) {
+                    flush("missed invalidations " + (applied + 1) + "-" + sequence + " from server " + epoch);
+                }
+            } else if ("all".equals(scope)) {
+                flush("flushed by the server");
+            } else {
+                String documents = event.details.get("documents");
+                if (documents != null && !documents.isEmpty()) {
+                    for (String document : documents.split(",")) {
+                        inFlight.remove(document);
+                        cache.invalidate(document);
+                        invalidatedDocuments.incrementAndGet();
+                    }
+                }
+            }
+            // Only once applied: a snapshot must not claim an invalidation its entries predate.
+            if (epoch != null) {
+                invalidationPositions.merge(epoch, sequence, Math::max);
+            }
+        }
+    }
+    
+    // Lookups are dropped before the entries, so none of them can cache a reply afterwards.
+    private void flush(String reason) {
+        inFlight.clear();
+        cache.clear();
+        places.clear();
+        cacheFlushes.incrementAndGet();
+        System.out.println("ProxyCacheService: cache flushed, " + reason);
+    }
+    
+    private static long sequence(String value) {
+        try {
+            return value != null ? Long.parseLong(value) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private void loadSnapshot(int maxAgeSeconds) {
+        long start = System.nanoTime();
+        try {
+            int loaded = CacheSnapshot.load(Paths.get(snapshotFile), cache, invalidationPositions, this::intern,
+                                            TimeUnit.SECONDS.toMillis(maxAgeSeconds));
+            if (loaded > 0) {
+                System.out.println("ProxyCacheService: " + loaded + " entries loaded from " + snapshotFile + " in " +
+                                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+            }
+        } catch (IOException e) {
+            System.err.println("ProxyCacheService: Could not read cache snapshot " + snapshotFile + ": " + e.getMessage());
+        }
+    }
+    
+    private void writeSnapshot() {
+        try {
+            CacheSnapshot.write(cache, invalidationPositions, Paths.get(snapshotFile));
+        } catch (IOException e) {
+            System.err.println("ProxyCacheService: Could not write cache snapshot " + snapshotFile + ": " + e.getMessage());
+        }
     }
     
     public void shutdown() {
+        maintenanceExecutor.shutdownNow();
+        if (!snapshotFile.isEmpty()) {
+            try {
+                // A periodic write interrupted by shutdownNow must not race the final one.
+                maintenanceExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writeSnapshot();
+        }
+        System.out.println("ProxyCacheService cache: " + cache.size() + "/" + cache.capacity() + " entries, " +
+                         cache.hitCount() + " hits, " + cache.missCount() + " misses, " +
+                         cache.evictionCount() + " evictions, " + cache.expirationCount() + " expirations, " +
+                         coalescedLookups.get() + " coalesced lookups, " + invalidatedDocuments.get() +
+                         " invalidated documents, " + cacheFlushes.get() + " flushes");
         System.out.println("ProxyCacheService shutdown completed");
     }
 }
\ No newline at end of file
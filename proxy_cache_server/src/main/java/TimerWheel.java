@@ -0,0 +1,94 @@
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel: a ring of buckets, one per tick, each a doubly linked list of timers.
+ * Scheduling and cancelling are O(1); {@link #advance} only visits the buckets of the ticks that
+ * went by. Deadlines further away than one turn of the wheel stay in their bucket until the turn
+ * in which they are due.
+ *
+ * Not thread-safe, the owner serializes all calls.
+ */
+public class TimerWheel<T extends TimerWheel.Timer> {
+
+    /** Something with a deadline; extend it to put it on the wheel. */
+    public static class Timer {
+        long deadlineNanos;
+        Timer prev;
+        Timer next;
+
+        boolean isScheduled() {
+            return prev != null;
+        }
+    }
+
+    private final long tickNanos;
+    private final Timer[] buckets;
+    private final int mask;
+    // Last tick whose bucket was swept; a bucket is swept once its tick is entirely in the past.
+    private long currentTick;
+
+    public TimerWheel(long tickNanos, int requestedBuckets, long nowNanos) {
+        this.tickNanos = Math.max(1, tickNanos);
+        int size = Integer.highestOneBit(Math.max(2, requestedBuckets - 1)) << 1;
+        this.buckets = new Timer[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            Timer sentinel = new Timer();
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            buckets[i] = sentinel;
+        }
+        this.currentTick = Math.floorDiv(nowNanos, this.tickNanos) - 1;
+    }
+
+    public void schedule(T timer, long deadlineNanos) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+        }
+        timer.deadlineNanos = deadlineNanos;
+        // A deadline already in the past goes in the next bucket to be visited.
+        long tick = Math.max(Math.floorDiv(deadlineNanos, tickNanos), currentTick + 1);
+        Timer sentinel = buckets[(int) (tick & mask)];
+        timer.next = sentinel;
+        timer.prev = sentinel.prev;
+        sentinel.prev.next = timer;
+        sentinel.prev = timer;
+    }
+
+    public void cancel(T timer) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+        }
+    }
+
+    /**
+     * Removes the timers of every tick that ended by {@code nowNanos} and hands them to
+     * {@code onExpired}, so a timer fires at most one tick late.
+     */
+    @SuppressWarnings("unchecked")
+    public void advance(long nowNanos, Consumer<T> onExpired) {
+        long targetTick = Math.floorDiv(nowNanos, tickNanos) - 1;
+        // After a long pause one pass over the whole ring is enough.
+        long firstTick = Math.max(currentTick + 1, targetTick - mask);
+        for (long tick = firstTick; tick <= targetTick; tick++) {
+            Timer sentinel = buckets[(int) (tick & mask)];
+            Timer timer = sentinel.next;
+            while (timer != sentinel) {
+                Timer next = timer.next;
+                if (timer.deadlineNanos <= nowNanos) {
+                    unlink(timer);
+                    onExpired.accept((T) timer);
+                }
+                timer = next;
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+    }
+
+    private static void unlink(Timer timer) {
+        timer.prev.next = timer.next;
+        timer.next.prev = timer.prev;
+        timer.prev = null;
+        timer.next = null;
+    }
+}
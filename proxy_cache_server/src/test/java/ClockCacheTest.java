@@ -0,0 +1,147 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClockCacheTest {
+
+    private static final long HOUR = TimeUnit.HOURS.toNanos(1);
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void get_CountsHitsAndMisses() {
+        ClockCache<String, Integer> cache = new ClockCache<>(4, HOUR, TICK);
+        cache.put("DOC001", 201);
+
+        assertEquals(201, cache.get("DOC001"));
+        assertNull(cache.get("DOC002"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void put_HandSkipsReferencedEntriesAndClearsTheirBit() {
+        ClockCache<String, Integer> cache = new ClockCache<>(3, HOUR, TICK);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+
+        // The hand passes a, clearing its bit, and takes b.
+        cache.put("d", 4);
+        assertEquals(Set.of("a", "c", "d"), contents(cache).keySet());
+
+        cache.put("e", 5);
+        assertEquals(Set.of("a", "d", "e"), contents(cache).keySet());
+
+        // a was not read again since the hand last passed it.
+        cache.put("f", 6);
+        assertEquals(Set.of("d", "e", "f"), contents(cache).keySet());
+        assertEquals(3, cache.evictionCount());
+    }
+
+    @Test
+    void put_EvictsAfterAFullSweepWhenEveryEntryWasRead() {
+        ClockCache<String, Integer> cache = new ClockCache<>(3, HOUR, TICK);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.get("b");
+        cache.get("c");
+
+        cache.put("d", 4);
+
+        assertEquals(Set.of("b", "c", "d"), contents(cache).keySet());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void put_ExistingKeyKeepsItsSlot() {
+        ClockCache<String, Integer> cache = new ClockCache<>(2, HOUR, TICK);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        cache.put("a", 10);
+
+        assertEquals(Map.of("a", 10, "b", 2), contents(cache));
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    void invalidate_FreesSlotForNextPutWithoutEviction() {
+        ClockCache<String, Integer> cache = new ClockCache<>(2, HOUR, TICK);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        cache.invalidate("a");
+        cache.put("c", 3);
+
+        assertEquals(Set.of("b", "c"), contents(cache).keySet());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    void expire_RemovesEntriesWhoseTtlPassed() throws Exception {
+        ClockCache<String, Integer> cache = new ClockCache<>(4, TimeUnit.MILLISECONDS.toNanos(20), TICK);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        Thread.sleep(40);
+
+        // Read as missing straight away, removed once the wheel reaches it.
+        assertNull(cache.get("a"));
+        assertEquals(2, cache.size());
+        cache.expire();
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.expirationCount());
+    }
+
+    @Test
+    void put_PerEntryTtlIsClampedToTheCacheTtl() {
+        long ttl = TimeUnit.SECONDS.toNanos(10);
+        ClockCache<String, Integer> cache = new ClockCache<>(4, ttl, TICK);
+
+        cache.put("a", 1, HOUR);
+
+        cache.forEach((key, value, remaining) -> assertTrue(remaining <= ttl));
+    }
+
+    @Test
+    void put_ReplacingAnEntryCancelsItsOldTimer() throws Exception {
+        ClockCache<String, Integer> cache = new ClockCache<>(4, HOUR, TICK);
+        cache.put("a", 1, TimeUnit.MILLISECONDS.toNanos(5));
+        cache.put("a", 2);
+
+        Thread.sleep(20);
+        cache.expire();
+
+        assertEquals(2, cache.get("a"));
+        assertEquals(0, cache.expirationCount());
+    }
+
+    @Test
+    void clear_FreesEverySlot() {
+        ClockCache<String, Integer> cache = new ClockCache<>(2, HOUR, TICK);
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        cache.clear();
+        cache.put("c", 3);
+        cache.put("d", 4);
+
+        assertEquals(Set.of("c", "d"), contents(cache).keySet());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    // Read through forEach so the reference bits stay as they are.
+    private static Map<String, Integer> contents(ClockCache<String, Integer> cache) {
+        Map<String, Integer> contents = new HashMap<>();
+        cache.forEach((key, value, remaining) -> contents.put(key, value));
+        return contents;
+    }
+}
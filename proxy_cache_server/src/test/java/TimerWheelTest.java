@@ -0,0 +1,121 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    // Ticks of 1000 ns on a ring of 8 buckets: one turn is 8000 ns.
+    private static final long TICK = 1000;
+    private static final int BUCKETS = 8;
+
+    private static class Task extends TimerWheel.Timer {
+        final String name;
+
+        Task(String name) {
+            this.name = name;
+        }
+    }
+
+    private final TimerWheel<Task> wheel = new TimerWheel<>(TICK, BUCKETS, 0);
+    private final List<String> fired = new ArrayList<>();
+
+    @Test
+    void advance_FiresTimerOnceItsTickHasEnded() {
+        Task task = new Task("a");
+        wheel.schedule(task, 2500);
+
+        advance(2999);
+        assertTrue(fired.isEmpty());
+        assertTrue(task.isScheduled());
+
+        advance(3000);
+        assertEquals(List.of("a"), fired);
+        assertFalse(task.isScheduled());
+
+        advance(20000);
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void advance_KeepsTimerDueInALaterTurnAcrossBucketRollover() {
+        // Tick 16 shares bucket 0 with ticks 0 and 8, which are swept first.
+        wheel.schedule(new Task("later"), 2 * BUCKETS * TICK + 500);
+
+        advance(1000);
+        advance(BUCKETS * TICK + 1000);
+        advance(2 * BUCKETS * TICK + 999);
+        assertTrue(fired.isEmpty());
+
+        advance(2 * BUCKETS * TICK + 1000);
+        assertEquals(List.of("later"), fired);
+    }
+
+    @Test
+    void advance_FiresOnlyDueTimersOfASharedBucket() {
+        wheel.schedule(new Task("now"), 1500);
+        wheel.schedule(new Task("next-turn"), BUCKETS * TICK + 1500);
+
+        advance(2000);
+        assertEquals(List.of("now"), fired);
+
+        advance(BUCKETS * TICK + 2000);
+        assertEquals(List.of("now", "next-turn"), fired);
+    }
+
+    @Test
+    void advance_AfterLongPauseFiresEveryDueTimerInOnePass() {
+        for (int i = 0; i < 3 * BUCKETS; i++) {
+            wheel.schedule(new Task("t" + i), i * TICK + 100);
+        }
+        wheel.schedule(new Task("future"), 1_000_000);
+
+        advance(500_000);
+
+        assertEquals(3 * BUCKETS, fired.size());
+        assertFalse(fired.contains("future"));
+    }
+
+    @Test
+    void schedule_PastDeadlineFiresOnNextAdvance() {
+        advance(5000);
+        wheel.schedule(new Task("late"), 100);
+
+        advance(6000);
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void schedule_AgainMovesTheTimer() {
+        Task task = new Task("moved");
+        wheel.schedule(task, 2500);
+        wheel.schedule(task, 5500);
+
+        advance(3000);
+        assertTrue(fired.isEmpty());
+
+        advance(6000);
+        assertEquals(List.of("moved"), fired);
+    }
+
+    @Test
+    void cancel_UnlinksTheTimer() {
+        Task cancelled = new Task("cancelled");
+        Task kept = new Task("kept");
+        wheel.schedule(cancelled, 1500);
+        wheel.schedule(kept, 1500);
+
+        wheel.cancel(cancelled);
+        wheel.cancel(cancelled);
+        advance(2000);
+
+        assertFalse(cancelled.isScheduled());
+        assertEquals(List.of("kept"), fired);
+    }
+
+    private void advance(long nowNanos) {
+        wheel.advance(nowNanos, task -> fired.add(task.name));
+    }
+}
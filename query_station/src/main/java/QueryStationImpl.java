@@ -1,6 +1,8 @@
 import ElectionSystem.*;
 import com.zeroc.Ice.Current;
 
+import java.util.Arrays;
+
 public class QueryStationImpl implements queryStation {
     
     private final ServerQueryServicePrx proxyCacheService;
@@ -11,15 +13,26 @@ public class QueryStationImpl implements queryStation {
     }
     
     @Override
-    public String query(String document, Current current) {
+    public PollingPlace query(String document, Current current) {
         if (document == null || document.trim().isEmpty()) {
-            return null;
+            return new PollingPlace();
         }
         
         try {
             return proxyCacheService.findVotingStationByDocument(document);
         } catch (Exception e) {
-            return null;
+            return new PollingPlace();
+        }
+    }
+    
+    @Override
+    public PollingPlace[] queryMany(String[] documents, Current current) {
+        try {
+            return proxyCacheService.findVotingStationsByDocuments(documents);
+        } catch (Exception e) {
+            PollingPlace[] notFound = new PollingPlace[documents.length];
+            Arrays.fill(notFound, new PollingPlace());
+            return notFound;
         }
     }
     
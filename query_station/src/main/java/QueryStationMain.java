@@ -4,11 +4,12 @@ import ElectionSystem.*;
 import java.util.Scanner;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Random;
 
+import org.HdrHistogram.Histogram;
+
 public class QueryStationMain {
     
     private static queryStationPrx queryStationProxy;
@@ -75,14 +76,15 @@ public class QueryStationMain {
         try {
             long startTime = System.currentTimeMillis();
 
-            String result = queryStationProxy.query(document);
+            PollingPlace result = queryStationProxy.query(document);
             
             long endTime = System.currentTimeMillis();
             long responseTime = endTime - startTime;
             
             System.out.println("Response time: " + responseTime + "ms");
-            if (result != null && !result.trim().isEmpty()) {
-                System.out.println("Voting station found: " + result);
+            if (result != null && result.found) {
+                System.out.println("Voting station found: " + result.stationName + ", " + result.address + ", " +
+                                 result.municipality + ", " + result.department + " (table " + result.tableId + ")");
             } else {
                 System.out.println("Citizen not found for document: " + document);
             }
@@ -222,9 +224,7 @@ public class QueryStationMain {
         AtomicInteger totalQueries = new AtomicInteger(0);
         AtomicInteger successfulQueries = new AtomicInteger(0);
         AtomicInteger failedQueries = new AtomicInteger(0);
-        AtomicLong totalResponseTime = new AtomicLong(0);
-        AtomicLong minResponseTime = new AtomicLong(Long.MAX_VALUE);
-        AtomicLong maxResponseTime = new AtomicLong(0);
+        LatencyStats latency = new LatencyStats();
         
         // Rate limiting: queries per second per thread
         int queriesPerThreadPerSecond = Math.max(1, targetQPS / threads);
@@ -248,17 +248,13 @@ public class QueryStationMain {
                     try {
                         String document = TEST_DOCUMENTS[random.nextInt(TEST_DOCUMENTS.length)];
                         
-                        long queryStart = System.currentTimeMillis();
-                        String result = queryStationProxy.query(document);
-                        long queryEnd = System.currentTimeMillis();
+                        long queryStart = System.nanoTime();
+                        queryStationProxy.query(document);
+                        latency.record(System.nanoTime() - queryStart);
                         
-                        long responseTime = queryEnd - queryStart;
                         totalQueries.incrementAndGet();
                         successfulQueries.incrementAndGet();
                         
-                        totalResponseTime.addAndGet(responseTime);
-                        updateMinMax(minResponseTime, maxResponseTime, responseTime);
-                        
                         if (delayBetweenQueries > 0) {
                             Thread.sleep(delayBetweenQueries);
                         }
@@ -282,7 +278,7 @@ public class QueryStationMain {
             futures.add(future);
         }
         
-        monitorProgress(totalQueries, successfulQueries, failedQueries, startTime, durationSeconds);
+        monitorProgress(totalQueries, successfulQueries, failedQueries, latency, startTime, durationSeconds);
         
         for (Future<?> future : futures) {
             try {
@@ -311,7 +307,7 @@ public class QueryStationMain {
         int failed = failedQueries.get();
         double actualQPS = (double) total / (actualDuration / 1000.0);
         double successRate = total > 0 ? (double) successful / total * 100 : 0;
-        double avgResponseTime = successful > 0 ? (double) totalResponseTime.get() / successful : 0;
+        Histogram totalLatency = latency.total();
         
         System.out.println("\n=== STRESS TEST RESULTS ===");
         System.out.println("Actual duration: " + actualDuration + "ms (" + (actualDuration / 1000.0) + "s)");
@@ -324,14 +320,15 @@ public class QueryStationMain {
         System.out.println("QPS Achievement: " + String.format("%.2f%%", (actualQPS / targetQPS) * 100));
         
         if (successful > 0) {
-            System.out.println("Average response time: " + String.format("%.2fms", avgResponseTime));
-            System.out.println("Min response time: " + minResponseTime.get() + "ms");
-            System.out.println("Max response time: " + maxResponseTime.get() + "ms");
+            System.out.println("Average response time: " + String.format("%.2fms", totalLatency.getMean() / 1_000_000.0));
+            System.out.println("Min response time: " + String.format("%.2fms", totalLatency.getMinValue() / 1_000_000.0));
+            writeLatencyFile(latency);
         }
         
         // Performance verdict
         boolean targetAchieved = actualQPS >= (targetQPS * 0.80); // 80% of target is acceptable
         System.out.println("\nPERFORMANCE VERDICT: " + (targetAchieved ? "PASSED" : "FAILED"));
+        System.out.println("Response time: " + LatencyStats.percentiles(totalLatency));
         
         if (targetAchieved) {
             System.out.println("The system successfully handled the target load!");
@@ -346,20 +343,22 @@ public class QueryStationMain {
         System.out.println("===========================\n");
     }
     
-    private static void updateMinMax(AtomicLong minResponseTime, AtomicLong maxResponseTime, long responseTime) {
-        long currentMin = minResponseTime.get();
-        while (responseTime < currentMin && !minResponseTime.compareAndSet(currentMin, responseTime)) {
-            currentMin = minResponseTime.get();
+    // -DLATENCY_HGRM_FILE=<path> keeps the full distribution for comparing runs.
+    private static void writeLatencyFile(LatencyStats latency) {
+        String path = System.getProperty("LATENCY_HGRM_FILE");
+        if (path == null || path.isEmpty()) {
+            return;
         }
-
-        long currentMax = maxResponseTime.get();
-        while (responseTime > currentMax && !maxResponseTime.compareAndSet(currentMax, responseTime)) {
-            currentMax = maxResponseTime.get();
+        try {
+            latency.writeHgrm(path);
+            System.out.println("Latency distribution written to " + path);
+        } catch (java.lang.Exception e) {
+            System.err.println("Could not write latency distribution to " + path + ": " + e.getMessage());
         }
     }
     
     private static void monitorProgress(AtomicInteger totalQueries, AtomicInteger successfulQueries, 
-                                       AtomicInteger failedQueries, long startTime, int durationSeconds) {
+                                       AtomicInteger failedQueries, LatencyStats latency, long startTime, int durationSeconds) {
         Thread progressMonitor = new Thread(() -> {
             try {
                 int lastTotal = 0;
@@ -374,8 +373,9 @@ public class QueryStationMain {
                     double currentQPS = (double) currentTotal / (elapsed / 1000.0);
                     double recentQPS = (double) (currentTotal - lastTotal) / 5.0;
                     
-                    System.out.printf("[%ds] Total: %d, Success: %d, Failed: %d, Current QPS: %.1f, Recent QPS: %.1f%n",
-                            elapsed / 1000, currentTotal, currentSuccessful, currentFailed, currentQPS, recentQPS);
+                    System.out.printf("[%ds] Total: %d, Success: %d, Failed: %d, Current QPS: %.1f, Recent QPS: %.1f, Latency: %s%n",
+                            elapsed / 1000, currentTotal, currentSuccessful, currentFailed, currentQPS, recentQPS,
+                            LatencyStats.percentiles(latency.interval()));
                     
                     lastTotal = currentTotal;
                 }
@@ -4,23 +4,48 @@ import models.votaciones.Citizen;
 import models.votaciones.VotingTable;
 import repositories.elections.*;
 import repositories.votaciones.*;
+import services.elections.CacheInvalidationLog;
+import services.elections.CacheInvalidationPublisher;
+import services.elections.ResultsRollup;
+import services.elections.TallyEngine;
+import services.elections.VoteJournal;
+import services.elections.VoteSink;
+import services.elections.VotedCitizenBitmap;
+import services.votaciones.CitizenCursorRegistry;
+import services.votaciones.CitizenDirectory;
+import utils.ElectionDataConverter;
 import utils.JPAUtil;
+import utils.MpscRingBuffer;
+import utils.ServerConfig;
+import utils.TinyLfuCache;
+import utils.WaitStrategy;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -36,38 +61,82 @@ public class ServerImpl implements ServerService {
     private final VoteRepository voteRepository;
     private final CitizenRepository citizenRepository;
     private final VotingTableRepository votingTableRepository;
+    private final VotedCitizenRepository votedCitizenRepository;
 
     private Election currentElection;
     List<Candidate> candidates;
+    // Candidates by id, for the per-vote check; rebuilt with the candidate list.
+    private volatile Candidate[] candidatesById = new Candidate[0];
     private Map<Integer, List<VotingTable>> votingTablesByStation;
-    private final Map<VotingTable, List<Citizen>> citizensByTableCache;
+    private final CitizenCursorRegistry citizenCursors;
+    private final int maxCitizensPerPage;
+    private final CitizenDirectory citizenDirectory;
+    private final VotedCitizenBitmap votedBitmap;
+    private final TallyEngine tally;
+    private final VoteJournal journal;
+    private final ResultsRollup resultsRollup;
+    private final CacheInvalidationLog invalidationLog;
+    
+    // Journaled votes that failed for a reason other than validation are queued again from here,
+    // waiting longer after every failed attempt.
+    private final int journalRetryMinMs;
+    private final int journalRetryMaxMs;
+    private final AtomicLong journalRetries = new AtomicLong(0);
+    private final ScheduledExecutorService journalRetryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "journal-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
     
     private final Map<String, EventObserverPrx> subscribers = new ConcurrentHashMap<>();
+    private final CacheInvalidationPublisher cacheInvalidations = new CacheInvalidationPublisher(
+        subscribers,
+        ServerConfig.getInt("Server.CacheInvalidation.LingerMs", 100),
+        ServerConfig.getInt("Server.CacheInvalidation.MaxDocuments", 5000)
+    );
     
-    private final BlockingQueue<EntityManager> votingEMPool = new LinkedBlockingQueue<>();
-    private static final int VOTING_EM_POOL_SIZE = 5;
     
+    // Ingestion: Ice threads offer votes to a bounded MPSC ring; one batcher thread cuts batches
+    // and hands them to the writers, blocking while all of them are busy. A full ring is reported
+    // to the caller as ServerOverloaded with an estimate of how long the backlog takes to drain.
+    private final MpscRingBuffer<VoteProcessingTask> ingestRing;
+    private final String ingestWaitStrategy;
+    private final Thread ingestThread;
     private final ExecutorService voteProcessingExecutor;
-    private final BlockingQueue<VoteProcessingTask> voteQueue;
-    private final BlockingQueue<VoteProcessingTask> pendingQueue;
-    private final ExecutorService pendingQueueProcessors;
+    private final Semaphore writerPermits;
     private final AtomicLong processedVotes = new AtomicLong(0);
-    private final AtomicLong pendingVotes = new AtomicLong(0);
-    private final AtomicBoolean isPendingQueueActive = new AtomicBoolean(true);
+    private final AtomicLong committedBatches = new AtomicLong(0);
+    private final AtomicLong rejectedVotes = new AtomicLong(0);
+    private final AtomicBoolean isIngestActive = new AtomicBoolean(true);
+    private volatile double batchMillisAverage = 10;
+    
+    // Group commit: the batcher collects up to voteBatchSize votes, waiting at most
+    // voteBatchLingerMs for a batch to fill; each batch is written in one transaction.
+    private final int voteWriterThreads;
+    private final int voteBatchSize;
+    private final long voteBatchLingerMs;
+    private final VoteSink voteSink;
+    private final int minRetryAfterMs;
+    private final int maxRetryAfterMs;
+    
+    private static final long INGEST_IDLE_CHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
     
-    private static final int VOTE_PROCESSING_THREADS = 40;
-    private static final int PENDING_QUEUE_PROCESSORS = 10;
-    private static final int VOTE_QUEUE_CAPACITY = 50000;
-    private static final int PENDING_QUEUE_CAPACITY = 100000;
-    private static final long PENDING_RETRY_INTERVAL_MS = 50;
+    // Request context key: registerVote replies only after the vote is committed (or rejected).
+    static final String AWAIT_PERSISTED_CONTEXT = "awaitPersisted";
+    
+    // Runs the read RPCs that still need the database, off the Ice dispatch threads.
+    private final ExecutorService queryExecutor = 
+        Executors.newFixedThreadPool(Math.max(1, ServerConfig.getInt("Server.Query.Threads", 16)));
     
     private static class VoteProcessingTask {
         final VoteData vote;
+        final VoteJournal.Entry journalEntry;
         final CompletableFuture<Void> resultFuture;
         final long submitTime;
         
-        VoteProcessingTask(VoteData vote) {
+        VoteProcessingTask(VoteData vote, VoteJournal.Entry journalEntry) {
             this.vote = vote;
+            this.journalEntry = journalEntry;
             this.resultFuture = new CompletableFuture<>();
             this.submitTime = System.currentTimeMillis();
         }
@@ -78,13 +147,39 @@ public class ServerImpl implements ServerService {
                       VoteRepository voteRepository, 
                       CitizenRepository citizenRepository, 
                       VotingTableRepository votingTableRepository,
-                      VotedCitizenRepository votedCitizenRepository) {
+                      VotedCitizenRepository votedCitizenRepository,
+                      CacheInvalidationRepository cacheInvalidationRepository) {
         this.electionRepository = electionRepository;
         this.candidateRepository = candidateRepository;
         this.voteRepository = voteRepository;
         this.citizenRepository = citizenRepository;
         this.votingTableRepository = votingTableRepository;
-        this.citizensByTableCache = new ConcurrentHashMap<>();
+        this.votedCitizenRepository = votedCitizenRepository;
+        // Positioned before any census or polling place is loaded; see CacheInvalidationLog.
+        this.invalidationLog = new CacheInvalidationLog(
+            cacheInvalidationRepository,
+            ServerConfig.getInt("Server.CacheInvalidation.PollMs", 500),
+            ServerConfig.getInt("Server.CacheInvalidation.RetentionMinutes", 60),
+            this::applyInvalidation
+        );
+        // An open cursor pins a votaciones connection; keep enough of them for the query threads.
+        int maxOpenCursors = ServerConfig.getInt("Server.CitizenCursor.MaxOpen", 32);
+        int votingConnections = JPAUtil.votingPoolSize();
+        if (votingConnections > 0) {
+            int cursorConnections = Math.max(1, votingConnections - ServerConfig.getInt("Server.Query.Threads", 16));
+            if (maxOpenCursors > cursorConnections) {
+                System.out.println("ServerImpl: limiting open citizen cursors to " + cursorConnections + 
+                                 " of " + votingConnections + " votaciones connections");
+                maxOpenCursors = cursorConnections;
+            }
+        }
+        this.citizenCursors = new CitizenCursorRegistry(
+            citizenRepository,
+            ServerConfig.getInt("Server.CitizenCursor.FetchSize", 1000),
+            maxOpenCursors,
+            ServerConfig.getInt("Server.CitizenCursor.IdleSeconds", 60)
+        );
+        this.maxCitizensPerPage = Math.max(1, ServerConfig.getInt("Server.CitizenCursor.MaxPage", 5000));
         try {
             initElectionBasicData();
         } catch (Throwable t) {
@@ -93,80 +188,424 @@ public class ServerImpl implements ServerService {
             throw t;
         }
         
-        for (int i = 0; i < VOTING_EM_POOL_SIZE; i++) {
-            votingEMPool.offer(JPAUtil.getEntityManagerVoting());
+        this.citizenDirectory = loadCitizenDirectory();
+        this.votedBitmap = loadVotedBitmap();
+        this.tally = loadTally();
+        this.journal = openJournal();
+        List<VoteJournal.Entry> recoveredVotes = recoverJournal();
+        
+        // Every writer holds an elections connection for the length of its batch; more writers
+        // than connections would only queue on the pool and time out there.
+        int writers = Math.max(1, ServerConfig.getInt("Server.VoteBatch.Writers", 8));
+        int electionsConnections = JPAUtil.electionsPoolSize();
+        if (electionsConnections > 0 && writers > electionsConnections) {
+            System.out.println("ServerImpl: " + writers + " vote batch writers but " + electionsConnections + 
+                             " elections connections, using " + electionsConnections + " writers");
+            writers = electionsConnections;
         }
+        this.voteWriterThreads = writers;
+        this.voteBatchSize = Math.max(1, ServerConfig.getInt("Server.VoteBatch.Size", 50));
+        this.voteBatchLingerMs = Math.max(0, ServerConfig.getInt("Server.VoteBatch.LingerMs", 5));
+        
+        this.minRetryAfterMs = Math.max(1, ServerConfig.getInt("Server.Ingest.MinRetryAfterMs", 50));
+        this.maxRetryAfterMs = Math.max(minRetryAfterMs, ServerConfig.getInt("Server.Ingest.MaxRetryAfterMs", 5000));
+        this.journalRetryMinMs = Math.max(1, ServerConfig.getInt("Server.Journal.RetryMinMs", 500));
+        this.journalRetryMaxMs = Math.max(journalRetryMinMs, ServerConfig.getInt("Server.Journal.RetryMaxMs", 30000));
+        this.ingestWaitStrategy = ServerConfig.getString("Server.Ingest.WaitStrategy", "blocking");
+        this.voteSink = VoteSink.named(ServerConfig.getString("Server.VoteSink", "jpa"));
+        
+        this.ingestRing = new MpscRingBuffer<>(Math.max(1024, ServerConfig.getInt("Server.Ingest.Capacity", 131072)),
+                                               WaitStrategy.named(ingestWaitStrategy));
+        this.voteProcessingExecutor = Executors.newFixedThreadPool(voteWriterThreads);
+        this.writerPermits = new Semaphore(voteWriterThreads);
+        this.ingestThread = new Thread(this::ingestLoop, "vote-ingest");
+        this.ingestThread.start();
+        
+        System.out.println("ServerImpl initialized with async vote processing system (ring of " + ingestRing.capacity() + 
+                         " votes, " + ingestWaitStrategy + " wait, " + voteWriterThreads + " batch writers, batch size " + 
+                         voteBatchSize + ", linger " + voteBatchLingerMs + "ms)");
         
-        this.voteQueue = new LinkedBlockingQueue<>(VOTE_QUEUE_CAPACITY);
-        this.pendingQueue = new LinkedBlockingQueue<>(PENDING_QUEUE_CAPACITY);
-        this.voteProcessingExecutor = Executors.newFixedThreadPool(VOTE_PROCESSING_THREADS);
-        this.pendingQueueProcessors = Executors.newFixedThreadPool(PENDING_QUEUE_PROCESSORS);
+        replayJournal(recoveredVotes);
+        
+        this.resultsRollup = startResultsRollup();
+        if (ServerConfig.getInt("Server.CacheInvalidation.PollMs", 500) > 0) {
+            invalidationLog.start();
+        } else {
+            System.out.println("Cache invalidation log polling disabled, invalidations from the other replicas are not applied");
+        }
+    }
+    
+    private ResultsRollup startResultsRollup() {
+        int intervalSeconds = ServerConfig.getInt("Server.Rollup.IntervalSeconds", 10);
+        if (intervalSeconds <= 0) {
+            System.out.println("Results rollup disabled, results_pending keeps growing until it is enabled");
+            return null;
+        }
+        ResultsRollup rollup = new ResultsRollup(intervalSeconds, this::rebaseTally);
+        rollup.start();
+        System.out.println("Results rollup started: " + rollup);
+        return rollup;
+    }
+    
+    // The tally only counts this replica's commits; after each rollup it takes the database
+    // counts, which include the other replica's votes.
+    private void rebaseTally() {
+        if (tally != null) {
+            tally.rebase(voteRepository::countVotesGroupedByTableAndCandidate);
+        }
+    }
+
+    private VoteJournal openJournal() {
+        String directory = ServerConfig.getString("Server.Journal.Dir", "");
+        if (directory.isEmpty()) {
+            System.out.println("Vote journal disabled, queued votes are lost if the server stops");
+            return null;
+        }
+        
+        try {
+            int segmentMb = Math.max(1, ServerConfig.getInt("Server.Journal.SegmentMb", 64));
+            int flushLingerMs = Math.max(0, ServerConfig.getInt("Server.Journal.FlushLingerMs", 1));
+            return new VoteJournal(directory, segmentMb << 20, flushLingerMs);
+        } catch (IOException e) {
+            // Accepting votes without the journal would silently bring back the data-loss window.
+            throw new RuntimeException("Could not open vote journal in " + directory, e);
+        }
+    }
+
+    private List<VoteJournal.Entry> recoverJournal() {
+        if (journal == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return journal.recover();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not recover vote journal", e);
+        }
+    }
+
+    // Votes acknowledged before the last stop but never committed. Replaying a vote that did commit
+    // is harmless: it is rejected as CitizenAlreadyVoted and then marked done.
+    private void replayJournal(List<VoteJournal.Entry> recoveredVotes) {
+        if (recoveredVotes.isEmpty()) {
+            return;
+        }
+        
+        System.out.println("Replaying " + recoveredVotes.size() + " journaled votes");
+        try {
+            for (VoteJournal.Entry entry : recoveredVotes) {
+                VoteProcessingTask task = trackJournal(new VoteProcessingTask(entry.vote, entry), 0);
+                while (!ingestRing.offer(task)) {
+                    Thread.sleep(1);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Journal replay interrupted, remaining votes will be replayed on next start");
+        }
+    }
+
+    // A journaled vote is done once committed or rejected by validation. Other failures (database
+    // unavailable, pool exhausted) leave it pending and it is queued again after a delay; whatever
+    // is still pending at shutdown is replayed on the next start.
+    private VoteProcessingTask trackJournal(VoteProcessingTask task, int failedAttempts) {
+        if (task.journalEntry != null) {
+            task.resultFuture.whenComplete((ok, error) -> {
+                if (error == null || isValidationFailure(error)) {
+                    journal.complete(task.journalEntry);
+                } else {
+                    long delayMs = journalRetryDelayMs(failedAttempts + 1);
+                    System.err.println("Vote for " + task.vote.citizenDocument + " kept in journal after failure, retrying in " +
+                                       delayMs + "ms: " + error.getMessage());
+                    scheduleJournalRetry(task.journalEntry, failedAttempts + 1, delayMs);
+                }
+            });
+        }
+        return task;
+    }
+
+    private long journalRetryDelayMs(int failedAttempts) {
+        return Math.min(journalRetryMaxMs, (long) journalRetryMinMs << Math.min(failedAttempts - 1, 16));
+    }
+
+    private void scheduleJournalRetry(VoteJournal.Entry entry, int failedAttempts, long delayMs) {
+        try {
+            journalRetryScheduler.schedule(() -> retryJournaled(entry, failedAttempts), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: the vote stays in the journal for the next start.
+        }
+    }
+
+    // A full ring is not a failure of the vote, so it is offered again without growing the delay.
+    private void retryJournaled(VoteJournal.Entry entry, int failedAttempts) {
+        if (!isIngestActive.get()) {
+            return;
+        }
+        VoteProcessingTask task = new VoteProcessingTask(entry.vote, entry);
+        if (ingestRing.offer(task)) {
+            trackJournal(task, failedAttempts);
+            journalRetries.incrementAndGet();
+        } else {
+            scheduleJournalRetry(entry, failedAttempts, journalRetryMinMs);
+        }
+    }
+
+    private static boolean isValidationFailure(Throwable error) {
+        return unwrapUserException(error) instanceof com.zeroc.Ice.UserException;
+    }
+
+    // Validation errors travel through the pipeline wrapped in RuntimeException/CompletionException;
+    // Ice only marshals them as the declared exception if they reach it unwrapped.
+    private static Throwable unwrapUserException(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof com.zeroc.Ice.UserException) {
+                return t;
+            }
+        }
+        return error;
+    }
+
+    private CitizenDirectory loadCitizenDirectory() {
+        if (ServerConfig.getInt("Server.CitizenDirectory.Enabled", 1) <= 0) {
+            System.out.println("Citizen directory disabled, citizens will be resolved against the votaciones database");
+            return null;
+        }
         
-        for (int i = 0; i < VOTE_PROCESSING_THREADS; i++) {
-            voteProcessingExecutor.submit(this::voteProcessingWorker);
+        try {
+            long start = System.currentTimeMillis();
+            long expected = citizenRepository.countCitizens();
+            CitizenDirectory.Builder builder = CitizenDirectory.builder((int) Math.min(expected, Integer.MAX_VALUE - 8));
+            citizenRepository.streamCitizenKeys((citizenId, document, tableId) -> builder.add(document, citizenId, tableId));
+            CitizenDirectory directory = builder.build();
+            
+            System.out.println("Citizen directory loaded: " + directory.size() + " citizens in " + 
+                             (System.currentTimeMillis() - start) + "ms, ~" + (directory.memoryBytes() >> 20) + " MiB");
+            return directory;
+        } catch (Exception e) {
+            System.err.println("Could not load citizen directory, falling back to database lookups: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Rebuilds the already-voted set from voted_citizens. Sized for every citizen id known at startup
+    // plus some headroom; citizens above that are checked against the database as before.
+    private VotedCitizenBitmap loadVotedBitmap() {
+        if (ServerConfig.getInt("Server.VotedBitmap.Enabled", 1) <= 0) {
+            System.out.println("Voted citizen bitmap disabled, duplicate votes will be checked against voted_citizens");
+            return null;
         }
         
-        for (int i = 0; i < PENDING_QUEUE_PROCESSORS; i++) {
-            final int workerId = i;
-            pendingQueueProcessors.submit(() -> pendingQueueWorker(workerId));
+        try {
+            long start = System.currentTimeMillis();
+            int maxCitizenId = citizenDirectory != null ? citizenDirectory.maxCitizenId() : citizenRepository.findMaxCitizenId();
+            maxCitizenId = Math.max(maxCitizenId, votedCitizenRepository.findMaxCitizenId());
+            int headroom = Math.max(0, ServerConfig.getInt("Server.VotedBitmap.Headroom", 100000));
+            
+            VotedCitizenBitmap bitmap = new VotedCitizenBitmap((int) Math.min((long) maxCitizenId + 1 + headroom, Integer.MAX_VALUE));
+            votedCitizenRepository.streamVotedCitizenIds(citizenId -> {
+                if (bitmap.covers(citizenId)) {
+                    bitmap.trySet(citizenId);
+                }
+            });
+            
+            System.out.println("Voted citizen bitmap loaded: " + bitmap.count() + " voted of " + bitmap.capacity() + 
+                             " ids in " + (System.currentTimeMillis() - start) + "ms, " + (bitmap.memoryBytes() >> 10) + " KiB");
+            return bitmap;
+        } catch (Exception e) {
+            System.err.println("Could not load voted citizen bitmap, falling back to database checks: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // Seeds the tally from the votes already stored. Must run before the writers start so that no
+    // commit is counted twice or missed.
+    private TallyEngine loadTally() {
+        if (this.candidates == null) {
+            return null;
         }
         
-        System.out.println("ServerImpl initialized with async vote processing system");
+        try {
+            long start = System.currentTimeMillis();
+            TallyEngine engine = new TallyEngine(candidates.stream().mapToInt(Candidate::getId).toArray());
+            engine.seed(voteRepository.countVotesGroupedByTableAndCandidate());
+            
+            System.out.println("Vote tally seeded for " + candidates.size() + " candidates and " + 
+                             engine.tableCount() + " tables in " + (System.currentTimeMillis() - start) + "ms");
+            return engine;
+        } catch (Exception e) {
+            System.err.println("Could not seed vote tally, results will be counted in the database: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isTrackedInMemory(int citizenId) {
+        return votedBitmap != null && votedBitmap.covers(citizenId);
+    }
+
+    // Unique violation on voted_citizens: the citizen voted through another transaction or replica.
+    private static boolean isDuplicateVote(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLException && "23505".equals(((SQLException) t).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private final Map<String, String> votingStationCache = new ConcurrentHashMap<>();
-    private static final int MAX_CACHE_SIZE = 100000;
-    private final AtomicLong cacheHits = new AtomicLong(0);
-    private final AtomicLong cacheMisses = new AtomicLong(0);
+    // Document -> polling place. Values are the shared per-table instances of pollingPlaces, so an
+    // entry costs a key and a reference; UNKNOWN_PLACE marks documents that are not in the census.
+    private final TinyLfuCache<String, PollingPlace> votingStationCache = new TinyLfuCache<>(
+        ServerConfig.getInt("Server.StationCache.MaxSize", 100000),
+        ServerConfig.getInt("Server.StationCache.TtlSeconds", 0)
+    );
+    private final Map<Integer, PollingPlace> pollingPlaces = new ConcurrentHashMap<>();
+    private static final PollingPlace UNKNOWN_PLACE = new PollingPlace();
+    // Database lookups under way, so concurrent misses on a document share one query.
+    private final Map<String, CompletableFuture<PollingPlace>> stationLookupsInFlight = new ConcurrentHashMap<>();
+    private final AtomicLong coalescedLookups = new AtomicLong(0);
+    // Bumped by every invalidation. A lookup that started under an older value may have read the
+    // citizen before the change, so its answer is not left in the cache (see cacheStation).
+    private final AtomicLong stationCacheGeneration = new AtomicLong(0);
     
     @Override
-    public String findVotingStationByDocument(String document, Current current) {
+    public CompletionStage<PollingPlace> findVotingStationByDocumentAsync(String document, Current current) {
         if (document == null || document.trim().isEmpty()) {
-            return "";
+            return CompletableFuture.completedFuture(UNKNOWN_PLACE);
         }
         
-        document = document.trim();
+        String trimmed = document.trim();
         
-        String cachedResult = votingStationCache.get(document);
+        PollingPlace cachedResult = votingStationCache.get(trimmed);
         if (cachedResult != null) {
-            cacheHits.incrementAndGet();
-            return "NULL_RESULT".equals(cachedResult) ? "" : cachedResult;
+            return CompletableFuture.completedFuture(cachedResult);
         }
         
-        cacheMisses.incrementAndGet();
+        if (citizenDirectory != null) {
+            return CompletableFuture.completedFuture(queryVotingStationDirect(trimmed));
+        }
         
-        return queryVotingStationDirect(document);
+        CompletableFuture<PollingPlace> pending = new CompletableFuture<>();
+        CompletableFuture<PollingPlace> existing = stationLookupsInFlight.putIfAbsent(trimmed, pending);
+        if (existing != null) {
+            coalescedLookups.incrementAndGet();
+            return existing;
+        }
+        try {
+            queryExecutor.execute(() -> {
+                // queryVotingStationDirect caches the result before the lookup leaves the map.
+                PollingPlace result = UNKNOWN_PLACE;
+                try {
+                    result = queryVotingStationDirect(trimmed);
+                } finally {
+                    stationLookupsInFlight.remove(trimmed, pending);
+                    pending.complete(result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            stationLookupsInFlight.remove(trimmed, pending);
+            pending.completeExceptionally(e);
+        }
+        return pending;
     }
     
-    private String queryVotingStationDirect(String document) {
+    private PollingPlace queryVotingStationDirect(String document) {
+        long generation = stationCacheGeneration.get();
         try {
-            Integer tableId = citizenRepository.findVotingTableIdByDocument(document);
-            
-            String result;
-            if (tableId != null) {
-                result = "Usted debe votar en la mesa " + tableId + ".";
+            PollingPlace place;
+            if (citizenDirectory != null) {
+                long entry = citizenDirectory.lookup(document);
+                place = entry != CitizenDirectory.NOT_FOUND ? pollingPlace(CitizenDirectory.tableId(entry)) : UNKNOWN_PLACE;
             } else {
-                result = "";
-            }
-
-            if (votingStationCache.size() < MAX_CACHE_SIZE) {
-                votingStationCache.put(document, result.isEmpty() ? "NULL_RESULT" : result);
+                VotingTable table = citizenRepository.findVotingTableByDocument(document);
+                place = table != null ? pollingPlaces.computeIfAbsent(table.getId(), id -> ElectionDataConverter.toPollingPlace(table))
+                                      : UNKNOWN_PLACE;
             }
             
-            return result;
+            cacheStation(document, place, generation);
+            return place;
             
         } catch (Exception e) {
             System.err.println("Error in optimized query for document " + document + ": " + e.getMessage());
-            return "";
+            return UNKNOWN_PLACE;
+        }
+    }
+
+    // Put first and checked after: an invalidation that bumps the generation before the check is
+    // seen here, and one that bumps it after the check drops the entry itself.
+    private void cacheStation(String document, PollingPlace place, long generation) {
+        votingStationCache.put(document, place);
+        if (stationCacheGeneration.get() != generation) {
+            votingStationCache.invalidate(document);
         }
     }
 
+    // Filled from the voting tables loaded at startup; a table created since then is loaded once.
+    private PollingPlace pollingPlace(int tableId) {
+        PollingPlace place = pollingPlaces.get(tableId);
+        if (place != null) {
+            return place;
+        }
+        return votingTableRepository.findById(tableId)
+            .map(table -> pollingPlaces.computeIfAbsent(tableId, id -> ElectionDataConverter.toPollingPlace(table)))
+            .orElse(UNKNOWN_PLACE);
+    }
+
+    // Same answers as findVotingStationByDocument, in the order of the request. Cache hits are
+    // answered here; the misses are resolved together, in one query when there is no directory.
+    @Override
+    public CompletionStage<PollingPlace[]> findVotingStationsByDocumentsAsync(String[] documents, Current current) {
+        PollingPlace[] results = new PollingPlace[documents.length];
+        Map<String, List<Integer>> misses = new HashMap<>();
+        for (int i = 0; i < documents.length; i++) {
+            String document = documents[i] != null ? documents[i].trim() : "";
+            if (document.isEmpty()) {
+                results[i] = UNKNOWN_PLACE;
+                continue;
+            }
+            PollingPlace cachedResult = votingStationCache.get(document);
+            if (cachedResult != null) {
+                results[i] = cachedResult;
+            } else {
+                misses.computeIfAbsent(document, k -> new ArrayList<>()).add(i);
+            }
+        }
+        
+        if (misses.isEmpty()) {
+            return CompletableFuture.completedFuture(results);
+        }
+        long generation = stationCacheGeneration.get();
+        if (citizenDirectory != null) {
+            for (Map.Entry<String, List<Integer>> miss : misses.entrySet()) {
+                PollingPlace result = queryVotingStationDirect(miss.getKey());
+                miss.getValue().forEach(i -> results[i] = result);
+            }
+            return CompletableFuture.completedFuture(results);
+        }
+        return runQuery(() -> {
+            Map<String, Integer> tableIds;
+            try {
+                tableIds = citizenRepository.findVotingTableIdsByDocuments(misses.keySet());
+            } catch (Exception e) {
+                System.err.println("Error in bulk query for " + misses.size() + " documents: " + e.getMessage());
+                misses.values().forEach(indexes -> indexes.forEach(i -> results[i] = UNKNOWN_PLACE));
+                return results;
+            }
+            for (Map.Entry<String, List<Integer>> miss : misses.entrySet()) {
+                Integer tableId = tableIds.get(miss.getKey());
+                PollingPlace result = tableId != null ? pollingPlace(tableId) : UNKNOWN_PLACE;
+                cacheStation(miss.getKey(), result, generation);
+                miss.getValue().forEach(i -> results[i] = result);
+            }
+            return results;
+        });
+    }
+
     public void initElectionBasicData() {
         System.out.println("Loading election basic data...");
 
         try {
             Optional<List<Candidate>> candidatesOpt = candidateRepository.findAll();
             this.candidates = candidatesOpt.orElse(new ArrayList<>());
+            this.candidatesById = indexCandidates(this.candidates);
             
             Optional<Election> electionOpt = electionRepository.findById(1);
             this.currentElection = electionOpt.orElse(null);
@@ -182,10 +621,17 @@ public class ServerImpl implements ServerService {
                 this.votingTablesByStation = new HashMap<>();
             }
             
+            for (List<VotingTable> tables : votingTablesByStation.values()) {
+                for (VotingTable table : tables) {
+                    pollingPlaces.put(table.getId(), ElectionDataConverter.toPollingPlace(table));
+                }
+            }
+            
             System.out.println("Election basic data loaded successfully");
             System.out.println("- Candidates: " + candidates.size());
             System.out.println("- Election: " + (currentElection != null ? currentElection.getName() : "None"));
             System.out.println("- Voting stations: " + votingTablesByStation.size());
+            System.out.println("- Polling places: " + pollingPlaces.size());
             
             System.out.println("Direct query cache system initialized (no pre-loading)");
             
@@ -200,21 +646,7 @@ public class ServerImpl implements ServerService {
         if (currentElection == null) {
             initElectionBasicData();
         }
-        return convertElectionToElectionData(currentElection);
-    }
-
-    private List<Citizen> getOrLoadCitizensForTable(VotingTable votingTable) {
-        List<Citizen> citizens = citizensByTableCache.get(votingTable);
-        if (citizens == null) {
-            citizens = citizenRepository.findByVotingTableId(votingTable.getId());
-            if (citizens != null) {
-                citizensByTableCache.put(votingTable, citizens);
-            } else {
-                citizens = new ArrayList<>();
-                citizensByTableCache.put(votingTable, citizens);
-            }
-        }
-        return citizens;
+        return ElectionDataConverter.toElectionData(currentElection, candidates);
     }
 
     @Override
@@ -229,127 +661,438 @@ public class ServerImpl implements ServerService {
             return new VotingTableData[0];
         }
         
+        // Tables only: a whole station's census in one reply outgrows Ice.MessageSizeMax. Citizens
+        // are paged per table through openCitizenCursor/nextCitizens.
         return votingTablesForStation.stream()
-            .map(this::convertVotingTableToVotingTableData)
+            .map(table -> ElectionDataConverter.toVotingTableData(table, Collections.emptyList()))
             .toArray(VotingTableData[]::new);
     }
 
-    private EntityManager borrowVotingEM() throws InterruptedException {
-        EntityManager em = votingEMPool.poll(100, TimeUnit.MILLISECONDS);
-        if (em == null) {
-            em = JPAUtil.getEntityManagerVoting();
+    @Override
+    public CompletionStage<Void> registerVoteAsync(VoteData vote, Current current) {
+        boolean awaitPersisted = isAwaitPersisted(current);
+        // thenCompose hands a failure of enqueueVote on as a CompletionException, which Ice would
+        // report as UnknownException instead of the declared exception.
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        enqueueVote(vote)
+            .thenCompose(task -> awaitPersisted ? persistedOutcome(task) : CompletableFuture.<Void>completedFuture(null))
+            .whenComplete((ok, error) -> {
+                if (error == null) {
+                    outcome.complete(null);
+                } else {
+                    outcome.completeExceptionally(unwrapUserException(error));
+                }
+            });
+        return outcome;
+    }
+    
+    @Override
+    public CompletionStage<ServerService.RegisterVotesResult> registerVotesAsync(VoteData[] votes, Current current) {
+        boolean awaitPersisted = isAwaitPersisted(current);
+        // The longest retry-after of the votes refused as Overloaded, so the caller can hold them
+        // back as long as the server asked for instead of guessing.
+        AtomicInteger retryAfterMs = new AtomicInteger();
+        
+        @SuppressWarnings("unchecked")
+        CompletableFuture<VoteStatus>[] statuses = new CompletableFuture[votes.length];
+        for (int i = 0; i < votes.length; i++) {
+            statuses[i] = enqueueVote(votes[i])
+                .thenCompose(task -> awaitPersisted ? persistedOutcome(task) : CompletableFuture.<Void>completedFuture(null))
+                .handle((ok, error) -> {
+                    if (error == null) {
+                        return VoteStatus.Accepted;
+                    }
+                    Throwable cause = unwrapUserException(error);
+                    if (cause instanceof ServerOverloaded) {
+                        retryAfterMs.accumulateAndGet(((ServerOverloaded) cause).retryAfterMs, Math::max);
+                    }
+                    return toVoteStatus(cause);
+                });
         }
-        return em;
+        
+        return CompletableFuture.allOf(statuses).thenApply(done -> {
+            VoteStatus[] result = new VoteStatus[statuses.length];
+            for (int i = 0; i < statuses.length; i++) {
+                result[i] = statuses[i].join();
+            }
+            return new ServerService.RegisterVotesResult(result, retryAfterMs.get());
+        });
+    }
+    
+    private static boolean isAwaitPersisted(Current current) {
+        return current != null && current.ctx != null && 
+               "true".equalsIgnoreCase(current.ctx.get(AWAIT_PERSISTED_CONTEXT));
     }
     
-    private void returnVotingEM(EntityManager em) {
-        if (em != null && em.isOpen()) {
-            votingEMPool.offer(em);
+    private static VoteStatus toVoteStatus(Throwable error) {
+        if (error instanceof CitizenAlreadyVoted) {
+            return VoteStatus.AlreadyVoted;
+        } else if (error instanceof CitizenNotFound) {
+            return VoteStatus.UnknownCitizen;
+        } else if (error instanceof CandidateNotFound) {
+            return VoteStatus.UnknownCandidate;
+        } else if (error instanceof CitizenNotBelongToTable) {
+            return VoteStatus.WrongTable;
+        } else if (error instanceof ServerOverloaded) {
+            return VoteStatus.Overloaded;
         }
+        return VoteStatus.Failed;
     }
-
-    @Override
-    public void registerVote(VoteData vote, Current current)
-        throws CitizenAlreadyVoted, CitizenNotFound, CandidateNotFound, CitizenNotBelongToTable {
-        
+    
+    // Validates, journals and queues one vote. The future completes with the queued task once the
+    // vote is durable, or fails with the user exception the caller should see. The dispatch thread
+    // returns right away: the reply is sent by the journal flusher, or by the writer that commits
+    // the vote when the caller asked to wait for that.
+    private CompletableFuture<VoteProcessingTask> enqueueVote(VoteData vote) {
         if (this.candidates == null) {
             initElectionBasicData();
         }
         
-        boolean candidateExists = this.candidates != null && this.candidates.stream()
-            .anyMatch(c -> c.getId() == vote.candidateId);
-        if (!candidateExists) {
-            throw new CandidateNotFound("Candidate with ID " + vote.candidateId + " not found");
+        if (findCandidate(vote.candidateId) == null) {
+            return CompletableFuture.failedFuture(rejection(VoteStatus.UnknownCandidate, vote, -1));
         }
         
-        VoteProcessingTask task = new VoteProcessingTask(vote);
-        
-        if (voteQueue.offer(task)) {
-            return;
+        if (!isIngestActive.get()) {
+            rejectedVotes.incrementAndGet();
+            return CompletableFuture.failedFuture(new ServerOverloaded(maxRetryAfterMs, "Server is shutting down"));
         }
-        
-        if (pendingQueue.offer(task)) {
-            pendingVotes.incrementAndGet();
-            return;
+        // Cheap early rejection so an overloaded server does not pay for a journal write.
+        if (ingestRing.size() >= ingestRing.capacity()) {
+            rejectedVotes.incrementAndGet();
+            return CompletableFuture.failedFuture(new ServerOverloaded(estimateRetryAfterMs(), "Vote ingestion ring is full"));
         }
         
-        long currentProcessed = processedVotes.get();
-        throw new RuntimeException("Vote processing system at absolute maximum capacity - " + 
-                                 currentProcessed + " votes processed so far.");
+        CompletableFuture<VoteJournal.Entry> journaled = journal != null 
+            ? journal.append(vote) 
+            : CompletableFuture.completedFuture(null);
+        
+        return journaled.handle((entry, error) -> {
+            if (error != null) {
+                return CompletableFuture.<VoteProcessingTask>failedFuture(journalFailure(error));
+            }
+            VoteProcessingTask task = trackJournal(new VoteProcessingTask(vote, entry), 0);
+            
+            if (!ingestRing.offer(task)) {
+                // Rejected: the caller retries, so the journaled copy must not be replayed as well.
+                if (entry != null) {
+                    journal.complete(entry);
+                }
+                rejectedVotes.incrementAndGet();
+                return CompletableFuture.<VoteProcessingTask>failedFuture(
+                    new ServerOverloaded(estimateRetryAfterMs(), "Vote ingestion ring is full"));
+            }
+            
+            return CompletableFuture.completedFuture(task);
+        }).thenCompose(queued -> queued);
     }
     
-    private void voteProcessingWorker() {
-        while (!Thread.currentThread().isInterrupted()) {
-            try {
-                VoteProcessingTask task = voteQueue.take();
-                processVoteAsync(task);
-                
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            } catch (Exception e) {
-                System.err.println("Error processing vote: " + e.getMessage());
-                e.printStackTrace();
-            }
+    // A journal that cannot flush is a temporary condition: the caller keeps the vote and sends it
+    // again after the journal's retry delay, instead of seeing an unknown error.
+    private Throwable journalFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof VoteJournal.FlushFailedException) {
+            rejectedVotes.incrementAndGet();
+            int retryAfterMs = (int) Math.min(maxRetryAfterMs, 
+                Math.max(estimateRetryAfterMs(), ((VoteJournal.FlushFailedException) cause).retryAfterMs));
+            return new ServerOverloaded(retryAfterMs, cause.getMessage());
         }
+        return cause;
+    }
+    
+    private CompletableFuture<Void> persistedOutcome(VoteProcessingTask task) {
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        task.resultFuture.whenComplete((ok, error) -> {
+            if (error == null) {
+                outcome.complete(null);
+            } else {
+                outcome.completeExceptionally(unwrapUserException(error));
+            }
+        });
+        return outcome;
     }
     
-    private void pendingQueueWorker(int workerId) {
-        while (isPendingQueueActive.get() && !Thread.currentThread().isInterrupted()) {
+    // Time for the writers to work through what is already queued, based on recent batch times.
+    private int estimateRetryAfterMs() {
+        double queuedBatches = (double) ingestRing.size() / voteBatchSize;
+        long estimate = (long) (queuedBatches / voteWriterThreads * batchMillisAverage);
+        return (int) Math.max(minRetryAfterMs, Math.min(maxRetryAfterMs, estimate));
+    }
+    
+    private void ingestLoop() {
+        while (true) {
+            List<VoteProcessingTask> batch = new ArrayList<>(voteBatchSize);
             try {
-                VoteProcessingTask pendingTask = pendingQueue.poll(PENDING_RETRY_INTERVAL_MS, TimeUnit.MILLISECONDS);
-                
-                if (pendingTask != null) {
-                    if (voteQueue.offer(pendingTask)) {
-                        pendingVotes.decrementAndGet();
-                    } else {
-                        if (!pendingQueue.offer(pendingTask)) {
-                            System.err.println("Pending queue overflow - dropping vote task for worker " + workerId);
-                        }
+                if (!ingestRing.awaitNotEmpty(System.nanoTime() + INGEST_IDLE_CHECK_NANOS)) {
+                    if (!isIngestActive.get()) {
+                        break;
                     }
+                    continue;
+                }
+                
+                ingestRing.drainTo(batch, voteBatchSize);
+                long lingerDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(voteBatchLingerMs);
+                while (batch.size() < voteBatchSize && ingestRing.awaitNotEmpty(lingerDeadline)) {
+                    ingestRing.drainTo(batch, voteBatchSize - batch.size());
+                }
+                
+                writerPermits.acquire();
+                try {
+                    voteProcessingExecutor.execute(() -> writeBatch(batch));
+                } catch (RejectedExecutionException e) {
+                    writerPermits.release();
+                    throw e;
                 }
                 
             } catch (InterruptedException e) {
+                failUnfinished(batch, e);
                 Thread.currentThread().interrupt();
                 break;
             } catch (Exception e) {
-                System.err.println("Error in pending queue worker " + workerId + ": " + e.getMessage());
+                System.err.println("Error dispatching vote batch: " + e.getMessage());
+                failUnfinished(batch, e);
             }
         }
     }
     
-    private void processVoteAsync(VoteProcessingTask task) {
-        EntityManager votingEM = null;
+    private void writeBatch(List<VoteProcessingTask> batch) {
+        long start = System.nanoTime();
+        try {
+            processVoteBatch(batch);
+        } catch (Exception e) {
+            System.err.println("Error processing vote batch: " + e.getMessage());
+            e.printStackTrace();
+            failUnfinished(batch, e);
+        } finally {
+            double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+            batchMillisAverage = batchMillisAverage * 0.8 + elapsedMillis * 0.2;
+            writerPermits.release();
+        }
+    }
+    
+    private void failUnfinished(List<VoteProcessingTask> batch, Exception cause) {
+        for (VoteProcessingTask task : batch) {
+            task.resultFuture.completeExceptionally(cause);
+        }
+    }
+    
+    private void processVoteBatch(List<VoteProcessingTask> batch) {
+        if (batch.size() == 1) {
+            processVoteAsync(batch.get(0));
+            return;
+        }
+        
         EntityManager electionsEM = null;
+        List<VoteProcessingTask> accepted = new ArrayList<>(batch.size());
+        Map<Integer, VoteProcessingTask> tasksByCitizen = new HashMap<>();
         
         try {
-            votingEM = borrowVotingEM();
-            electionsEM = JPAUtil.getEntityManagerElections();
+            Set<String> documents = new HashSet<>();
+            for (VoteProcessingTask task : batch) {
+                documents.add(task.vote.citizenDocument);
+            }
             
-            final EntityManager finalElectionsEM = electionsEM;
+            Map<String, CitizenRepository.CitizenValidationData> citizensByDocument = lookupCitizens(documents);
             
-            JPAUtil.executeInTransactionVoid(votingEM, votingEntityManager -> {
-                TypedQuery<Object[]> citizenQuery = votingEntityManager.createQuery(
-                    "SELECT c.id, c.votingTable.id FROM Citizen c WHERE c.document = :document", 
-                    Object[].class
-                );
-                citizenQuery.setParameter("document", task.vote.citizenDocument);
-                citizenQuery.setHint("org.hibernate.readOnly", true);
-                
-                List<Object[]> citizenResults = citizenQuery.getResultList();
-                if (citizenResults.isEmpty()) {
-                    throw new RuntimeException(new CitizenNotFound("Citizen with document " + task.vote.citizenDocument + " not found"));
+            List<Integer> untracked = new ArrayList<>();
+            for (VoteProcessingTask task : batch) {
+                CitizenRepository.CitizenValidationData citizen = citizensByDocument.get(task.vote.citizenDocument);
+                VoteStatus status = validate(task.vote, citizen);
+                if (status != VoteStatus.Accepted) {
+                    task.resultFuture.completeExceptionally(rejection(status, task.vote, citizen != null ? citizen.citizenId : -1));
+                } else if (isTrackedInMemory(citizen.citizenId) ? !votedBitmap.trySet(citizen.citizenId)
+                                                                : tasksByCitizen.containsKey(citizen.citizenId)) {
+                    task.resultFuture.completeExceptionally(rejection(VoteStatus.AlreadyVoted, task.vote, citizen.citizenId));
+                } else {
+                    tasksByCitizen.put(citizen.citizenId, task);
+                    if (!isTrackedInMemory(citizen.citizenId)) {
+                        untracked.add(citizen.citizenId);
+                    }
+                }
+            }
+            
+            if (tasksByCitizen.isEmpty()) {
+                return;
+            }
+            
+            electionsEM = JPAUtil.getEntityManagerElections();
+            JPAUtil.executeInTransactionVoid(electionsEM, electionsEntityManager -> {
+                if (!untracked.isEmpty()) {
+                    List<Integer> alreadyVoted = electionsEntityManager.createQuery(
+                        "SELECT vc.citizenId FROM VotedCitizen vc WHERE vc.citizenId IN :citizenIds", 
+                        Integer.class
+                    ).setParameter("citizenIds", untracked).getResultList();
+                    
+                    for (Integer citizenId : alreadyVoted) {
+                        VoteProcessingTask task = tasksByCitizen.remove(citizenId);
+                        task.resultFuture.completeExceptionally(rejection(VoteStatus.AlreadyVoted, task.vote, citizenId));
+                    }
                 }
                 
-                Object[] citizenResult = citizenResults.get(0);
-                Integer citizenId = (Integer) citizenResult[0];
-                Integer citizenTableId = (Integer) citizenResult[1];
-                
-                if (!citizenTableId.equals(task.vote.tableId)) {
-                    throw new RuntimeException(new CitizenNotBelongToTable("Citizen with document " + task.vote.citizenDocument + " (ID: " + citizenId + ") does not belong to voting table " + task.vote.tableId));
+                List<VoteSink.Row> rows = new ArrayList<>(tasksByCitizen.size());
+                for (Map.Entry<Integer, VoteProcessingTask> entry : tasksByCitizen.entrySet()) {
+                    VoteData vote = entry.getValue().vote;
+                    rows.add(new VoteSink.Row(entry.getKey(), vote.candidateId, vote.tableId));
                 }
+                Set<Integer> alreadyVoted = voteSink.write(electionsEntityManager, currentElectionId(), LocalDateTime.now(), rows);
                 
-                JPAUtil.executeInTransactionVoid(finalElectionsEM, electionsEntityManager -> {
+                for (Map.Entry<Integer, VoteProcessingTask> entry : tasksByCitizen.entrySet()) {
+                    VoteProcessingTask task = entry.getValue();
+                    if (alreadyVoted.contains(entry.getKey())) {
+                        // Recorded meanwhile by the other replica; the bitmap bit stays set.
+                        task.resultFuture.completeExceptionally(rejection(VoteStatus.AlreadyVoted, task.vote, entry.getKey()));
+                    } else {
+                        accepted.add(task);
+                    }
+                }
+            });
+            
+        } catch (Exception e) {
+            // A single bad row (e.g. a citizen registered concurrently by the other replica) rolls back
+            // the whole batch, so retry the votes that were still open one transaction at a time.
+            System.err.println("Vote batch of " + batch.size() + " failed, retrying individually: " + e.getMessage());
+            accepted.clear();
+            for (Integer citizenId : tasksByCitizen.keySet()) {
+                if (isTrackedInMemory(citizenId)) {
+                    votedBitmap.clear(citizenId);
+                }
+            }
+            for (VoteProcessingTask task : batch) {
+                if (!task.resultFuture.isDone()) {
+                    processVoteAsync(task);
+                }
+            }
+            return;
+        } finally {
+            if (electionsEM != null && electionsEM.isOpen()) {
+                electionsEM.close();
+            }
+        }
+        
+        long previous = processedVotes.getAndAdd(accepted.size());
+        long processed = previous + accepted.size();
+        committedBatches.incrementAndGet();
+        if (processed / 1000 != previous / 1000) {
+            long processingTime = System.currentTimeMillis() - batch.get(0).submitTime;
+            System.out.println("Processed " + processed + " votes. Last batch: " + accepted.size() + " votes, " + processingTime + "ms");
+        }
+        
+        for (VoteProcessingTask task : accepted) {
+            if (tally != null) {
+                tally.record(task.vote.tableId, task.vote.candidateId);
+            }
+            task.resultFuture.complete(null);
+        }
+    }
+    
+    // Resolves documents to (citizenId, tableId) from the in-memory directory, or with a single
+    // query against the votaciones database when the directory is not available.
+    private Map<String, CitizenRepository.CitizenValidationData> lookupCitizens(Collection<String> documents) {
+        Map<String, CitizenRepository.CitizenValidationData> found = new HashMap<>();
+        
+        if (citizenDirectory != null) {
+            for (String document : documents) {
+                long entry = citizenDirectory.lookup(document);
+                if (entry != CitizenDirectory.NOT_FOUND) {
+                    found.put(document, new CitizenRepository.CitizenValidationData(
+                        CitizenDirectory.citizenId(entry), CitizenDirectory.tableId(entry)));
+                }
+            }
+            return found;
+        }
+        
+        EntityManager votingEM = JPAUtil.getEntityManagerVoting();
+        try {
+            JPAUtil.executeInTransactionVoid(votingEM, votingEntityManager ->
+                citizenRepository.findCitizenKeysByDocuments(votingEntityManager, documents, (citizenId, document, tableId) ->
+                    found.put(document, new CitizenRepository.CitizenValidationData(citizenId, tableId))));
+        } finally {
+            votingEM.close();
+        }
+        return found;
+    }
+    
+    private int currentElectionId() {
+        Election election = this.currentElection;
+        if (election == null) {
+            throw new IllegalStateException("No current election loaded");
+        }
+        return election.getId();
+    }
+    
+    Candidate findCandidate(int candidateId) {
+        Candidate[] index = this.candidatesById;
+        return candidateId >= 0 && candidateId < index.length ? index[candidateId] : null;
+    }
+    
+    private static Candidate[] indexCandidates(List<Candidate> candidates) {
+        int maxId = -1;
+        for (Candidate candidate : candidates) {
+            maxId = Math.max(maxId, candidate.getId());
+        }
+        Candidate[] index = new Candidate[maxId + 1];
+        for (Candidate candidate : candidates) {
+            if (candidate.getId() >= 0) {
+                index[candidate.getId()] = candidate;
+            }
+        }
+        return index;
+    }
+    
+    // The checks that need no database, as a reason code so that accepting a vote builds nothing.
+    private VoteStatus validate(VoteData vote, CitizenRepository.CitizenValidationData citizen) {
+        if (citizen == null) {
+            return VoteStatus.UnknownCitizen;
+        }
+        if (citizen.tableId != vote.tableId) {
+            return VoteStatus.WrongTable;
+        }
+        if (findCandidate(vote.candidateId) == null) {
+            return VoteStatus.UnknownCandidate;
+        }
+        return VoteStatus.Accepted;
+    }
+    
+    // The user exception for a rejected vote; messages are only built on this path.
+    private static com.zeroc.Ice.UserException rejection(VoteStatus reason, VoteData vote, int citizenId) {
+        String citizen = "Citizen with document " + vote.citizenDocument + (citizenId >= 0 ? " (ID: " + citizenId + ")" : "");
+        switch (reason) {
+            case UnknownCitizen:
+                return new CitizenNotFound("Citizen with document " + vote.citizenDocument + " not found");
+            case WrongTable:
+                return new CitizenNotBelongToTable(citizen + " does not belong to voting table " + vote.tableId);
+            case UnknownCandidate:
+                return new CandidateNotFound("Candidate with ID " + vote.candidateId + " not found");
+            case AlreadyVoted:
+                return new CitizenAlreadyVoted(citizen + " has already voted");
+            default:
+                throw new IllegalArgumentException("Not a rejection: " + reason);
+        }
+    }
+    
+    private void processVoteAsync(VoteProcessingTask task) {
+        EntityManager electionsEM = null;
+        int claimedCitizenId = -1;
+        
+        try {
+            CitizenRepository.CitizenValidationData citizen = lookupCitizens(Collections.singleton(task.vote.citizenDocument))
+                .get(task.vote.citizenDocument);
+            VoteStatus status = validate(task.vote, citizen);
+            if (status != VoteStatus.Accepted) {
+                throw new RuntimeException(rejection(status, task.vote, citizen != null ? citizen.citizenId : -1));
+            }
+            
+            int citizenId = citizen.citizenId;
+            boolean tracked = isTrackedInMemory(citizenId);
+            if (tracked) {
+                if (!votedBitmap.trySet(citizenId)) {
+                    throw new RuntimeException(rejection(VoteStatus.AlreadyVoted, task.vote, citizenId));
+                }
+                claimedCitizenId = citizenId;
+            }
+            
+            electionsEM = JPAUtil.getEntityManagerElections();
+            JPAUtil.executeInTransactionVoid(electionsEM, electionsEntityManager -> {
+                if (!tracked) {
                     TypedQuery<Long> votedQuery = electionsEntityManager.createQuery(
                         "SELECT COUNT(vc) FROM VotedCitizen vc WHERE vc.citizenId = :citizenId", 
                         Long.class
@@ -358,27 +1101,21 @@ public class ServerImpl implements ServerService {
                     Long voteCount = votedQuery.getSingleResult();
                     
                     if (voteCount > 0) {
-                        throw new RuntimeException(new CitizenAlreadyVoted("Citizen with document " + task.vote.citizenDocument + " (ID: " + citizenId + ") has already voted"));
+                        throw new RuntimeException(rejection(VoteStatus.AlreadyVoted, task.vote, citizenId));
                     }
-                    
-                    Candidate candidateEntity = this.candidates.stream()
-                        .filter(c -> c.getId() == task.vote.candidateId)
-                        .findFirst()
-                        .orElseThrow(() -> new RuntimeException(new CandidateNotFound("Candidate with ID " + task.vote.candidateId + " not found")));
-                    
-                    electionsEntityManager.persist(new VotedCitizen(citizenId));
-                    
-                    Vote newVote = new Vote();
-                    newVote.setCandidate(candidateEntity);
-                    newVote.setTableId(task.vote.tableId);
-                    newVote.setTimestamp(LocalDateTime.now());
-                    newVote.setElection(this.currentElection);
-                    electionsEntityManager.persist(newVote);
-                    
-                    electionsEntityManager.flush();
-                });
+                }
+                
+                Set<Integer> alreadyVoted = voteSink.write(electionsEntityManager, currentElectionId(), LocalDateTime.now(),
+                    Collections.singletonList(new VoteSink.Row(citizenId, task.vote.candidateId, task.vote.tableId)));
+                if (!alreadyVoted.isEmpty()) {
+                    throw new RuntimeException(rejection(VoteStatus.AlreadyVoted, task.vote, citizenId));
+                }
             });
             
+            if (tally != null) {
+                tally.record(task.vote.tableId, task.vote.candidateId);
+            }
+            
             long processingTime = System.currentTimeMillis() - task.submitTime;
             long processed = processedVotes.incrementAndGet();
             
@@ -389,22 +1126,26 @@ public class ServerImpl implements ServerService {
             task.resultFuture.complete(null);
             
         } catch (Exception e) {
-            String errorMessage = e.getMessage() != null ? e.getMessage().toLowerCase() : "";
-            boolean isConnectionPoolError = errorMessage.contains("connection pool") || 
-                                          errorMessage.contains("maximum size") ||
-                                          errorMessage.contains("no connection is currently available") ||
-                                          errorMessage.contains("pool has reached");
-            
-            if (isConnectionPoolError) {
+            if (isDuplicateVote(e)) {
+                // The unique key caught a vote the bitmap did not know about; keep the bit set.
+                task.resultFuture.completeExceptionally(rejection(VoteStatus.AlreadyVoted, task.vote, -1));
+                return;
+            }
+            if (unwrapUserException(e) instanceof CitizenAlreadyVoted) {
+                // Already recorded, here or by the other replica: the bit is right as it is.
                 task.resultFuture.completeExceptionally(e);
-            } else {
+                return;
+            }
+            if (claimedCitizenId >= 0) {
+                votedBitmap.clear(claimedCitizenId);
+            }
+            
+            // Pool timeouts are counted by the pool metrics rather than logged one by one.
+            if (!JPAUtil.isPoolTimeout(e)) {
                 System.err.println("Error processing vote for " + task.vote.citizenDocument + ": " + e.getMessage());
-                task.resultFuture.completeExceptionally(e);
             }
+            task.resultFuture.completeExceptionally(e);
         } finally {
-            if (votingEM != null) {
-                returnVotingEM(votingEM);
-            }
             if (electionsEM != null && electionsEM.isOpen()) {
                 electionsEM.close();
             }
@@ -413,89 +1154,90 @@ public class ServerImpl implements ServerService {
     
     @Override
     public String getProcessingStats(Current current) {
-        return String.format("Processed: %d, Primary queue: %d/%d, Pending: %d/%d, Workers: %d+%d, Active: %s", 
-                           processedVotes.get(), 
-                           voteQueue.size(), VOTE_QUEUE_CAPACITY,
-                           pendingQueue.size(), PENDING_QUEUE_CAPACITY,
-                           VOTE_PROCESSING_THREADS, PENDING_QUEUE_PROCESSORS,
-                           isPendingQueueActive.get());
+        return String.format("Processed: %d, Batches: %d, Ingest ring: %d/%d (%s), Rejected: %d, Writers: %d/%d busy, Batch size: %d, Linger: %dms, Sink: %s, Rollup: %s, Directory: %s, Voted bitmap: %s, Pools: %s, Active: %s", 
+                           processedVotes.get(), committedBatches.get(),
+                           ingestRing.size(), ingestRing.capacity(), ingestWaitStrategy,
+                           rejectedVotes.get(),
+                           voteWriterThreads - writerPermits.availablePermits(), voteWriterThreads,
+                           voteBatchSize, voteBatchLingerMs, voteSink,
+                           resultsRollup != null ? resultsRollup : "disabled",
+                           citizenDirectory != null 
+                               ? citizenDirectory.size() + " citizens (~" + (citizenDirectory.memoryBytes() >> 20) + " MiB)" 
+                               : "disabled",
+                           votedBitmap != null 
+                               ? votedBitmap.count() + "/" + votedBitmap.capacity() + " (" + (votedBitmap.memoryBytes() >> 10) + " KiB)" 
+                               : "disabled",
+                           JPAUtil.poolStats(),
+                           isIngestActive.get());
     }
 
     @Override
     public void printQueueStatus(Current current) {
         System.out.println("=== QUEUE STATUS ===");
         System.out.println("Processed votes: " + processedVotes.get());
-        System.out.println("Primary queue: " + voteQueue.size() + "/" + VOTE_QUEUE_CAPACITY + 
-                         " (" + String.format("%.1f", (double) voteQueue.size() / VOTE_QUEUE_CAPACITY * 100) + "%)");
-        System.out.println("Pending queue: " + pendingQueue.size() + "/" + PENDING_QUEUE_CAPACITY + 
-                         " (" + String.format("%.1f", (double) pendingQueue.size() / PENDING_QUEUE_CAPACITY * 100) + "%)");
-        System.out.println("Vote processing workers: " + VOTE_PROCESSING_THREADS + " active");
-        System.out.println("Pending queue workers: " + PENDING_QUEUE_PROCESSORS + " active");
-        System.out.println("Pending queue active: " + isPendingQueueActive.get());
+        System.out.println("Ingest ring: " + ingestRing.size() + "/" + ingestRing.capacity() + 
+                         " (" + String.format("%.1f", (double) ingestRing.size() / ingestRing.capacity() * 100) + "%, " + 
+                         ingestWaitStrategy + " wait)");
+        System.out.println("Rejected as overloaded: " + rejectedVotes.get() + " (next retry-after " + estimateRetryAfterMs() + "ms)");
+        System.out.println("Vote batch writers: " + (voteWriterThreads - writerPermits.availablePermits()) + "/" + voteWriterThreads + 
+                         " busy (batch size " + voteBatchSize + ", linger " + voteBatchLingerMs + "ms, " + voteSink + " sink, avg " + 
+                         String.format("%.1f", batchMillisAverage) + "ms/batch, " + committedBatches.get() + " batches committed)");
+        System.out.println("Ingestion active: " + isIngestActive.get());
+        System.out.println("Connection pools: " + JPAUtil.poolStats());
+        System.out.println("Results rollup: " + (resultsRollup != null ? resultsRollup : "disabled"));
+        System.out.println("Cache invalidation log: " + invalidationLog);
+        if (journal != null) {
+            System.out.println("Vote journal: " + journal.pendingEntries() + " uncommitted votes in " + journal.segmentCount() + 
+                             " segments, " + journalRetries.get() + " retries");
+        }
         System.out.println("===================");
     }
 
     public void shutdown() {
         System.out.println("Initiating ServerImpl shutdown...");
         
-        isPendingQueueActive.set(false);
-        
-        voteProcessingExecutor.shutdown();
-        pendingQueueProcessors.shutdown();
+        isIngestActive.set(false);
         
         try {
+            // The batcher stops once the ring is empty; anything left after the timeout is
+            // still in the journal and will be replayed on the next start.
+            ingestThread.join(TimeUnit.SECONDS.toMillis(30));
+            if (ingestThread.isAlive()) {
+                System.out.println("Force stopping vote ingestion with " + ingestRing.size() + " votes queued");
+                ingestThread.interrupt();
+            }
+            
+            voteProcessingExecutor.shutdown();
             if (!voteProcessingExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
                 System.out.println("Force shutting down vote processing executor");
                 voteProcessingExecutor.shutdownNow();
             }
             
-            if (!pendingQueueProcessors.awaitTermination(30, TimeUnit.SECONDS)) {
-                System.out.println("Force shutting down pending queue processors");
-                pendingQueueProcessors.shutdownNow();
+            queryExecutor.shutdown();
+            journalRetryScheduler.shutdownNow();
+            if (resultsRollup != null) {
+                resultsRollup.shutdown();
+            }
+            citizenCursors.shutdown();
+            invalidationLog.shutdown();
+            cacheInvalidations.shutdown();
+            
+            if (journal != null) {
+                journal.close();
+                System.out.println("Vote journal closed with " + journal.pendingEntries() + " votes pending replay");
             }
             
             System.out.println("ServerImpl shutdown completed");
             
         } catch (InterruptedException e) {
             System.out.println("Shutdown interrupted, forcing immediate shutdown");
+            ingestThread.interrupt();
             voteProcessingExecutor.shutdownNow();
-            pendingQueueProcessors.shutdownNow();
+            queryExecutor.shutdownNow();
             Thread.currentThread().interrupt();
         }
     }
 
-    private ElectionData convertElectionToElectionData(Election election) {
-        return new ElectionData(
-            election.getName(),
-            election.getStartTime().format(DateTimeFormatter.ISO_DATE_TIME),
-            election.getEndTime().format(DateTimeFormatter.ISO_DATE_TIME),
-            this.candidates.stream()
-                .map(this::convertCandidateToCandidateData)
-                .collect(Collectors.toList()).toArray(new CandidateData[0])
-        );
-    }
-
-    private VotingTableData convertVotingTableToVotingTableData(VotingTable votingTable) {
-        List<Citizen> citizensInTable = getOrLoadCitizensForTable(votingTable);
-        
-        return new VotingTableData(
-            votingTable.getId(),
-            citizensInTable.stream()
-                .map(this::convertCitizenToCitizenData)
-                .collect(Collectors.toList()).toArray(new CitizenData[0])
-        );
-    }
-
-    private CitizenData convertCitizenToCitizenData(Citizen citizen) {
-        return new CitizenData(
-            citizen.getId(),
-            citizen.getDocument(),
-            citizen.getFirstName(),
-            citizen.getLastName(),
-            citizen.getVotingTable().getId()
-        );
-    }
-
     @Override
     public CandidateData[] getCandidates(Current current) {
         if (this.candidates == null) {
@@ -506,42 +1248,115 @@ public class ServerImpl implements ServerService {
             return new CandidateData[0];
         }
         
-        return this.candidates.stream()
-            .map(this::convertCandidateToCandidateData)
-            .collect(Collectors.toList()).toArray(new CandidateData[0]);
-    }
-
-    private CandidateData convertCandidateToCandidateData(Candidate candidate) {
-        return new CandidateData(
-            candidate.getId(),
-            candidate.getFirstName(),
-            candidate.getLastName(),
-            candidate.getParty()
-        );
+        return ElectionDataConverter.toCandidateData(this.candidates);
     }
 
     @Override
     public String getCacheStats(Current current) {
-        long hits = cacheHits.get();
-        long misses = cacheMisses.get();
+        long hits = votingStationCache.hitCount();
+        long misses = votingStationCache.missCount();
         long total = hits + misses;
         double hitRate = total > 0 ? (double) hits / total * 100 : 0;
         
-        return String.format("Cache: %d entries, %.1f%% hit rate (%d hits, %d misses)",
-                votingStationCache.size(), hitRate, hits, misses);
+        return String.format("Cache: %d/%d entries, %.1f%% hit rate (%d hits, %d misses, %d evictions, %d expirations, %d coalesced)",
+                votingStationCache.size(), votingStationCache.maximumSize(), hitRate, hits, misses,
+                votingStationCache.evictionCount(), votingStationCache.expirationCount(), coalescedLookups.get());
     }
     
-    // Method to clear cache when necessary
+    // Clears this server's cache and tells the proxy caches to drop theirs, on both replicas.
     @Override
     public void clearCache(Current current) {
-        votingStationCache.clear();
-        cacheHits.set(0);
-        cacheMisses.set(0);
-        System.out.println("Voting station cache cleared");
+        applyInvalidation(null);
+        invalidationLog.appendAll();
+    }
+
+    // For when citizens are moved to another table: their current table is read back from the
+    // votaciones database first, then only their entries are dropped, here and in the proxies.
+    // The other replica does the same when it reads the invalidation from the log; if appending
+    // it fails the caller gets the error and can retry, which is harmless here.
+    @Override
+    public void invalidateDocuments(String[] documents, Current current) {
+        List<String> trimmed = new ArrayList<>(documents.length);
+        for (String document : documents) {
+            if (document != null && !document.trim().isEmpty()) {
+                trimmed.add(document.trim());
+            }
+        }
+        if (trimmed.isEmpty()) {
+            return;
+        }
+        
+        applyInvalidation(trimmed);
+        invalidationLog.append(trimmed);
+    }
+
+    // Applies an invalidation taken here or read from the log: null documents clear everything.
+    private void applyInvalidation(List<String> documents) {
+        if (documents == null) {
+            stationCacheGeneration.incrementAndGet();
+            stationLookupsInFlight.clear();
+            votingStationCache.clear();
+            coalescedLookups.set(0);
+            cacheInvalidations.invalidateAll();
+            System.out.println("Voting station cache cleared");
+            return;
+        }
+        
+        refreshCitizens(documents);
+        stationCacheGeneration.incrementAndGet();
+        for (String document : documents) {
+            stationLookupsInFlight.remove(document);
+            votingStationCache.invalidate(document);
+        }
+        cacheInvalidations.invalidate(documents);
+        System.out.println("Invalidated " + documents.size() + " cached voting station lookups");
+    }
+
+    // Tests poll on their own thread, where the database is mocked.
+    void pollCacheInvalidations() {
+        invalidationLog.poll();
+    }
+
+    // Without this the next lookup would refill the caches from the directory and polling places
+    // loaded at startup. A failure is passed on to the caller, who can retry the invalidation.
+    private void refreshCitizens(List<String> documents) {
+        Map<String, Integer> tableIds = new HashMap<>();
+        EntityManager votingEM = JPAUtil.getEntityManagerVoting();
+        try {
+            JPAUtil.executeInTransactionVoid(votingEM, votingEntityManager ->
+                citizenRepository.findCitizenKeysByDocuments(votingEntityManager, documents, (citizenId, document, tableId) -> {
+                    tableIds.put(document, tableId);
+                    if (citizenDirectory != null) {
+                        citizenDirectory.update(document, citizenId, tableId);
+                    }
+                }));
+        } finally {
+            votingEM.close();
+        }
+        
+        if (citizenDirectory != null) {
+            for (String document : documents) {
+                if (!tableIds.containsKey(document)) {
+                    citizenDirectory.remove(document);
+                }
+            }
+        }
+        // A citizen may have been moved to a table whose station changed too.
+        for (int tableId : new HashSet<>(tableIds.values())) {
+            votingTableRepository.findById(tableId)
+                .ifPresent(table -> pollingPlaces.put(tableId, ElectionDataConverter.toPollingPlace(table)));
+        }
     }
 
     @Override
-    public CandidateResult[] getGlobalResults(Current current) {
+    public CompletionStage<CandidateResult[]> getGlobalResultsAsync(Current current) {
+        if (tally != null) {
+            return CompletableFuture.completedFuture(computeGlobalResults());
+        }
+        return CompletableFuture.supplyAsync(this::computeGlobalResults, queryExecutor);
+    }
+
+    private CandidateResult[] computeGlobalResults() {
         if (this.candidates == null) {
             initElectionBasicData();
         }
@@ -550,17 +1365,18 @@ public class ServerImpl implements ServerService {
             return new CandidateResult[0];
         }
         
+        if (tally != null) {
+            return ElectionDataConverter.toCandidateResults(candidates, tally);
+        }
+        
         Map<Integer, Long> votesByCandidate = candidates.stream().collect(Collectors.toMap(
             Candidate::getId,
             c -> voteRepository.countByCandidateId(c.getId())
         ));
 
         return candidates.stream()
-            .map(c -> new CandidateResult(
-                c.getId(),
-                c.getFirstName() + " " + c.getLastName(),
-                votesByCandidate.getOrDefault(c.getId(), 0L).intValue()
-            )).toArray(CandidateResult[]::new);
+            .map(c -> ElectionDataConverter.toCandidateResult(c, votesByCandidate.getOrDefault(c.getId(), 0L)))
+            .toArray(CandidateResult[]::new);
     }
 
     @Override
@@ -569,6 +1385,10 @@ public class ServerImpl implements ServerService {
             initElectionBasicData();
         }
         
+        if (tally != null) {
+            return ElectionDataConverter.toTableResults(candidates, tally.votesByTable());
+        }
+        
         Map<Integer, Map<Integer, Integer>> rawVotes = voteRepository.countVotesGroupedByTableAndCandidate();
 
         Map<Integer, CandidateResult[]> tableResults = new HashMap<>();
@@ -579,8 +1399,7 @@ public class ServerImpl implements ServerService {
 
                 List<CandidateResult> results = new ArrayList<>();
                 for (Candidate c : candidates) {
-                    int count = candidateVotes.getOrDefault(c.getId(), 0);
-                    results.add(new CandidateResult(c.getId(), c.getFirstName() + " " + c.getLastName(), count));
+                    results.add(ElectionDataConverter.toCandidateResult(c, candidateVotes.getOrDefault(c.getId(), 0)));
                 }
                 tableResults.put(tableId, results.toArray(new CandidateResult[0]));
             }
@@ -590,18 +1409,65 @@ public class ServerImpl implements ServerService {
     }
 
     @Override
-    public CitizenData[] getCitizensByTableId(int tableId, Current current) {
+    public CompletionStage<CitizenData[]> getCitizensByTableIdAsync(int tableId, Current current) {
+        return CompletableFuture.supplyAsync(() -> loadCitizensByTable(tableId), queryExecutor);
+    }
+
+    private CitizenData[] loadCitizensByTable(int tableId) {
         try {
             List<Citizen> citizens = citizenRepository.findByVotingTableId(tableId);
-            return citizens.stream()
-                .map(this::convertCitizenToCitizenData)
-                .toArray(CitizenData[]::new);
+            return ElectionDataConverter.toCitizenData(citizens);
         } catch (Exception e) {
             System.err.println("Error getting citizens for table " + tableId + ": " + e.getMessage());
             return new CitizenData[0];
         }
     }
 
+    @Override
+    public CompletionStage<Long> openCitizenCursorAsync(int tableId, Current current) {
+        return runQuery(() -> {
+            long cursorId = citizenCursors.open(tableId);
+            if (cursorId < 0) {
+                throw new ServerOverloaded(maxRetryAfterMs, "Too many open citizen cursors");
+            }
+            return cursorId;
+        });
+    }
+
+    @Override
+    public CompletionStage<CitizenData[]> nextCitizensAsync(long cursorId, int maxCitizens, Current current) {
+        return runQuery(() -> {
+            CitizenData[] page = citizenCursors.next(cursorId, Math.max(1, Math.min(maxCitizens, maxCitizensPerPage)));
+            if (page == null) {
+                throw new CursorNotFound("Citizen cursor " + cursorId + " is closed or expired");
+            }
+            return page;
+        });
+    }
+
+    @Override
+    public void closeCitizenCursor(long cursorId, Current current) {
+        citizenCursors.close(cursorId);
+    }
+
+    // Like supplyAsync on the query executor, but a declared Ice exception thrown by the query
+    // completes the future unwrapped so the client receives it as such.
+    private <T> CompletableFuture<T> runQuery(Callable<T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            queryExecutor.execute(() -> {
+                try {
+                    result.complete(query.call());
+                } catch (Throwable t) {
+                    result.completeExceptionally(unwrapUserException(t));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new ServerOverloaded(maxRetryAfterMs, "Server is shutting down"));
+        }
+        return result;
+    }
+
     @Override
     public void subscribe(EventObserverPrx observer, String subscriberId, Current current) {
         if (observer == null) {
@@ -616,6 +1482,7 @@ public class ServerImpl implements ServerService {
 
         subscribers.put(subscriberId, observer);
         System.out.println("Subscriber " + subscriberId + " registered successfully");
+        cacheInvalidations.welcome(subscriberId, observer);
         
         if (this.currentElection != null) {
             try {
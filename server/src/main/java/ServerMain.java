@@ -4,6 +4,7 @@ import com.zeroc.Ice.Util;
 import com.zeroc.Ice.Properties;
 
 import utils.JPAUtil;
+import utils.ServerConfig;
 import repositories.elections.*;
 import repositories.votaciones.*;
 import repositories.elections.VotedCitizenRepository;
@@ -18,10 +19,14 @@ public class ServerMain {
             // Configure Ice for high concurrency - optimized for high volume
             Properties props = communicator.getProperties();
             
-            // Enhanced multi-threading in Ice for high volume
-            props.setProperty("Ice.ThreadPool.Server.Size", "100");
-            props.setProperty("Ice.ThreadPool.Server.SizeMax", "300");
-            props.setProperty("Ice.ThreadPool.Server.SizeWarn", "250");
+            // registerVote and the read RPCs are dispatched asynchronously (AMD) and hand their work
+            // to the vote pipeline / query pool, so a small dispatch pool is enough
+            props.setProperty("Ice.ThreadPool.Server.Size", 
+                props.getPropertyWithDefault("Ice.ThreadPool.Server.Size", "8"));
+            props.setProperty("Ice.ThreadPool.Server.SizeMax", 
+                props.getPropertyWithDefault("Ice.ThreadPool.Server.SizeMax", "32"));
+            props.setProperty("Ice.ThreadPool.Server.SizeWarn", 
+                props.getPropertyWithDefault("Ice.ThreadPool.Server.SizeWarn", "28"));
             
             // Optimize connection settings for high throughput
             props.setProperty("Ice.ACM.Timeout", "60");
@@ -40,6 +45,8 @@ public class ServerMain {
                 throw new RuntimeException("Server.Instance.Id property not found in configuration");
             }
             
+            ServerConfig.initialize(communicator);
+            
             System.out.println("ServerMain (" + instanceId + "): Initializing JPAUtil with connection pooling...");
             JPAUtil.initialize(communicator);
             System.out.println("ServerMain (" + instanceId + "): JPAUtil initialized.");
@@ -55,13 +62,13 @@ public class ServerMain {
             // Configure adapter for high throughput
             adapter.add(new ServerImpl(new ElectionRepository(), new CandidateRepository(), 
                        new VoteRepository(), new CitizenRepository(), new VotingTableRepository(), 
-                       new VotedCitizenRepository()), Util.stringToIdentity("ServerService"));
+                       new VotedCitizenRepository(), new CacheInvalidationRepository()), Util.stringToIdentity("ServerService"));
 
             System.out.println("ServerMain (" + instanceId + "): Activating adapter...");
             adapter.activate();
             
             System.out.println("ServerService (" + instanceId + ") ready with " + 
-                             props.getProperty("Ice.ThreadPool.Server.Size") + " threads (optimized for high volume).");
+                             props.getProperty("Ice.ThreadPool.Server.Size") + " dispatch threads (asynchronous dispatch).");
             
             communicator.waitForShutdown();
         } catch (Throwable t) {
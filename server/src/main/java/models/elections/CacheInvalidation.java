@@ -0,0 +1,28 @@
+package models.elections;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One clearCache or invalidateDocuments taken by a server replica, read back by the other replicas
+// (see services.elections.CacheInvalidationLog). Scope is "documents" or "all", as in the
+// CacheInvalidated events; documents are comma-separated. Rows are pruned after a while.
+@Entity
+@Table(name = "cache_invalidations")
+@Data
+public class CacheInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "scope", nullable = false, length = 16)
+    private String scope;
+
+    @Column(name = "documents", nullable = false, columnDefinition = "TEXT")
+    private String documents;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,26 @@
+package models.elections;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Votes per (table, candidate) of one committed batch, appended by the vote sinks (see
+// services.elections.PendingResults) and deleted by ResultsRollup when it folds them into
+// VoteTotal. Insert-only for the writers; never cached.
+@Entity
+@Table(name = "results_pending")
+@Data
+public class PendingResult {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "table_id", nullable = false)
+    private Integer tableId;
+
+    @Column(name = "candidate_id", nullable = false)
+    private Integer candidateId;
+
+    @Column(name = "votes", nullable = false)
+    private Long votes;
+}
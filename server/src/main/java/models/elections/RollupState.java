@@ -0,0 +1,21 @@
+package models.elections;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// The single row of results_rollup, locked by ResultsRollup so the replicas fold in turns.
+@Entity
+@Table(name = "results_rollup")
+@Data
+public class RollupState {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "rolled_at")
+    private LocalDateTime rolledAt;
+}
@@ -6,23 +6,23 @@ import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
+// Hash-partitioned on table_id in the database (see database/user.sql). Results never read this
+// table: they come from results_by_table_candidate plus results_pending (see VoteSink).
 @Entity
 @Table(name = "votes", indexes = {
-    @Index(name = "idx_vote_candidate", columnList = "candidate_id"),
-    @Index(name = "idx_vote_election", columnList = "election_id"),
-    @Index(name = "idx_vote_table", columnList = "table_id"),
-    @Index(name = "idx_vote_timestamp", columnList = "timestamp"),
-    @Index(name = "idx_vote_candidate_table", columnList = "candidate_id, table_id"), // For results by table
-    @Index(name = "idx_vote_election_timestamp", columnList = "election_id, timestamp"), // For temporal queries
-    @Index(name = "idx_vote_candidate_election", columnList = "candidate_id, election_id"), // For global results
-    @Index(name = "idx_vote_table_timestamp", columnList = "table_id, timestamp") // For table activity tracking
+    @Index(name = "idx_vote_table_candidate", columnList = "table_id, candidate_id")
 })
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 public class Vote {
 
+    // Ids are handed out in blocks: one nextval reserves ID_ALLOCATION_SIZE ids (pooled-lo, see
+    // JPAUtil), so inserts can be batched. The sequence must increment by the same amount.
+    public static final int ID_ALLOCATION_SIZE = 500;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "votes_id_seq")
+    @SequenceGenerator(name = "votes_id_seq", sequenceName = "votes_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name = "timestamp", nullable = false)
@@ -0,0 +1,36 @@
+package models.elections;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Votes per (table, candidate) folded in from results_pending by services.elections.ResultsRollup.
+// Never cached: the rollup updates it over JDBC.
+@Entity
+@Table(name = "results_by_table_candidate")
+@IdClass(VoteTotal.Key.class)
+@Data
+public class VoteTotal {
+
+    @Id
+    @Column(name = "table_id")
+    private Integer tableId;
+
+    @Id
+    @Column(name = "candidate_id")
+    private Integer candidateId;
+
+    @Column(name = "votes", nullable = false)
+    private Long votes;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Integer tableId;
+        private Integer candidateId;
+    }
+}
@@ -0,0 +1,77 @@
+package repositories.elections;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import utils.JPAUtil;
+
+/**
+ * The cache_invalidations log in the elections database, shared by the server replicas (see
+ * services.elections.CacheInvalidationLog). Plain native queries with a fresh EntityManager per
+ * call, like the other elections queries that run off the Ice threads.
+ */
+public class CacheInvalidationRepository {
+
+    @FunctionalInterface
+    public interface InvalidationConsumer {
+        void accept(long id, String scope, String documents);
+    }
+
+    /** Inserts one invalidation and returns its id. */
+    public long append(String scope, String documents) {
+        EntityManager entityManager = JPAUtil.getEntityManagerElections();
+        try {
+            return JPAUtil.executeInTransaction(entityManager, em ->
+                ((Number) em.createNativeQuery(
+                        "INSERT INTO cache_invalidations (scope, documents, created_at) VALUES (?1, ?2, ?3) RETURNING id")
+                    .setParameter(1, scope)
+                    .setParameter(2, documents)
+                    .setParameter(3, Timestamp.valueOf(LocalDateTime.now()))
+                    .getSingleResult()).longValue());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    public long findMaxId() {
+        EntityManager entityManager = JPAUtil.getEntityManagerElections();
+        try {
+            return JPAUtil.executeInTransaction(entityManager, em ->
+                ((Number) em.createNativeQuery("SELECT COALESCE(MAX(id), 0) FROM cache_invalidations").getSingleResult()).longValue());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /** Hands every invalidation with an id above {@code afterId} to the consumer, in id order. */
+    @SuppressWarnings("unchecked")
+    public void findAfter(long afterId, InvalidationConsumer consumer) {
+        EntityManager entityManager = JPAUtil.getEntityManagerElections();
+        try {
+            List<Object[]> rows = JPAUtil.executeInTransaction(entityManager, em ->
+                (List<Object[]>) em.createNativeQuery(
+                        "SELECT id, scope, documents FROM cache_invalidations WHERE id > ?1 ORDER BY id")
+                    .setParameter(1, afterId)
+                    .getResultList());
+            for (Object[] row : rows) {
+                consumer.accept(((Number) row[0]).longValue(), (String) row[1], (String) row[2]);
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    public int deleteOlderThan(LocalDateTime cutoff) {
+        EntityManager entityManager = JPAUtil.getEntityManagerElections();
+        try {
+            return JPAUtil.executeInTransaction(entityManager, em ->
+                em.createNativeQuery("DELETE FROM cache_invalidations WHERE created_at < ?1")
+                    .setParameter(1, Timestamp.valueOf(cutoff))
+                    .executeUpdate());
+        } finally {
+            entityManager.close();
+        }
+    }
+}
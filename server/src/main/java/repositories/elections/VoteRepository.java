@@ -51,28 +51,38 @@ public class VoteRepository extends GenericRepository<Vote, Integer> {
         );
     }
 
+    // Results are the rollup plus the counts not folded into it yet, read in one statement so both
+    // come from the same snapshot (see ResultsRollup).
     public long countByCandidateId(int candidateId) {
-        return JPAUtil.executeInTransaction(this.entityManager, em -> 
-            em.createQuery(
-                "SELECT COUNT(v) FROM Vote v WHERE v.candidate.id = :candidateId", 
-                Long.class)
+        return JPAUtil.executeInTransaction(this.entityManager, em -> {
+            Object count = em.createNativeQuery(
+                "SELECT COALESCE(SUM(votes), 0) FROM (" +
+                "SELECT votes FROM results_by_table_candidate WHERE candidate_id = :candidateId " +
+                "UNION ALL " +
+                "SELECT votes FROM results_pending WHERE candidate_id = :candidateId" +
+                ") counts")
                 .setParameter("candidateId", candidateId)
-                .getSingleResult()
-        );
+                .getSingleResult();
+            return ((Number) count).longValue();
+        });
     }
 
     public Map<Integer, Map<Integer, Integer>> countVotesGroupedByTableAndCandidate() {
         return JPAUtil.executeInTransaction(this.entityManager, em -> {
-            List<Object[]> results = em.createQuery(
-                "SELECT v.tableId, v.candidate.id, COUNT(v) FROM Vote v GROUP BY v.tableId, v.candidate.id",
-                Object[].class
+            @SuppressWarnings("unchecked")
+            List<Object[]> results = em.createNativeQuery(
+                "SELECT table_id, candidate_id, SUM(votes) FROM (" +
+                "SELECT table_id, candidate_id, votes FROM results_by_table_candidate " +
+                "UNION ALL " +
+                "SELECT table_id, candidate_id, votes FROM results_pending" +
+                ") counts GROUP BY table_id, candidate_id"
             ).getResultList();
 
             Map<Integer, Map<Integer, Integer>> tableToCandidateVotes = new HashMap<>();
             for (Object[] row : results) {
-                int tableId = (int) row[0];
-                int candidateId = (int) row[1];
-                long count = (long) row[2];
+                int tableId = ((Number) row[0]).intValue();
+                int candidateId = ((Number) row[1]).intValue();
+                long count = ((Number) row[2]).longValue();
 
                 tableToCandidateVotes
                     .computeIfAbsent(tableId, k -> new HashMap<>())
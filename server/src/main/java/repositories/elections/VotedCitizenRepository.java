@@ -1,11 +1,17 @@
 package repositories.elections;
 
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+import jakarta.persistence.EntityManager;
 import models.elections.VotedCitizen;
 import repositories.GenericRepository;
 import utils.JPAUtil;
 
 public class VotedCitizenRepository extends GenericRepository<VotedCitizen, Integer> {
 
+    private static final int STREAM_FETCH_SIZE = 10000;
+
     public VotedCitizenRepository() {
         super(JPAUtil.getEntityManagerElections(), VotedCitizen.class);
     }
@@ -15,4 +21,33 @@ public class VotedCitizenRepository extends GenericRepository<VotedCitizen, Inte
             return em.find(VotedCitizen.class, citizenId) != null;
         });
     }
-} 
\ No newline at end of file
+
+    public int findMaxCitizenId() {
+        EntityManager entityManager = JPAUtil.getEntityManagerElections();
+        try {
+            return JPAUtil.executeInTransaction(entityManager, em -> {
+                return ((Number) em.createNativeQuery("SELECT COALESCE(MAX(citizen_id), 0) FROM voted_citizens").getSingleResult()).intValue();
+            });
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void streamVotedCitizenIds(IntConsumer consumer) {
+        EntityManager entityManager = JPAUtil.getEntityManagerElections();
+        try {
+            JPAUtil.executeInTransactionVoid(entityManager, em -> {
+                jakarta.persistence.Query query = em.createNativeQuery("SELECT citizen_id FROM voted_citizens");
+                query.setHint("org.hibernate.readOnly", true);
+                query.setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE);
+
+                try (Stream<Object> rows = query.getResultStream()) {
+                    rows.forEach(row -> consumer.accept(((Number) row).intValue()));
+                }
+            });
+        } finally {
+            entityManager.close();
+        }
+    }
+}
\ No newline at end of file
@@ -6,12 +6,21 @@ import utils.JPAUtil;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class CitizenRepository {
     
@@ -20,13 +29,24 @@ public class CitizenRepository {
     private static final Map<String, Citizen> documentCache = new ConcurrentHashMap<>();
     private static final long CACHE_TTL = 300000;
     private static volatile long lastCacheUpdate = 0;
+    private static final int STREAM_FETCH_SIZE = 10000;
+
+    @FunctionalInterface
+    public interface CitizenKeyConsumer {
+        void accept(int citizenId, String document, int tableId);
+    }
+
+    @FunctionalInterface
+    public interface CitizenRowConsumer {
+        void accept(int citizenId, String document, String firstName, String lastName, int tableId);
+    }
 
     public static class CitizenValidationData {
-        public final Integer citizenId;
-        public final Integer tableId;
+        public final int citizenId;
+        public final int tableId;
         public final long cacheTime;
         
-        public CitizenValidationData(Integer citizenId, Integer tableId) {
+        public CitizenValidationData(int citizenId, int tableId) {
             this.citizenId = citizenId;
             this.tableId = tableId;
             this.cacheTime = System.currentTimeMillis();
@@ -161,6 +181,74 @@ public class CitizenRepository {
         });
     }
 
+    /**
+     * Voting table of each document in one round trip; documents that are not in the census are
+     * absent from the map.
+     */
+    public Map<String, Integer> findVotingTableIdsByDocuments(Collection<String> documents) {
+        if (documents.isEmpty()) {
+            return new HashMap<>();
+        }
+        return JPAUtil.executeReadOnlyQuery(em -> em.unwrap(Session.class).doReturningWork(connection -> {
+            Map<String, Integer> tableIds = new HashMap<>();
+            Array documentArray = connection.createArrayOf("varchar", documents.toArray());
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT documento, mesa_id FROM ciudadano WHERE documento = ANY(?)")) {
+                statement.setArray(1, documentArray);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        tableIds.put(rows.getString(1), rows.getInt(2));
+                    }
+                }
+            } finally {
+                documentArray.free();
+            }
+            return tableIds;
+        }));
+    }
+
+    /**
+     * Id and voting table of each document that is in the census, read as plain ints, on the
+     * caller's EntityManager.
+     */
+    public void findCitizenKeysByDocuments(EntityManager em, Collection<String> documents, CitizenKeyConsumer consumer) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        em.unwrap(Session.class).doWork(connection -> {
+            Array documentArray = connection.createArrayOf("varchar", documents.toArray());
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, documento, mesa_id FROM ciudadano WHERE documento = ANY(?)")) {
+                statement.setArray(1, documentArray);
+                try (ResultSet rows = statement.executeQuery()) {
+                    while (rows.next()) {
+                        consumer.accept(rows.getInt(1), rows.getString(2), rows.getInt(3));
+                    }
+                }
+            } finally {
+                documentArray.free();
+            }
+        });
+    }
+
+    /**
+     * The citizen's voting table with its station, municipality and department, in one query on
+     * the document index; null if the document is not in the census.
+     */
+    public VotingTable findVotingTableByDocument(String document) {
+        return JPAUtil.executeReadOnlyQuery(em -> {
+            List<VotingTable> tables = em.createQuery(
+                    "SELECT t FROM Citizen c JOIN c.votingTable t JOIN FETCH t.votingStation s " +
+                    "LEFT JOIN FETCH s.municipality m LEFT JOIN FETCH m.department " +
+                    "WHERE c.document = :document", VotingTable.class)
+                .setParameter("document", document)
+                .setHint("org.hibernate.readOnly", true)
+                .setMaxResults(1)
+                .getResultList();
+            return tables.isEmpty() ? null : tables.get(0);
+        });
+    }
+
     public Integer findVotingTableIdByDocument(String document) {
         return JPAUtil.executeReadOnlyQuery(em -> {
             try {
@@ -192,4 +280,118 @@ public class CitizenRepository {
             }
         });
     }
-}
\ No newline at end of file
+
+    public long countCitizens() {
+        return JPAUtil.executeReadOnlyQuery(em -> 
+            ((Number) em.createNativeQuery("SELECT COUNT(*) FROM ciudadano").getSingleResult()).longValue()
+        );
+    }
+
+    public int findMaxCitizenId() {
+        return JPAUtil.executeReadOnlyQuery(em -> 
+            ((Number) em.createNativeQuery("SELECT COALESCE(MAX(id), 0) FROM ciudadano").getSingleResult()).intValue()
+        );
+    }
+
+    // Forward-only scan of the census. Runs inside a transaction so the PostgreSQL driver honours
+    // the fetch size and streams rows instead of buffering the whole table.
+    @SuppressWarnings("unchecked")
+    public void streamCitizenKeys(CitizenKeyConsumer consumer) {
+        EntityManager entityManager = JPAUtil.getEntityManagerVoting();
+        try {
+            JPAUtil.executeInTransactionVoid(entityManager, em -> {
+                jakarta.persistence.Query query = em.createNativeQuery(
+                    "SELECT id, documento, mesa_id FROM ciudadano"
+                );
+                query.setHint("org.hibernate.readOnly", true);
+                query.setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE);
+
+                try (Stream<Object[]> rows = query.getResultStream()) {
+                    rows.forEach(row -> consumer.accept(
+                        ((Number) row[0]).intValue(),
+                        (String) row[1],
+                        row[2] != null ? ((Number) row[2]).intValue() : 0
+                    ));
+                }
+            });
+        } finally {
+            if (entityManager.isOpen()) {
+                entityManager.close();
+            }
+        }
+    }
+
+    /**
+     * Opens a forward-only scan of one voting table's citizens, ordered by id. The cursor keeps its
+     * own EntityManager and transaction (so the driver streams with the given fetch size) until it
+     * is exhausted or closed.
+     */
+    @SuppressWarnings("unchecked")
+    public CitizenCursor openCitizenCursor(int tableId, int fetchSize) {
+        EntityManager entityManager = JPAUtil.getEntityManagerVoting();
+        try {
+            entityManager.getTransaction().begin();
+            jakarta.persistence.Query query = entityManager.createNativeQuery(
+                "SELECT id, documento, nombre, apellido FROM ciudadano WHERE mesa_id = ? ORDER BY id"
+            );
+            query.setParameter(1, tableId);
+            query.setHint("org.hibernate.readOnly", true);
+            query.setHint("org.hibernate.fetchSize", fetchSize);
+
+            ScrollableResults<Object[]> rows = query.unwrap(org.hibernate.query.Query.class).scroll(ScrollMode.FORWARD_ONLY);
+            return new CitizenCursor(entityManager, rows, tableId);
+        } catch (RuntimeException e) {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+            throw e;
+        }
+    }
+
+    public static class CitizenCursor implements AutoCloseable {
+        private final EntityManager entityManager;
+        private final ScrollableResults<Object[]> rows;
+        private final int tableId;
+        private boolean exhausted;
+
+        private CitizenCursor(EntityManager entityManager, ScrollableResults<Object[]> rows, int tableId) {
+            this.entityManager = entityManager;
+            this.rows = rows;
+            this.tableId = tableId;
+        }
+
+        /** Reads up to {@code max} citizens; returns how many were read, 0 once the scan is done. */
+        public int next(int max, CitizenRowConsumer consumer) {
+            int read = 0;
+            while (read < max && !exhausted) {
+                if (!rows.next()) {
+                    exhausted = true;
+                    break;
+                }
+                Object[] row = rows.get();
+                consumer.accept(((Number) row[0]).intValue(), (String) row[1], (String) row[2], (String) row[3], tableId);
+                read++;
+            }
+            return read;
+        }
+
+        public boolean isExhausted() {
+            return exhausted;
+        }
+
+        @Override
+        public void close() {
+            try {
+                rows.close();
+                if (entityManager.getTransaction().isActive()) {
+                    entityManager.getTransaction().rollback();
+                }
+            } finally {
+                if (entityManager.isOpen()) {
+                    entityManager.close();
+                }
+            }
+        }
+    }
+}
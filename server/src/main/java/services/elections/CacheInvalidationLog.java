@@ -0,0 +1,165 @@
+package services.elections;
+
+import repositories.elections.CacheInvalidationRepository;
+import utils.JPAUtil;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Carries cache invalidations between the server replicas. The replica that takes
+ * invalidateDocuments or clearCache applies it and appends it to cache_invalidations; every
+ * replica polls the table and applies what the others appended, refreshing its own citizen
+ * directory and caches and telling its own proxy subscribers. A proxy subscribed to either
+ * replica thus sees every invalidation.
+ *
+ * Ids come from a sequence and a row with a lower id can commit after a higher one, so the poll
+ * does not just remember the highest id: it keeps the ids it applied above the first gap and
+ * waits up to GAP_WAIT_MS for the gap to fill before it gives up on it (a rolled back insert).
+ * Applying an invalidation twice is harmless, so the only cost of a race is an extra refresh.
+ */
+public class CacheInvalidationLog {
+
+    private static final long GAP_WAIT_MS = 10_000;
+    private static final long PRUNE_EVERY_MS = 60_000;
+
+    private final CacheInvalidationRepository repository;
+    private final long pollMs;
+    private final int retentionMinutes;
+    private final Consumer<List<String>> apply;
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cache-invalidation-log");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Every id up to settled has been applied or given up on; applied holds the ids above it.
+    private long settled;
+    private final TreeSet<Long> applied = new TreeSet<>();
+    private long gapSince;
+    private long lastPrune;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * {@code apply} gets the documents of an invalidation appended by another replica, or null
+     * when that replica cleared its whole cache. It runs on the polling thread; if it throws, the
+     * invalidation is applied again on the next poll.
+     */
+    public CacheInvalidationLog(CacheInvalidationRepository repository, int pollMs, int retentionMinutes,
+                                Consumer<List<String>> apply) {
+        this.repository = repository;
+        this.pollMs = Math.max(1, pollMs);
+        this.retentionMinutes = Math.max(1, retentionMinutes);
+        this.apply = apply;
+        // Read before the directory is loaded: whatever was appended earlier is already in the
+        // data this replica loads. If the table cannot be read, replay what it still keeps.
+        long start = 0;
+        try {
+            start = repository.findMaxId();
+        } catch (RuntimeException e) {
+            System.err.println("Cache invalidation log unavailable at startup, replaying it from the start: " + e.getMessage());
+        }
+        this.settled = start;
+    }
+
+    public void start() {
+        worker.scheduleWithFixedDelay(this::runOnce, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+
+    /** Records invalidated documents for the other replicas; a failure goes to the caller. */
+    public void append(Collection<String> documents) {
+        record(repository.append(CacheInvalidationPublisher.SCOPE_DOCUMENTS, String.join(",", documents)));
+    }
+
+    /** Records a full cache clear for the other replicas. */
+    public void appendAll() {
+        record(repository.append(CacheInvalidationPublisher.SCOPE_ALL, ""));
+    }
+
+    // This replica applied it before appending it; the poll skips it.
+    private synchronized void record(long id) {
+        if (id > settled) {
+            applied.add(id);
+        }
+        appended.incrementAndGet();
+    }
+
+    private void runOnce() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            if (!JPAUtil.isPoolTimeout(e)) {
+                System.err.println("Cache invalidation poll failed, retrying in " + pollMs + "ms: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Applies the invalidations the other replicas appended since the last poll. */
+    public synchronized void poll() {
+        try {
+            repository.findAfter(settled, (id, scope, documents) -> {
+                if (applied.contains(id)) {
+                    return;
+                }
+                if (CacheInvalidationPublisher.SCOPE_ALL.equals(scope)) {
+                    apply.accept(null);
+                } else if (documents != null && !documents.isEmpty()) {
+                    apply.accept(new ArrayList<>(Arrays.asList(documents.split(","))));
+                }
+                applied.add(id);
+                received.incrementAndGet();
+            });
+        } finally {
+            // Also after a failed apply: what was applied before it stays applied.
+            advance(System.currentTimeMillis());
+        }
+        prune(System.currentTimeMillis());
+    }
+
+    private void advance(long now) {
+        while (!applied.isEmpty() && applied.first() == settled + 1) {
+            settled = applied.pollFirst();
+        }
+        if (applied.isEmpty()) {
+            gapSince = 0;
+        } else if (gapSince == 0) {
+            gapSince = now;
+        } else if (now - gapSince >= GAP_WAIT_MS) {
+            settled = applied.first() - 1;
+            gapSince = 0;
+            advance(now);
+        }
+    }
+
+    private void prune(long now) {
+        if (now - lastPrune < PRUNE_EVERY_MS) {
+            return;
+        }
+        lastPrune = now;
+        // Both replicas prune; a replica that is down for longer reloads everything when it starts.
+        repository.deleteOlderThan(LocalDateTime.now().minusMinutes(retentionMinutes));
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("every %dms, applied up to id %d, %d appended, %d received from other replicas, %d failures",
+                             pollMs, settled, appended.get(), received.get(), failures.get());
+    }
+}
@@ -0,0 +1,139 @@
+package services.elections;
+
+import ElectionSystem.ElectionEvent;
+import ElectionSystem.EventObserverPrx;
+import ElectionSystem.EventType;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes CacheInvalidated events to the event subscribers (the proxy caches). Invalidated
+ * documents are collected for a short linger and sent as one oneway notify per subscriber, either
+ * the list of documents or, when everything was cleared or the list grew too long, a full flush.
+ *
+ * Event details: "scope" is "all" or "documents"; for the latter "documents" holds the
+ * comma-separated documents. Every event also carries "epoch", which identifies this server
+ * process, and "sequence", numbering its events from 1. A new subscriber gets an event of scope
+ * "none" whose sequence is that of the last event sent, so a proxy can tell whether it missed
+ * invalidations while it was down or unsubscribed.
+ */
+public class CacheInvalidationPublisher {
+
+    public static final String SCOPE = "scope";
+    public static final String SCOPE_ALL = "all";
+    public static final String SCOPE_DOCUMENTS = "documents";
+    public static final String SCOPE_NONE = "none";
+    public static final String DOCUMENTS = "documents";
+    public static final String EPOCH = "epoch";
+    public static final String SEQUENCE = "sequence";
+
+    private final Map<String, EventObserverPrx> subscribers;
+    private final int maxDocuments;
+    private final Set<String> pendingDocuments = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean pendingFlush = new AtomicBoolean();
+    private final String epoch = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+    private final ScheduledExecutorService publisher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cache-invalidation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CacheInvalidationPublisher(Map<String, EventObserverPrx> subscribers, int lingerMs, int maxDocuments) {
+        this.subscribers = subscribers;
+        this.maxDocuments = Math.max(1, maxDocuments);
+        long linger = Math.max(1, lingerMs);
+        publisher.scheduleWithFixedDelay(this::publish, linger, linger, TimeUnit.MILLISECONDS);
+    }
+
+    public void invalidate(Collection<String> documents) {
+        pendingDocuments.addAll(documents);
+    }
+
+    public void invalidateAll() {
+        pendingFlush.set(true);
+    }
+
+    /**
+     * Tells a new subscriber the position of the last event, on the publisher thread: every event
+     * numbered after it is sent to the subscriber, which is already registered.
+     */
+    public void welcome(String subscriberId, EventObserverPrx observer) {
+        publisher.execute(() -> {
+            Map<String, String> details = new HashMap<>();
+            details.put(SCOPE, SCOPE_NONE);
+            details.put(EPOCH, epoch);
+            details.put(SEQUENCE, String.valueOf(sequence.get()));
+            try {
+                observer.ice_oneway()._notify(event(details));
+            } catch (Exception e) {
+                System.err.println("Failed to send cache invalidation position to subscriber " + subscriberId + ": " + e.getMessage());
+                subscribers.remove(subscriberId, observer);
+            }
+        });
+    }
+
+    void publish() {
+        // Documents first, then the flag: a document added in between waits for the next round
+        // instead of being dropped by a flush that was read before it arrived.
+        List<String> documents = new ArrayList<>();
+        for (Iterator<String> it = pendingDocuments.iterator(); it.hasNext(); ) {
+            documents.add(it.next());
+            it.remove();
+        }
+        boolean flushAll = pendingFlush.getAndSet(false) || documents.size() > maxDocuments;
+        if (!flushAll && documents.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> details = new HashMap<>();
+        details.put(EPOCH, epoch);
+        details.put(SEQUENCE, String.valueOf(sequence.incrementAndGet()));
+        if (flushAll) {
+            details.put(SCOPE, SCOPE_ALL);
+        } else {
+            details.put(SCOPE, SCOPE_DOCUMENTS);
+            details.put(DOCUMENTS, String.join(",", documents));
+        }
+        ElectionEvent event = event(details);
+
+        for (Map.Entry<String, EventObserverPrx> subscriber : subscribers.entrySet()) {
+            try {
+                subscriber.getValue().ice_oneway()._notify(event);
+            } catch (Exception e) {
+                // Same as a failed welcome event; a proxy that is still alive subscribes again.
+                System.err.println("Failed to send cache invalidation to subscriber " + subscriber.getKey() + ": " + e.getMessage());
+                subscribers.remove(subscriber.getKey(), subscriber.getValue());
+            }
+        }
+        System.out.println("Cache invalidation sent to " + subscribers.size() + " subscribers: " +
+                         (flushAll ? "full flush" : documents.size() + " documents"));
+    }
+
+    private static ElectionEvent event(Map<String, String> details) {
+        return new ElectionEvent(
+            EventType.CacheInvalidated,
+            LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME),
+            details
+        );
+    }
+
+    public void shutdown() {
+        publisher.shutdownNow();
+    }
+}
@@ -0,0 +1,72 @@
+package services.elections;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Appends the votes per (table, candidate) of a batch to results_pending, in the transaction that
+ * writes the votes it counts, so results_by_table_candidate plus results_pending always matches
+ * the committed votes. Rows are only ever inserted here, one per key and batch: writers never
+ * update a shared row, and ResultsRollup folds them into results_by_table_candidate later.
+ */
+final class PendingResults {
+
+    // Three bind parameters per key, well below the driver's 32767.
+    private static final int MAX_KEYS_PER_STATEMENT = 1000;
+
+    private PendingResults() {
+    }
+
+    /** Counts the rows by (table, candidate), leaving out the citizens in {@code skipped}. */
+    static SortedMap<Long, int[]> count(List<VoteSink.Row> rows, Set<Integer> skipped) {
+        SortedMap<Long, int[]> counts = new TreeMap<>();
+        for (VoteSink.Row row : rows) {
+            if (!skipped.contains(row.citizenId)) {
+                counts.computeIfAbsent(key(row.tableId, row.candidateId), k -> new int[1])[0]++;
+            }
+        }
+        return counts;
+    }
+
+    /** Multi-row INSERT, one statement per thousand keys; plain SQL, so every sink can use it. */
+    static void append(Connection connection, SortedMap<Long, int[]> counts) throws SQLException {
+        List<Map.Entry<Long, int[]>> entries = new ArrayList<>(counts.entrySet());
+        for (int from = 0; from < entries.size(); from += MAX_KEYS_PER_STATEMENT) {
+            List<Map.Entry<Long, int[]>> chunk = entries.subList(from, Math.min(entries.size(), from + MAX_KEYS_PER_STATEMENT));
+            StringBuilder sql = new StringBuilder("INSERT INTO results_pending (table_id, candidate_id, votes) VALUES ");
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i > 0 ? ", (?, ?, ?)" : "(?, ?, ?)");
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                int parameter = 1;
+                for (Map.Entry<Long, int[]> entry : chunk) {
+                    statement.setInt(parameter++, tableId(entry.getKey()));
+                    statement.setInt(parameter++, candidateId(entry.getKey()));
+                    statement.setLong(parameter++, entry.getValue()[0]);
+                }
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    // Table and candidate ids are positive, so the long order is (table, candidate) order.
+    static long key(int tableId, int candidateId) {
+        return ((long) tableId << 32) | (candidateId & 0xFFFFFFFFL);
+    }
+
+    static int tableId(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int candidateId(long key) {
+        return (int) key;
+    }
+}
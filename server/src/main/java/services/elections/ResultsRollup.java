@@ -0,0 +1,180 @@
+package services.elections;
+
+import jakarta.persistence.EntityManager;
+import models.elections.RollupState;
+import org.hibernate.Session;
+import utils.JPAUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Folds the counts the vote sinks append to results_pending into results_by_table_candidate every
+ * few seconds. Results are the rollup plus whatever is still pending (see VoteRepository), so they
+ * never need a count over every vote, survive restarts and are the same from both replicas.
+ *
+ * There is no high-water mark: the pending rows are deleted and added to the rollup in one
+ * transaction, so a row is folded exactly once whatever order the writers committed in, and a row
+ * committed after the DELETE's snapshot is simply left for the next cycle. Both replicas run the
+ * worker: the state row lock makes them take turns.
+ */
+public class ResultsRollup {
+
+    private final long intervalSeconds;
+    private final Runnable afterRollup;
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "results-rollup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong rollups = new AtomicLong();
+    private final AtomicLong foldedVotes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile LocalDateTime lastRollup;
+
+    /** {@code afterRollup} runs on the worker thread after every successful cycle. */
+    public ResultsRollup(int intervalSeconds, Runnable afterRollup) {
+        this.intervalSeconds = Math.max(1, intervalSeconds);
+        this.afterRollup = afterRollup;
+    }
+
+    public void start() {
+        worker.scheduleWithFixedDelay(this::runOnce, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private void runOnce() {
+        try {
+            foldedVotes.addAndGet(rollUp());
+            rollups.incrementAndGet();
+            lastRollup = LocalDateTime.now();
+            afterRollup.run();
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            if (!JPAUtil.isPoolTimeout(e)) {
+                System.err.println("Results rollup failed, retrying in " + intervalSeconds + "s: " + e.getMessage());
+            }
+        }
+    }
+
+    /** Folds the pending counts committed so far; returns how many votes they add up to. */
+    long rollUp() {
+        EntityManager em = JPAUtil.getEntityManagerElections();
+        try {
+            return JPAUtil.executeInTransaction(em, electionsEM ->
+                electionsEM.unwrap(Session.class).doReturningWork(connection -> {
+                    lockState(connection);
+                    SortedMap<Long, long[]> counts = takePending(connection);
+                    if (counts.isEmpty()) {
+                        return 0L;
+                    }
+                    long folded = fold(connection, counts);
+                    try (PreparedStatement update = connection.prepareStatement(
+                            "UPDATE results_rollup SET rolled_at = ? WHERE id = ?")) {
+                        update.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
+                        update.setInt(2, RollupState.ID);
+                        update.executeUpdate();
+                    }
+                    return folded;
+                }));
+        } finally {
+            em.close();
+        }
+    }
+
+    // Creates the row on a database that does not have it yet; if the other replica creates it
+    // first this cycle fails on the key and the next one finds it.
+    private static void lockState(Connection connection) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT id FROM results_rollup WHERE id = ? FOR UPDATE")) {
+            select.setInt(1, RollupState.ID);
+            try (ResultSet row = select.executeQuery()) {
+                if (row.next()) {
+                    return;
+                }
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO results_rollup (id) VALUES (?)")) {
+            insert.setInt(1, RollupState.ID);
+            insert.executeUpdate();
+        }
+    }
+
+    // Rolled back with the rest of the cycle if the fold fails, so the rows are pending again.
+    private static SortedMap<Long, long[]> takePending(Connection connection) throws SQLException {
+        SortedMap<Long, long[]> counts = new TreeMap<>();
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM results_pending RETURNING table_id, candidate_id, votes");
+             ResultSet rows = delete.executeQuery()) {
+            while (rows.next()) {
+                counts.computeIfAbsent(PendingResults.key(rows.getInt(1), rows.getInt(2)), k -> new long[1])[0] += rows.getLong(3);
+            }
+        }
+        return counts;
+    }
+
+    // The state row lock keeps the other replica out, so a key that the UPDATE does not find can
+    // be inserted without racing anyone. Keys go in (table, candidate) order.
+    private static long fold(Connection connection, SortedMap<Long, long[]> counts) throws SQLException {
+        List<Map.Entry<Long, long[]>> entries = new ArrayList<>(counts.entrySet());
+        long folded = 0;
+        int[] updated;
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE results_by_table_candidate SET votes = votes + ? WHERE table_id = ? AND candidate_id = ?")) {
+            for (Map.Entry<Long, long[]> entry : entries) {
+                update.setLong(1, entry.getValue()[0]);
+                update.setInt(2, PendingResults.tableId(entry.getKey()));
+                update.setInt(3, PendingResults.candidateId(entry.getKey()));
+                update.addBatch();
+                folded += entry.getValue()[0];
+            }
+            updated = update.executeBatch();
+        }
+
+        boolean inserting = false;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO results_by_table_candidate (table_id, candidate_id, votes) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < entries.size(); i++) {
+                // Row counts are reported per statement; the driver does not rewrite batches.
+                if (updated[i] == 0) {
+                    Map.Entry<Long, long[]> entry = entries.get(i);
+                    insert.setInt(1, PendingResults.tableId(entry.getKey()));
+                    insert.setInt(2, PendingResults.candidateId(entry.getKey()));
+                    insert.setLong(3, entry.getValue()[0]);
+                    insert.addBatch();
+                    inserting = true;
+                }
+            }
+            if (inserting) {
+                insert.executeBatch();
+            }
+        }
+        return folded;
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    @Override
+    public String toString() {
+        LocalDateTime last = lastRollup;
+        return String.format("every %ds, last %s, %d rollups, %d votes folded, %d failures",
+                             intervalSeconds, last != null ? last.withNano(0) : "never",
+                             rollups.get(), foldedVotes.get(), failures.get());
+    }
+}
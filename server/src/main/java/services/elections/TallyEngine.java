@@ -0,0 +1,126 @@
+package services.elections;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Running vote counts per candidate and per (table, candidate), seeded from the results rollup
+ * (results_by_table_candidate plus results_pending), bumped by the writers after each commit and
+ * rebased on the database counts after every rollup. Counters are LongAdders so concurrent
+ * writers do not contend on a single cache line; reads sum the stripes and never touch the
+ * database.
+ */
+public class TallyEngine {
+
+    private final int[] candidateIds;
+    private final Map<Integer, Integer> indexByCandidate = new HashMap<>();
+    private final LongAdder[] global;
+    private final ConcurrentHashMap<Integer, LongAdder[]> byTable = new ConcurrentHashMap<>();
+
+    public TallyEngine(int[] candidateIds) {
+        this.candidateIds = candidateIds.clone();
+        this.global = newCounters();
+        for (int i = 0; i < candidateIds.length; i++) {
+            indexByCandidate.put(candidateIds[i], i);
+        }
+    }
+
+    /** Loads existing totals, as returned by VoteRepository.countVotesGroupedByTableAndCandidate. */
+    public void seed(Map<Integer, Map<Integer, Integer>> votesByTableAndCandidate) {
+        for (Map.Entry<Integer, Map<Integer, Integer>> table : votesByTableAndCandidate.entrySet()) {
+            for (Map.Entry<Integer, Integer> candidate : table.getValue().entrySet()) {
+                add(table.getKey(), candidate.getKey(), candidate.getValue());
+            }
+        }
+    }
+
+    /**
+     * Replaces the counts with the database's, which include the other replica's votes. Every
+     * counter is read before {@code read} runs and then moved by the difference, so the votes
+     * recorded meanwhile stay on top of the database counts instead of being overwritten. A vote
+     * committed just before the database is read can be counted twice until the next rebase; none
+     * is lost. Tables the database has no counts for are left as they are.
+     */
+    public void rebase(Supplier<Map<Integer, Map<Integer, Integer>>> read) {
+        // Global first: record bumps it before the table, so a racing vote is at worst kept twice.
+        long[] globalBefore = new long[global.length];
+        for (int i = 0; i < global.length; i++) {
+            globalBefore[i] = global[i].sum();
+        }
+        Map<Integer, long[]> tablesBefore = votesByTable();
+        Map<Integer, Map<Integer, Integer>> votesByTableAndCandidate = read.get();
+
+        long[] totals = new long[candidateIds.length];
+        for (Map.Entry<Integer, Map<Integer, Integer>> table : votesByTableAndCandidate.entrySet()) {
+            long[] votes = new long[candidateIds.length];
+            for (Map.Entry<Integer, Integer> candidate : table.getValue().entrySet()) {
+                Integer index = indexByCandidate.get(candidate.getKey());
+                if (index != null) {
+                    votes[index] = candidate.getValue();
+                }
+            }
+            long[] before = tablesBefore.remove(table.getKey());
+            LongAdder[] counters = byTable.computeIfAbsent(table.getKey(), k -> newCounters());
+            for (int i = 0; i < votes.length; i++) {
+                counters[i].add(votes[i] - (before != null ? before[i] : 0));
+                totals[i] += votes[i];
+            }
+        }
+        // What is left in tablesBefore was kept as it was, so it stays in the totals too.
+        for (long[] votes : tablesBefore.values()) {
+            for (int i = 0; i < votes.length; i++) {
+                totals[i] += votes[i];
+            }
+        }
+        for (int i = 0; i < totals.length; i++) {
+            global[i].add(totals[i] - globalBefore[i]);
+        }
+    }
+
+    public void record(int tableId, int candidateId) {
+        add(tableId, candidateId, 1);
+    }
+
+    private void add(int tableId, int candidateId, long votes) {
+        Integer index = indexByCandidate.get(candidateId);
+        if (index == null) {
+            return;
+        }
+        global[index].add(votes);
+        byTable.computeIfAbsent(tableId, k -> newCounters())[index].add(votes);
+    }
+
+    public long votesFor(int candidateId) {
+        Integer index = indexByCandidate.get(candidateId);
+        return index != null ? global[index].sum() : 0;
+    }
+
+    /** Votes per candidate for every table that has received at least one vote, in constructor order. */
+    public Map<Integer, long[]> votesByTable() {
+        Map<Integer, long[]> snapshot = new HashMap<>(byTable.size() * 2);
+        for (Map.Entry<Integer, LongAdder[]> entry : byTable.entrySet()) {
+            LongAdder[] counters = entry.getValue();
+            long[] votes = new long[counters.length];
+            for (int i = 0; i < counters.length; i++) {
+                votes[i] = counters[i].sum();
+            }
+            snapshot.put(entry.getKey(), votes);
+        }
+        return snapshot;
+    }
+
+    public int tableCount() {
+        return byTable.size();
+    }
+
+    private LongAdder[] newCounters() {
+        LongAdder[] counters = new LongAdder[candidateIds.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new LongAdder();
+        }
+        return counters;
+    }
+}
@@ -0,0 +1,498 @@
+package services.elections;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import ElectionSystem.VoteData;
+
+/**
+ * Write-ahead journal for accepted votes.
+ *
+ * Votes are appended to fixed-size, memory-mapped segment files (votes-NNNNNNNNNN.journal) and
+ * made durable by a single flusher thread that forces every dirty segment at once, so concurrent
+ * callers of {@link #append(VoteData)} share one fsync; their futures complete on the flusher. Each record carries a state byte that is
+ * flipped once the vote has been committed to the database (or rejected for good); a segment
+ * whose records are all done is deleted. Records still pending at startup are returned by
+ * {@link #recover()} so they can be fed back into the persistence pipeline.
+ *
+ * Record layout: int payloadLength, byte state, payload (document, candidateId, tableId, timestamp).
+ * A zero length marks the end of the written part of a segment; so does a record that does not
+ * decode, since nothing written after a torn or corrupt record can be trusted.
+ *
+ * A failed force does not stop the flusher: it fails the votes waiting on it with
+ * {@link FlushFailedException}, marking their records done since their callers will send them
+ * again, and retries with a growing delay. Until a force succeeds, appends fail fast the same way.
+ */
+public class VoteJournal {
+
+    private static final String SEGMENT_PREFIX = "votes-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int HEADER_BYTES = Integer.BYTES + 1;
+    private static final byte PENDING = 0;
+    private static final byte DONE = 1;
+    private static final long MIN_FLUSH_RETRY_MS = 100;
+    private static final long MAX_FLUSH_RETRY_MS = 5000;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long flushLingerMs;
+    private final ConcurrentHashMap<Long, Segment> segments = new ConcurrentHashMap<>();
+    private final Thread flusher;
+
+    private Segment current;
+    private long nextSegmentId;
+
+    // Guarded by this: sequence of the last appended record and of the last one made durable,
+    // and the appended entries still waiting for a force, in sequence order.
+    private long appendedSeq;
+    private long durableSeq;
+    private final ArrayDeque<Entry> awaitingFlush = new ArrayDeque<>();
+    private FlushFailedException flushFailure;
+    private long flushRetryMs = MIN_FLUSH_RETRY_MS;
+    private volatile boolean closed;
+
+    /** The journal cannot make records durable right now; the vote can be sent again later. */
+    public static class FlushFailedException extends IOException {
+        public final long retryAfterMs;
+
+        FlushFailedException(String message, Throwable cause, long retryAfterMs) {
+            super(message, cause);
+            this.retryAfterMs = retryAfterMs;
+        }
+    }
+
+    /** A journaled vote; pass it back to {@link #complete(Entry)} once it needs no replay. */
+    public static class Entry {
+        public final VoteData vote;
+        private final Segment segment;
+        private final int offset;
+        private final long seq;
+        private final CompletableFuture<Entry> durable = new CompletableFuture<>();
+
+        private Entry(VoteData vote, Segment segment, int offset, long seq) {
+            this.vote = vote;
+            this.segment = segment;
+            this.offset = offset;
+            this.seq = seq;
+        }
+    }
+
+    private static class Segment {
+        final long id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        final AtomicInteger pending = new AtomicInteger();
+        volatile boolean sealed;
+        boolean dirty;
+
+        Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    public VoteJournal(String directory, int segmentBytes, long flushLingerMs) throws IOException {
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentBytes;
+        this.flushLingerMs = flushLingerMs;
+        Files.createDirectories(this.directory);
+
+        this.flusher = new Thread(this::flushLoop, "vote-journal-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Opens the existing segments and returns their pending records, oldest first. New appends go
+     * to a fresh segment. Must be called once, before {@link #append(VoteData)}.
+     */
+    public synchronized List<Entry> recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                .filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX) && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+
+        List<Entry> recovered = new ArrayList<>();
+        for (Path file : files) {
+            long id = segmentId(file);
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            Segment segment = new Segment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+            segment.sealed = true;
+
+            MappedByteBuffer buffer = segment.buffer;
+            int position = 0;
+            while (position + HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(position);
+                if (length <= 0 || position + HEADER_BYTES + length > buffer.capacity()) {
+                    break;
+                }
+                byte state = buffer.get(position + Integer.BYTES);
+                if (state != PENDING && state != DONE) {
+                    System.err.println("Vote journal " + file + " has a corrupt record at offset " + position + ", ignoring the rest");
+                    break;
+                }
+                if (state == PENDING) {
+                    VoteData vote = decode(buffer, position + HEADER_BYTES, length);
+                    if (vote == null) {
+                        System.err.println("Vote journal " + file + " has a corrupt record at offset " + position + ", ignoring the rest");
+                        break;
+                    }
+                    segment.pending.incrementAndGet();
+                    recovered.add(new Entry(vote, segment, position, 0));
+                }
+                position += HEADER_BYTES + length;
+            }
+
+            if (segment.pending.get() == 0) {
+                delete(segment);
+            } else {
+                segments.put(id, segment);
+            }
+        }
+
+        current = openSegment();
+        flusher.start();
+        return recovered;
+    }
+
+    /** Appends the vote without blocking; the future completes once the record is on disk. */
+    public CompletableFuture<Entry> append(VoteData vote) {
+        int payloadLength = payloadLength(vote);
+        Entry entry;
+
+        synchronized (this) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IOException("Vote journal is closed"));
+            }
+            if (flushFailure != null) {
+                return CompletableFuture.failedFuture(flushFailure);
+            }
+            int recordBytes = HEADER_BYTES + payloadLength;
+            if (recordBytes + Integer.BYTES > segmentBytes) {
+                return CompletableFuture.failedFuture(
+                    new IOException("Vote record of " + payloadLength + " bytes does not fit in a journal segment"));
+            }
+            if (current.buffer.position() + recordBytes + Integer.BYTES > segmentBytes) {
+                try {
+                    rollSegment();
+                } catch (IOException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+
+            Segment segment = current;
+            int offset = segment.buffer.position();
+            // Payload and state first, length last: a torn record reads as end of segment.
+            segment.buffer.position(offset + HEADER_BYTES);
+            encode(vote, segment.buffer);
+            segment.buffer.put(offset + Integer.BYTES, PENDING);
+            segment.buffer.putInt(offset, payloadLength);
+            segment.pending.incrementAndGet();
+            segment.dirty = true;
+
+            entry = new Entry(vote, segment, offset, ++appendedSeq);
+            awaitingFlush.add(entry);
+            notifyAll();
+        }
+
+        return entry.durable;
+    }
+
+    /** Marks the vote as committed or definitively rejected; it will not be replayed. */
+    public void complete(Entry entry) {
+        Segment segment = entry.segment;
+        segment.buffer.put(entry.offset + Integer.BYTES, DONE);
+        if (segment.pending.decrementAndGet() == 0 && segment.sealed) {
+            retire(segment);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long target;
+            List<Segment> dirty = new ArrayList<>();
+            try {
+                synchronized (this) {
+                    while (appendedSeq == durableSeq && !closed) {
+                        wait();
+                    }
+                    if (closed && appendedSeq == durableSeq) {
+                        return;
+                    }
+                }
+                if (flushLingerMs > 0) {
+                    // Let concurrent appenders pile up so they share the next force.
+                    Thread.sleep(flushLingerMs);
+                }
+                synchronized (this) {
+                    target = appendedSeq;
+                    for (Segment segment : segments.values()) {
+                        if (segment.dirty) {
+                            segment.dirty = false;
+                            dirty.add(segment);
+                        }
+                    }
+                }
+                for (Segment segment : dirty) {
+                    force(segment.buffer);
+                }
+                List<Entry> flushed = new ArrayList<>();
+                synchronized (this) {
+                    if (flushFailure != null) {
+                        System.out.println("Vote journal flushing again, accepting votes");
+                        flushFailure = null;
+                        flushRetryMs = MIN_FLUSH_RETRY_MS;
+                    }
+                    durableSeq = Math.max(durableSeq, target);
+                    while (!awaitingFlush.isEmpty() && awaitingFlush.peek().seq <= durableSeq) {
+                        flushed.add(awaitingFlush.poll());
+                    }
+                }
+                for (Entry entry : flushed) {
+                    entry.durable.complete(entry);
+                }
+            } catch (InterruptedException e) {
+                failAwaiting(new IOException("Vote journal flusher interrupted"), false);
+                return;
+            } catch (RuntimeException e) {
+                if (!retryAfterFailedFlush(dirty, e)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Puts the segments back for the next force and waits before it; false once closed.
+    private boolean retryAfterFailedFlush(List<Segment> dirty, RuntimeException cause) {
+        FlushFailedException failure;
+        synchronized (this) {
+            for (Segment segment : dirty) {
+                segment.dirty = true;
+            }
+            failure = new FlushFailedException("Vote journal flush failed: " + cause.getMessage(), cause, flushRetryMs);
+            if (flushFailure == null) {
+                System.err.println("Vote journal flush failed, rejecting votes until it recovers: " + cause.getMessage());
+            }
+            flushFailure = failure;
+        }
+        failAwaiting(failure, true);
+
+        synchronized (this) {
+            try {
+                if (!closed) {
+                    wait(flushRetryMs);
+                }
+            } catch (InterruptedException e) {
+                return false;
+            }
+            flushRetryMs = Math.min(MAX_FLUSH_RETRY_MS, flushRetryMs * 2);
+            return !closed;
+        }
+    }
+
+    // Package-private so tests can make it fail.
+    void force(MappedByteBuffer buffer) {
+        buffer.force();
+    }
+
+    // With discard the records are marked done: their callers send the votes again, so replaying
+    // them as well would count them twice.
+    private void failAwaiting(IOException failure, boolean discard) {
+        List<Entry> failed;
+        synchronized (this) {
+            failed = new ArrayList<>(awaitingFlush);
+            awaitingFlush.clear();
+        }
+        for (Entry entry : failed) {
+            if (discard) {
+                complete(entry);
+            }
+            entry.durable.completeExceptionally(failure);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        Segment previous = current;
+        current = openSegment();
+        previous.sealed = true;
+        if (previous.pending.get() == 0) {
+            retire(previous);
+        }
+    }
+
+    private Segment openSegment() throws IOException {
+        long id = nextSegmentId++;
+        Path file = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        Segment segment = new Segment(id, file, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void retire(Segment segment) {
+        if (segments.remove(segment.id, segment)) {
+            delete(segment);
+        }
+    }
+
+    private void delete(Segment segment) {
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            System.err.println("Could not delete journal segment " + segment.path + ": " + e.getMessage());
+        }
+    }
+
+    public int pendingEntries() {
+        int pending = 0;
+        for (Segment segment : segments.values()) {
+            pending += segment.pending.get();
+        }
+        return pending;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /** Flushes what was appended and stops the flusher. Pending records stay on disk for replay. */
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failAwaiting(new IOException("Vote journal closed before the vote was flushed"), false);
+        for (Segment segment : segments.values()) {
+            try {
+                segment.buffer.force();
+                segment.channel.close();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Could not close journal segment " + segment.path + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static int payloadLength(VoteData vote) {
+        return Integer.BYTES * 4 + utf8Length(vote.citizenDocument) + utf8Length(vote.timestamp);
+    }
+
+    // Written straight into the segment so that appending a vote allocates only its Entry.
+    private static void encode(VoteData vote, ByteBuffer buffer) {
+        putString(buffer, vote.citizenDocument);
+        buffer.putInt(vote.candidateId);
+        buffer.putInt(vote.tableId);
+        putString(buffer, vote.timestamp);
+    }
+
+    // UTF-8 as String.getBytes writes it, an unpaired surrogate becoming '?'.
+    private static int utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        buffer.putInt(utf8Length(value));
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | c >> 6));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xF0 | codePoint >> 18));
+                buffer.put((byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | c >> 12));
+                buffer.put((byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put((byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+
+    // Null if the payload does not decode to exactly one vote.
+    private static VoteData decode(MappedByteBuffer segment, int offset, int length) {
+        try {
+            ByteBuffer buffer = segment.duplicate();
+            buffer.limit(offset + length).position(offset);
+            String document = string(buffer);
+            int candidateId = buffer.getInt();
+            int tableId = buffer.getInt();
+            String timestamp = string(buffer);
+            return buffer.hasRemaining() ? null : new VoteData(document, candidateId, tableId, timestamp);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // The length is checked against the record before allocating: a corrupt prefix must not turn
+    // into a negative or huge array.
+    private static String string(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("bad string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
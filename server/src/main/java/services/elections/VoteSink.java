@@ -0,0 +1,247 @@
+package services.elections;
+
+import jakarta.persistence.EntityManager;
+import models.elections.Candidate;
+import models.elections.Election;
+import models.elections.Vote;
+import models.elections.VotedCitizen;
+import org.hibernate.Session;
+import org.postgresql.PGConnection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * How accepted votes reach the elections database: one voted_citizens row and one votes row per
+ * vote, plus the matching counts in results_pending (see PendingResults), written in the caller's
+ * transaction. ResultsRollup folds those counts into results_by_table_candidate later.
+ *
+ * There are three sinks. Jpa persists entities, flushed as JDBC batches of
+ * hibernate.jdbc.batch_size. Insert sends multi-row INSERTs over JDBC. Copy streams both tables
+ * with binary COPY. Insert and copy are PostgreSQL only.
+ */
+public interface VoteSink {
+
+    final class Row {
+        public final int citizenId;
+        public final int candidateId;
+        public final int tableId;
+
+        public Row(int citizenId, int candidateId, int tableId) {
+            this.citizenId = citizenId;
+            this.candidateId = candidateId;
+            this.tableId = tableId;
+        }
+    }
+
+    /**
+     * Writes the rows and returns the citizens that turned out to be in voted_citizens already;
+     * their votes were not written. A sink that cannot tell fails with the unique key violation
+     * instead, rolling back the transaction.
+     */
+    Set<Integer> write(EntityManager em, int electionId, LocalDateTime timestamp, List<Row> rows) throws SQLException;
+
+    static VoteSink named(String name) {
+        switch (name.toLowerCase()) {
+            case "jpa":
+                return new Jpa();
+            case "insert":
+                return new Insert();
+            case "copy":
+                return new Copy();
+            default:
+                throw new IllegalArgumentException("Unknown vote sink: " + name);
+        }
+    }
+
+    class Jpa implements VoteSink {
+        @Override
+        public Set<Integer> write(EntityManager em, int electionId, LocalDateTime timestamp, List<Row> rows) {
+            Election election = em.getReference(Election.class, electionId);
+            for (Row row : rows) {
+                em.persist(new VotedCitizen(row.citizenId));
+
+                Vote vote = new Vote();
+                vote.setCandidate(em.getReference(Candidate.class, row.candidateId));
+                vote.setTableId(row.tableId);
+                vote.setTimestamp(timestamp);
+                vote.setElection(election);
+                em.persist(vote);
+            }
+            em.flush();
+            em.unwrap(Session.class).doWork(connection ->
+                PendingResults.append(connection, PendingResults.count(rows, Collections.emptySet())));
+            return Collections.emptySet();
+        }
+
+        @Override
+        public String toString() {
+            return "jpa";
+        }
+    }
+
+    // ON CONFLICT DO NOTHING RETURNING tells which citizens were recorded by this statement, so a
+    // citizen who voted through the other replica costs one rejected vote, not a batch rollback.
+    class Insert implements VoteSink {
+        // Well below the driver's 32767 bind parameters per statement.
+        private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+        @Override
+        public Set<Integer> write(EntityManager em, int electionId, LocalDateTime timestamp, List<Row> rows) {
+            return em.unwrap(Session.class).doReturningWork(connection -> {
+                Set<Integer> alreadyVoted = new HashSet<>();
+                for (int from = 0; from < rows.size(); from += MAX_ROWS_PER_STATEMENT) {
+                    List<Row> chunk = rows.subList(from, Math.min(rows.size(), from + MAX_ROWS_PER_STATEMENT));
+                    Set<Integer> recorded = insertVotedCitizens(connection, chunk);
+                    int written = 0;
+                    for (Row row : chunk) {
+                        if (recorded.contains(row.citizenId)) {
+                            written++;
+                        } else {
+                            alreadyVoted.add(row.citizenId);
+                        }
+                    }
+                    if (written > 0) {
+                        insertVotes(connection, chunk, recorded, electionId, timestamp, written);
+                    }
+                }
+                PendingResults.append(connection, PendingResults.count(rows, alreadyVoted));
+                return alreadyVoted;
+            });
+        }
+
+        private static Set<Integer> insertVotedCitizens(Connection connection, List<Row> rows) throws SQLException {
+            StringBuilder sql = new StringBuilder("INSERT INTO voted_citizens (citizen_id) VALUES ");
+            appendTuples(sql, rows.size(), "(?)");
+            sql.append(" ON CONFLICT DO NOTHING RETURNING citizen_id");
+
+            Set<Integer> recorded = new HashSet<>(rows.size() * 2);
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                int parameter = 1;
+                for (Row row : rows) {
+                    statement.setInt(parameter++, row.citizenId);
+                }
+                try (ResultSet inserted = statement.executeQuery()) {
+                    while (inserted.next()) {
+                        recorded.add(inserted.getInt(1));
+                    }
+                }
+            }
+            return recorded;
+        }
+
+        private static void insertVotes(Connection connection, List<Row> rows, Set<Integer> recorded,
+                                        int electionId, LocalDateTime timestamp, int count) throws SQLException {
+            StringBuilder sql = new StringBuilder("INSERT INTO votes (timestamp, candidate_id, election_id, table_id) VALUES ");
+            appendTuples(sql, count, "(?, ?, ?, ?)");
+
+            Timestamp time = Timestamp.valueOf(timestamp);
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                int parameter = 1;
+                for (Row row : rows) {
+                    if (!recorded.contains(row.citizenId)) {
+                        continue;
+                    }
+                    statement.setTimestamp(parameter++, time);
+                    statement.setInt(parameter++, row.candidateId);
+                    statement.setInt(parameter++, electionId);
+                    statement.setInt(parameter++, row.tableId);
+                }
+                statement.executeUpdate();
+            }
+        }
+
+        private static void appendTuples(StringBuilder sql, int count, String tuple) {
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    sql.append(", ");
+                }
+                sql.append(tuple);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "insert";
+        }
+    }
+
+    // Binary COPY has no ON CONFLICT: a citizen already in voted_citizens fails the whole COPY with
+    // the unique key violation, and the caller retries the votes one by one.
+    class Copy implements VoteSink {
+        private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+        private static final LocalDateTime POSTGRES_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+        @Override
+        public Set<Integer> write(EntityManager em, int electionId, LocalDateTime timestamp, List<Row> rows) {
+            // timestamp without time zone travels as microseconds since 2000-01-01 local time.
+            long micros = ChronoUnit.MICROS.between(POSTGRES_EPOCH, timestamp);
+            em.unwrap(Session.class).doWork(connection -> {
+                try {
+                    ByteArrayOutputStream citizens = new ByteArrayOutputStream(19 + rows.size() * 10 + 2);
+                    DataOutputStream citizenOut = startCopy(citizens);
+                    for (Row row : rows) {
+                        citizenOut.writeShort(1);
+                        writeInt(citizenOut, row.citizenId);
+                    }
+                    copy(connection, "COPY voted_citizens (citizen_id) FROM STDIN (FORMAT binary)", citizens, citizenOut);
+
+                    ByteArrayOutputStream votes = new ByteArrayOutputStream(19 + rows.size() * 38 + 2);
+                    DataOutputStream voteOut = startCopy(votes);
+                    for (Row row : rows) {
+                        voteOut.writeShort(4);
+                        voteOut.writeInt(Long.BYTES);
+                        voteOut.writeLong(micros);
+                        writeInt(voteOut, row.candidateId);
+                        writeInt(voteOut, electionId);
+                        writeInt(voteOut, row.tableId);
+                    }
+                    copy(connection, "COPY votes (timestamp, candidate_id, election_id, table_id) FROM STDIN (FORMAT binary)", votes, voteOut);
+                    PendingResults.append(connection, PendingResults.count(rows, Collections.emptySet()));
+                } catch (IOException e) {
+                    throw new SQLException("Could not encode COPY data: " + e.getMessage(), e);
+                }
+            });
+            return Collections.emptySet();
+        }
+
+        private static DataOutputStream startCopy(ByteArrayOutputStream buffer) throws IOException {
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.write(SIGNATURE);
+            out.writeInt(0); // flags
+            out.writeInt(0); // header extension length
+            return out;
+        }
+
+        private static void writeInt(DataOutputStream out, int value) throws IOException {
+            out.writeInt(Integer.BYTES);
+            out.writeInt(value);
+        }
+
+        private static void copy(Connection connection, String sql, ByteArrayOutputStream buffer,
+                                 DataOutputStream out) throws SQLException, IOException {
+            out.writeShort(-1); // trailer
+            out.flush();
+            connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn(sql, new ByteArrayInputStream(buffer.toByteArray()));
+        }
+
+        @Override
+        public String toString() {
+            return "copy";
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package services.elections;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent "already voted" set indexed by citizen id, one bit per citizen packed into long words
+ * and updated with CAS. 40 million citizens cost 5 MB. Ids outside [0, capacity) are not covered
+ * and must be checked against voted_citizens instead.
+ */
+public class VotedCitizenBitmap {
+
+    private final AtomicLongArray words;
+    private final int capacity;
+    private final LongAdder count = new LongAdder();
+
+    public VotedCitizenBitmap(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.words = new AtomicLongArray((this.capacity + 63) >>> 6);
+    }
+
+    public boolean covers(int citizenId) {
+        return citizenId >= 0 && citizenId < capacity;
+    }
+
+    /** Marks the citizen as voted. Returns false if the bit was already set. */
+    public boolean trySet(int citizenId) {
+        int index = citizenId >>> 6;
+        long mask = 1L << citizenId;
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) != 0) {
+                return false;
+            }
+        } while (!words.compareAndSet(index, word, word | mask));
+        count.increment();
+        return true;
+    }
+
+    /** Undoes {@link #trySet(int)} for a vote whose transaction did not commit. */
+    public void clear(int citizenId) {
+        int index = citizenId >>> 6;
+        long mask = 1L << citizenId;
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) == 0) {
+                return;
+            }
+        } while (!words.compareAndSet(index, word, word & ~mask));
+        count.decrement();
+    }
+
+    public boolean isSet(int citizenId) {
+        return (words.get(citizenId >>> 6) & (1L << citizenId)) != 0;
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public long memoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+}
@@ -0,0 +1,133 @@
+package services.votaciones;
+
+import ElectionSystem.CitizenData;
+import repositories.votaciones.CitizenRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Open citizen cursors handed out to voting tables and control centers. Each one pins a database
+ * connection, so their number is capped and cursors left idle (a client that crashed mid-scan)
+ * are closed by a reaper.
+ */
+public class CitizenCursorRegistry {
+
+    private static class OpenCursor {
+        final CitizenRepository.CitizenCursor cursor;
+        volatile long lastUsedNanos = System.nanoTime();
+
+        OpenCursor(CitizenRepository.CitizenCursor cursor) {
+            this.cursor = cursor;
+        }
+    }
+
+    private final CitizenRepository citizenRepository;
+    private final int fetchSize;
+    private final long idleNanos;
+    private final Map<Long, OpenCursor> cursors = new ConcurrentHashMap<>();
+    // One permit per cursor, taken before the connection is pinned and returned once it is
+    // released; checking the map size instead lets concurrent opens overshoot the cap.
+    private final Semaphore openSlots;
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "citizen-cursor-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CitizenCursorRegistry(CitizenRepository citizenRepository, int fetchSize, int maxOpen, int idleSeconds) {
+        this.citizenRepository = citizenRepository;
+        this.fetchSize = Math.max(1, fetchSize);
+        this.openSlots = new Semaphore(Math.max(1, maxOpen));
+        this.idleNanos = TimeUnit.SECONDS.toNanos(Math.max(1, idleSeconds));
+        long period = Math.max(1, idleSeconds / 2);
+        reaper.scheduleWithFixedDelay(this::closeIdle, period, period, TimeUnit.SECONDS);
+    }
+
+    /** Returns the new cursor id, or -1 if too many cursors are open. */
+    public long open(int tableId) {
+        if (!openSlots.tryAcquire()) {
+            return -1;
+        }
+        CitizenRepository.CitizenCursor cursor;
+        try {
+            cursor = citizenRepository.openCitizenCursor(tableId, fetchSize);
+        } catch (RuntimeException e) {
+            openSlots.release();
+            throw e;
+        }
+        long id;
+        do {
+            // Not sequential, so a client cannot read another one's cursor by guessing.
+            id = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+        } while (cursors.putIfAbsent(id, new OpenCursor(cursor)) != null);
+        return id;
+    }
+
+    /**
+     * Up to {@code max} citizens from the cursor; an empty array means the scan is over and the
+     * cursor has been closed. Returns null for an unknown or expired cursor.
+     */
+    public CitizenData[] next(long cursorId, int max) {
+        OpenCursor open = cursors.get(cursorId);
+        if (open == null) {
+            return null;
+        }
+
+        List<CitizenData> page = new ArrayList<>(Math.min(Math.max(0, max), fetchSize));
+        synchronized (open) {
+            if (cursors.get(cursorId) != open) {
+                return null;
+            }
+            open.lastUsedNanos = System.nanoTime();
+            open.cursor.next(max, (citizenId, document, firstName, lastName, tableId) ->
+                page.add(new CitizenData(citizenId, document, firstName, lastName, tableId)));
+        }
+
+        if (page.isEmpty()) {
+            close(cursorId);
+        }
+        return page.toArray(new CitizenData[0]);
+    }
+
+    public void close(long cursorId) {
+        OpenCursor open = cursors.remove(cursorId);
+        if (open != null) {
+            try {
+                synchronized (open) {
+                    open.cursor.close();
+                }
+            } finally {
+                openSlots.release();
+            }
+        }
+    }
+
+    public int openCount() {
+        return cursors.size();
+    }
+
+    private void closeIdle() {
+        long now = System.nanoTime();
+        for (Map.Entry<Long, OpenCursor> entry : cursors.entrySet()) {
+            if (now - entry.getValue().lastUsedNanos > idleNanos) {
+                System.out.println("Closing idle citizen cursor " + entry.getKey());
+                close(entry.getKey());
+            }
+        }
+    }
+
+    public void shutdown() {
+        reaper.shutdownNow();
+        for (Long cursorId : cursors.keySet()) {
+            close(cursorId);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package services.votaciones;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Census index: document -> (citizenId, tableId).
+ *
+ * Numeric documents of up to 17 digits are packed into a sorted long[] (value * 32 + digit count,
+ * so "0123" and "123" stay distinct) with parallel int[] arrays for the ids, i.e. 16 bytes per
+ * citizen: a census of 40 million costs about 610 MiB of heap and no per-entry objects. Documents
+ * that do not fit that encoding are kept in a small side map. A document added more than once keeps
+ * the entry with the highest citizen id.
+ *
+ * The arrays are fixed once built. Citizens moved, added or removed afterwards are recorded with
+ * {@link #update} in a map of corrections that lookups check first.
+ */
+public class CitizenDirectory {
+
+    public static final long NOT_FOUND = Long.MIN_VALUE;
+
+    private static final int MAX_PACKED_DIGITS = 17;
+    private static final int BYTES_PER_ENTRY = Long.BYTES + 2 * Integer.BYTES;
+
+    private final long[] keys;
+    private final int[] citizenIds;
+    private final int[] tableIds;
+    private final Map<String, Long> unpacked;
+    private final int maxCitizenId;
+    // Document -> entry, or NOT_FOUND for a citizen no longer in the census.
+    private final Map<String, Long> corrections = new ConcurrentHashMap<>();
+
+    private CitizenDirectory(long[] keys, int[] citizenIds, int[] tableIds, Map<String, Long> unpacked, int maxCitizenId) {
+        this.keys = keys;
+        this.citizenIds = citizenIds;
+        this.tableIds = tableIds;
+        this.unpacked = unpacked;
+        this.maxCitizenId = maxCitizenId;
+    }
+
+    /**
+     * Returns the citizen as a packed entry (see {@link #citizenId(long)} and {@link #tableId(long)}),
+     * or {@link #NOT_FOUND}. Does not allocate for numeric documents.
+     */
+    public long lookup(String document) {
+        if (document == null) {
+            return NOT_FOUND;
+        }
+        if (!corrections.isEmpty()) {
+            Long corrected = corrections.get(document);
+            if (corrected != null) {
+                return corrected;
+            }
+        }
+        long key = pack(document);
+        if (key < 0) {
+            Long entry = unpacked.get(document);
+            return entry != null ? entry : NOT_FOUND;
+        }
+        int index = Arrays.binarySearch(keys, key);
+        return index >= 0 ? entry(citizenIds[index], tableIds[index]) : NOT_FOUND;
+    }
+
+    /** Records the citizen's current table; it overrides what the directory was built with. */
+    public void update(String document, int citizenId, int tableId) {
+        corrections.put(document, entry(citizenId, tableId));
+    }
+
+    /** Records that the document is no longer in the census. */
+    public void remove(String document) {
+        corrections.put(document, NOT_FOUND);
+    }
+
+    public static int citizenId(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    public static int tableId(long entry) {
+        return (int) entry;
+    }
+
+    public int size() {
+        return keys.length + unpacked.size();
+    }
+
+    public int maxCitizenId() {
+        return maxCitizenId;
+    }
+
+    public long memoryBytes() {
+        // Side-map and correction entries are rough estimates (map node + String + boxed Long).
+        return (long) keys.length * BYTES_PER_ENTRY + (unpacked.size() + corrections.size()) * 96L;
+    }
+
+    private static long entry(int citizenId, int tableId) {
+        return ((long) citizenId << 32) | (tableId & 0xFFFFFFFFL);
+    }
+
+    /** Packs a digits-only document into a non-negative key, or returns -1 if it does not fit. */
+    static long pack(String document) {
+        int length = document.length();
+        if (length == 0 || length > MAX_PACKED_DIGITS) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = document.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value * 32 + length;
+    }
+
+    public static Builder builder(int expectedSize) {
+        return new Builder(expectedSize);
+    }
+
+    public static class Builder {
+        private long[] keys;
+        private int[] citizenIds;
+        private int[] tableIds;
+        private int size;
+        private int maxCitizenId;
+        private final Map<String, Long> unpacked = new HashMap<>();
+
+        private Builder(int expectedSize) {
+            int capacity = Math.max(16, expectedSize);
+            this.keys = new long[capacity];
+            this.citizenIds = new int[capacity];
+            this.tableIds = new int[capacity];
+        }
+
+        public void add(String document, int citizenId, int tableId) {
+            if (document == null) {
+                return;
+            }
+            maxCitizenId = Math.max(maxCitizenId, citizenId);
+            long key = pack(document);
+            if (key < 0) {
+                unpacked.merge(document, entry(citizenId, tableId),
+                               (kept, added) -> citizenId(kept) >= citizenId(added) ? kept : added);
+                return;
+            }
+            if (size == keys.length) {
+                int capacity = size + (size >> 1);
+                keys = Arrays.copyOf(keys, capacity);
+                citizenIds = Arrays.copyOf(citizenIds, capacity);
+                tableIds = Arrays.copyOf(tableIds, capacity);
+            }
+            keys[size] = key;
+            citizenIds[size] = citizenId;
+            tableIds[size] = tableId;
+            size++;
+        }
+
+        public CitizenDirectory build() {
+            long[] finalKeys = size == keys.length ? keys : Arrays.copyOf(keys, size);
+            int[] finalCitizenIds = size == citizenIds.length ? citizenIds : Arrays.copyOf(citizenIds, size);
+            int[] finalTableIds = size == tableIds.length ? tableIds : Arrays.copyOf(tableIds, size);
+            keys = null;
+            citizenIds = null;
+            tableIds = null;
+
+            sort(finalKeys, finalCitizenIds, finalTableIds, 0, size - 1);
+            int distinct = collapseDuplicates(finalKeys, finalCitizenIds, finalTableIds, size);
+            if (distinct < size) {
+                finalKeys = Arrays.copyOf(finalKeys, distinct);
+                finalCitizenIds = Arrays.copyOf(finalCitizenIds, distinct);
+                finalTableIds = Arrays.copyOf(finalTableIds, distinct);
+            }
+            return new CitizenDirectory(finalKeys, finalCitizenIds, finalTableIds, unpacked, maxCitizenId);
+        }
+
+        // Equal keys are adjacent once sorted; keeps the highest citizen id of each run, in place.
+        // Returns the number of entries left.
+        private static int collapseDuplicates(long[] keys, int[] citizenIds, int[] tableIds, int size) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (kept > 0 && keys[kept - 1] == keys[i]) {
+                    if (citizenIds[i] > citizenIds[kept - 1]) {
+                        citizenIds[kept - 1] = citizenIds[i];
+                        tableIds[kept - 1] = tableIds[i];
+                    }
+                    continue;
+                }
+                keys[kept] = keys[i];
+                citizenIds[kept] = citizenIds[i];
+                tableIds[kept] = tableIds[i];
+                kept++;
+            }
+            return kept;
+        }
+
+        // Quicksort on the keys, moving the parallel id arrays along. Recurses into the smaller
+        // half only, so the stack stays O(log n) for tens of millions of entries.
+        private static void sort(long[] keys, int[] a, int[] b, int low, int high) {
+            while (high - low > 16) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle] < keys[low]) swap(keys, a, b, middle, low);
+                if (keys[high] < keys[low]) swap(keys, a, b, high, low);
+                if (keys[high] < keys[middle]) swap(keys, a, b, high, middle);
+                long pivot = keys[middle];
+
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (keys[i] < pivot) i++;
+                    while (keys[j] > pivot) j--;
+                    if (i <= j) {
+                        swap(keys, a, b, i, j);
+                        i++;
+                        j--;
+                    }
+                }
+
+                if (j - low < high - i) {
+                    sort(keys, a, b, low, j);
+                    low = i;
+                } else {
+                    sort(keys, a, b, i, high);
+                    high = j;
+                }
+            }
+            for (int i = low + 1; i <= high; i++) {
+                for (int j = i; j > low && keys[j] < keys[j - 1]; j--) {
+                    swap(keys, a, b, j, j - 1);
+                }
+            }
+        }
+
+        private static void swap(long[] keys, int[] a, int[] b, int i, int j) {
+            long key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+            int value = a[i];
+            a[i] = a[j];
+            a[j] = value;
+            value = b[i];
+            b[i] = b[j];
+            b[j] = value;
+        }
+    }
+}
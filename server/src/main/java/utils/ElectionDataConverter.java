@@ -0,0 +1,129 @@
+package utils;
+
+import ElectionSystem.CandidateData;
+import ElectionSystem.CandidateResult;
+import ElectionSystem.CitizenData;
+import ElectionSystem.ElectionData;
+import ElectionSystem.PollingPlace;
+import ElectionSystem.VotingTableData;
+import models.elections.Candidate;
+import models.elections.Election;
+import models.votaciones.Citizen;
+import models.votaciones.Department;
+import models.votaciones.Municipality;
+import models.votaciones.VotingStation;
+import models.votaciones.VotingTable;
+import services.elections.TallyEngine;
+
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entity to Ice struct conversions used by ServerImpl when answering control centers and query
+ * stations. Kept stateless and separate so they can be measured on their own.
+ */
+public class ElectionDataConverter {
+
+    private ElectionDataConverter() {
+    }
+
+    public static ElectionData toElectionData(Election election, List<Candidate> candidates) {
+        return new ElectionData(
+            election.getName(),
+            election.getStartTime().format(DateTimeFormatter.ISO_DATE_TIME),
+            election.getEndTime().format(DateTimeFormatter.ISO_DATE_TIME),
+            toCandidateData(candidates)
+        );
+    }
+
+    public static VotingTableData toVotingTableData(VotingTable votingTable, List<Citizen> citizens) {
+        return new VotingTableData(votingTable.getId(), toCitizenData(citizens));
+    }
+
+    public static CitizenData[] toCitizenData(List<Citizen> citizens) {
+        CitizenData[] data = new CitizenData[citizens.size()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = toCitizenData(citizens.get(i));
+        }
+        return data;
+    }
+
+    public static CitizenData toCitizenData(Citizen citizen) {
+        return new CitizenData(
+            citizen.getId(),
+            citizen.getDocument(),
+            citizen.getFirstName(),
+            citizen.getLastName(),
+            citizen.getVotingTable().getId()
+        );
+    }
+
+    public static PollingPlace toPollingPlace(VotingTable votingTable) {
+        VotingStation station = votingTable.getVotingStation();
+        Municipality municipality = station != null ? station.getMunicipality() : null;
+        Department department = municipality != null ? municipality.getDepartment() : null;
+        return new PollingPlace(
+            true,
+            votingTable.getId(),
+            station != null ? station.getId() : 0,
+            station != null ? nullToEmpty(station.getName()) : "",
+            station != null ? nullToEmpty(station.getAddress()) : "",
+            municipality != null ? nullToEmpty(municipality.getName()) : "",
+            department != null ? nullToEmpty(department.getName()) : ""
+        );
+    }
+
+    public static CandidateData[] toCandidateData(List<Candidate> candidates) {
+        CandidateData[] data = new CandidateData[candidates.size()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = toCandidateData(candidates.get(i));
+        }
+        return data;
+    }
+
+    public static CandidateData toCandidateData(Candidate candidate) {
+        return new CandidateData(
+            candidate.getId(),
+            candidate.getFirstName(),
+            candidate.getLastName(),
+            candidate.getParty()
+        );
+    }
+
+    public static CandidateResult toCandidateResult(Candidate candidate, long votes) {
+        return new CandidateResult(
+            candidate.getId(),
+            candidate.getFirstName() + " " + candidate.getLastName(),
+            (int) votes
+        );
+    }
+
+    public static CandidateResult[] toCandidateResults(List<Candidate> candidates, TallyEngine tally) {
+        CandidateResult[] results = new CandidateResult[candidates.size()];
+        for (int i = 0; i < results.length; i++) {
+            Candidate candidate = candidates.get(i);
+            results[i] = toCandidateResult(candidate, tally.votesFor(candidate.getId()));
+        }
+        return results;
+    }
+
+    /** @param votesByTable as returned by {@link TallyEngine#votesByTable()}, in candidate order */
+    public static Map<Integer, CandidateResult[]> toTableResults(List<Candidate> candidates, Map<Integer, long[]> votesByTable) {
+        Map<Integer, CandidateResult[]> tableResults = new HashMap<>(votesByTable.size() * 2);
+        for (Map.Entry<Integer, long[]> entry : votesByTable.entrySet()) {
+            long[] votes = entry.getValue();
+            CandidateResult[] results = new CandidateResult[votes.length];
+            for (int i = 0; i < votes.length; i++) {
+                results[i] = toCandidateResult(candidates.get(i), votes[i]);
+            }
+            tableResults.put(entry.getKey(), results);
+        }
+        return tableResults;
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
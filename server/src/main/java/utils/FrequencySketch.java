@@ -0,0 +1,105 @@
+package utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate access frequency of keys: a count-min sketch of four rows of 4-bit counters, packed
+ * sixteen to a long. Once the number of increments reaches ten times the cache size every counter
+ * is halved, so the sketch tracks recent popularity instead of all-time totals.
+ *
+ * Increments are CAS loops on the packed words and never block; a lost race only makes the
+ * estimate slightly lower, which the admission policy tolerates.
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS = {
+        0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final AtomicLongArray table;
+    private final int rowMask;
+    private final int rowWidth;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+
+    FrequencySketch(int maximumSize) {
+        // Four counters per cached entry and row. Narrower rows let one-off keys that collide with
+        // hot ones look hot too, and sampled eviction would never pick them as victims.
+        int width = Integer.highestOneBit(Math.max(16, 4 * Math.min(maximumSize, 1 << 26) - 1)) << 1;
+        this.rowWidth = width;
+        this.rowMask = width - 1;
+        this.table = new AtomicLongArray(width * SEEDS.length / 16);
+        this.sampleSize = (int) Math.min(Integer.MAX_VALUE / 2, 10L * Math.max(1, maximumSize));
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            frequency = Math.min(frequency, counterAt(indexOf(hash, row)));
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            added |= incrementAt(indexOf(hash, row));
+        }
+        // Exactly one thread sees the count hit the threshold, so only one of them halves.
+        if (added && additions.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < table.length(); i++) {
+            table.set(i, 0);
+        }
+        additions.set(0);
+    }
+
+    private int counterAt(int index) {
+        return (int) (table.get(index >>> 4) >>> ((index & 15) << 2)) & 0xf;
+    }
+
+    private boolean incrementAt(int index) {
+        int word = index >>> 4;
+        int shift = (index & 15) << 2;
+        while (true) {
+            long value = table.get(word);
+            if (((value >>> shift) & 0xf) == MAX_COUNT) {
+                return false;
+            }
+            if (table.compareAndSet(word, value, value + (1L << shift))) {
+                return true;
+            }
+        }
+    }
+
+    // Halves every counter. Concurrent increments may land before or after, either is fine.
+    private void reset() {
+        additions.updateAndGet(count -> count / 2);
+        for (int i = 0; i < table.length(); i++) {
+            long value;
+            do {
+                value = table.get(i);
+            } while (!table.compareAndSet(i, value, (value >>> 1) & RESET_MASK));
+        }
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return row * rowWidth + ((int) h & rowMask);
+    }
+
+    private static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
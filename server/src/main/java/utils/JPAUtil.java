@@ -4,16 +4,24 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import com.zeroc.Ice.Communicator;
 import com.zeroc.Ice.Properties;
 
+import java.sql.SQLTransientConnectionException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class JPAUtil {
 
     private static EntityManagerFactory emfVoting;
     private static EntityManagerFactory emfElections;
+    private static HikariDataSource votingPool;
+    private static HikariDataSource electionsPool;
+    private static final PoolMetrics votingMetrics = new PoolMetrics("votaciones");
+    private static final PoolMetrics electionsMetrics = new PoolMetrics("elections");
     private static final Object lock = new Object();
     private static Communicator communicator;
 
@@ -29,66 +37,61 @@ public class JPAUtil {
 
     private static void createEntityManagerFactories() {
         try {
-            Map<String, String> baseProperties = new HashMap<>();
-            baseProperties.put("jakarta.persistence.jdbc.driver", "org.postgresql.Driver");
-            baseProperties.put("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
+            Properties config = communicator.getProperties();
+
+            // Driver, dialect and schema handling default to PostgreSQL; the benchmarks point them
+            // at an in-memory H2 database instead.
+            Map<String, Object> baseProperties = new HashMap<>();
+            baseProperties.put("hibernate.dialect", config.getPropertyWithDefault("database.dialect", "org.hibernate.dialect.PostgreSQLDialect"));
             baseProperties.put("hibernate.show_sql", "false");
             baseProperties.put("hibernate.format_sql", "false");
             
-            // Aggressive connection pooling optimization to prevent saturation
-            baseProperties.put("hibernate.connection.pool_size", "10"); // Drastically reduced
             baseProperties.put("hibernate.jdbc.batch_size", "50");
             baseProperties.put("hibernate.order_inserts", "true");
             baseProperties.put("hibernate.order_updates", "true");
             baseProperties.put("hibernate.jdbc.batch_versioned_data", "true");
+            // Sequence ids: the value read is the low end of the block (pooled-lo), so rows inserted
+            // with the column default in between never collide. A sequence that was not migrated
+            // to the entity's increment is followed rather than rejected at startup.
+            baseProperties.put("hibernate.id.optimizer.pooled.preferred", "pooled-lo");
+            baseProperties.put("hibernate.id.sequence.increment_size_mismatch_strategy", "fix");
             
             baseProperties.put("hibernate.cache.use_second_level_cache", "false");
             baseProperties.put("hibernate.cache.use_query_cache", "false");
             
-            baseProperties.put("hibernate.connection.provider_disables_autocommit", "false"); // Enable autocommit for reads
             baseProperties.put("hibernate.jdbc.lob.non_contextual_creation", "true");
             
-            // Optimized C3P0 settings to prevent connection saturation
-            baseProperties.put("hibernate.c3p0.min_size", "5");  // Minimum connections
-            baseProperties.put("hibernate.c3p0.max_size", "15"); // Maximum connections - much lower
-            baseProperties.put("hibernate.c3p0.timeout", "60");  // Shorter timeout
-            baseProperties.put("hibernate.c3p0.max_statements", "200");
-            baseProperties.put("hibernate.c3p0.idle_test_period", "10");
-            baseProperties.put("hibernate.c3p0.acquire_increment", "1"); // Only get 1 connection at a time
-            baseProperties.put("hibernate.c3p0.max_statements_per_connection", "20");
-            baseProperties.put("hibernate.c3p0.checkout_timeout", "1000"); // 1 second timeout
-            
             // PostgreSQL-specific optimizations for read queries
             baseProperties.put("hibernate.jdbc.use_get_generated_keys", "false");
             baseProperties.put("hibernate.jdbc.use_streams_for_binary", "false");
             baseProperties.put("hibernate.jdbc.use_scrollable_resultset", "false");
             baseProperties.put("hibernate.jdbc.fetch_size", "1"); // Minimal fetch size
 
-            Properties config = communicator.getProperties();
-
-            // EntityManagerFactory for votaciones with aggressive read optimization
-            Map<String, String> votingProps = new HashMap<>(baseProperties);
-            votingProps.put("hibernate.hbm2ddl.auto", "validate");
-            votingProps.put("jakarta.persistence.jdbc.user", config.getProperty("database.votaciones.user"));
-            votingProps.put("jakarta.persistence.jdbc.password", config.getProperty("database.votaciones.password"));
-            votingProps.put("jakarta.persistence.jdbc.url", config.getProperty("database.votaciones.url"));
-            
-            // Read-only optimization settings
-            votingProps.put("hibernate.connection.isolation", "1"); // READ_UNCOMMITTED for maximum speed
+            // votaciones is read traffic: station lookups, vote validation and citizen cursors,
+            // each open cursor holding a connection. Autocommit, uncommitted reads.
+            votingPool = createPool(config, "votaciones", votingMetrics, 32, true);
+            Map<String, Object> votingProps = new HashMap<>(baseProperties);
+            votingProps.put("hibernate.hbm2ddl.auto", config.getPropertyWithDefault("database.votaciones.schema", "validate"));
+            votingProps.put("hibernate.connection.datasource", votingPool);
+            votingProps.put("hibernate.connection.provider_disables_autocommit", "false");
             votingProps.put("hibernate.default_read_only", "true");
-            votingProps.put("hibernate.connection.autocommit", "true");
             
             emfVoting = Persistence.createEntityManagerFactory("VotingPU", votingProps);
 
-            // EntityManagerFactory for Application DB (votos, candidatos, elecciones, etc)
-            Map<String, String> electionProps = new HashMap<>(baseProperties);
-            electionProps.put("hibernate.hbm2ddl.auto", "update");
-            electionProps.put("jakarta.persistence.jdbc.user", config.getProperty("database.elections.user"));
-            electionProps.put("jakarta.persistence.jdbc.password", config.getProperty("database.elections.password"));
-            electionProps.put("jakarta.persistence.jdbc.url", config.getProperty("database.elections.url"));
+            // elections is write traffic: one connection per vote batch writer plus the tally and
+            // result queries. Connections come out of the pool with autocommit already off.
+            electionsPool = createPool(config, "elections", electionsMetrics, 16, false);
+            Map<String, Object> electionProps = new HashMap<>(baseProperties);
+            electionProps.put("hibernate.hbm2ddl.auto", config.getPropertyWithDefault("database.elections.schema", "update"));
+            electionProps.put("hibernate.connection.datasource", electionsPool);
+            electionProps.put("hibernate.connection.provider_disables_autocommit", "true");
+            // votes and results_by_table_candidate are partitioned tables; without this the schema
+            // tool does not see them as tables and tries to create them again.
+            electionProps.put("hibernate.hbm2ddl.extra_physical_table_types", "PARTITIONED TABLE");
             emfElections = Persistence.createEntityManagerFactory("ElectionPU", electionProps);
 
-            System.out.println("EntityManagerFactories initialized with connection-optimized settings");
+            System.out.println("EntityManagerFactories initialized with pools of " + votingPool.getMaximumPoolSize() +
+                             " (votaciones) and " + electionsPool.getMaximumPoolSize() + " (elections) connections");
 
         } catch (Exception e) {
             System.err.println("Error initializing JPA: " + e.getMessage());
@@ -97,6 +100,38 @@ public class JPAUtil {
         }
     }
 
+    // Sized from database.<name>.pool.*. With PostgreSQL the driver keeps its own per-connection
+    // cache of server-side prepared statements, so repeated queries skip parsing and planning.
+    private static HikariDataSource createPool(Properties config, String name, PoolMetrics metrics,
+                                               int defaultMaxSize, boolean readTraffic) {
+        String prefix = "database." + name + ".";
+
+        HikariConfig pool = new HikariConfig();
+        pool.setPoolName(name);
+        pool.setDriverClassName(config.getPropertyWithDefault("database.driver", "org.postgresql.Driver"));
+        pool.setJdbcUrl(config.getProperty(prefix + "url"));
+        pool.setUsername(config.getProperty(prefix + "user"));
+        pool.setPassword(config.getProperty(prefix + "password"));
+        pool.setMaximumPoolSize(Math.max(1, config.getPropertyAsIntWithDefault(prefix + "pool.MaxSize", defaultMaxSize)));
+        pool.setMinimumIdle(Math.max(0, Math.min(pool.getMaximumPoolSize(),
+                                                 config.getPropertyAsIntWithDefault(prefix + "pool.MinIdle", pool.getMaximumPoolSize() / 4))));
+        pool.setConnectionTimeout(Math.max(250, config.getPropertyAsIntWithDefault(prefix + "pool.ConnectionTimeoutMs", 2000)));
+        pool.setIdleTimeout(TimeUnit.SECONDS.toMillis(Math.max(10, config.getPropertyAsIntWithDefault(prefix + "pool.IdleTimeoutSeconds", 300))));
+        pool.setAutoCommit(readTraffic);
+        if (readTraffic) {
+            pool.setTransactionIsolation("TRANSACTION_READ_UNCOMMITTED");
+        }
+        if (pool.getDriverClassName().equals("org.postgresql.Driver")) {
+            pool.addDataSourceProperty("prepareThreshold", config.getPropertyAsIntWithDefault(prefix + "pool.PrepareThreshold", 1));
+            pool.addDataSourceProperty("preparedStatementCacheQueries", config.getPropertyAsIntWithDefault(prefix + "pool.StatementCacheSize", 256));
+        }
+        pool.setMetricsTrackerFactory((poolName, poolStats) -> metrics);
+
+        HikariDataSource dataSource = new HikariDataSource(pool);
+        metrics.attach(dataSource);
+        return dataSource;
+    }
+
     public static EntityManager getEntityManagerVoting() {
         if (emfVoting == null) {
             throw new IllegalStateException("JPAUtil has not been initialized. Call initialize() first.");
@@ -132,7 +167,37 @@ public class JPAUtil {
                 emfElections.close();
                 System.out.println("Elections EntityManagerFactory closed");
             }
+            if (votingPool != null) {
+                votingPool.close();
+            }
+            if (electionsPool != null) {
+                electionsPool.close();
+            }
+        }
+    }
+
+    /** Maximum connections of the votaciones pool, 0 before {@link #initialize}. */
+    public static int votingPoolSize() {
+        return votingPool != null ? votingPool.getMaximumPoolSize() : 0;
+    }
+
+    /** Maximum connections of the elections pool, 0 before {@link #initialize}. */
+    public static int electionsPoolSize() {
+        return electionsPool != null ? electionsPool.getMaximumPoolSize() : 0;
+    }
+
+    public static String poolStats() {
+        return votingMetrics + "; " + electionsMetrics;
+    }
+
+    /** Whether the failure is a connection that could not be had within the pool's timeout. */
+    public static boolean isPoolTimeout(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientConnectionException) {
+                return true;
+            }
         }
+        return false;
     }
 
     public static <T> T executeInTransaction(EntityManager em, TransactionCallback<T> callback) {
@@ -0,0 +1,117 @@
+package utils;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded multi-producer, single-consumer queue on a power-of-two ring.
+ *
+ * Producers claim a slot by CAS on the tail and publish it by bumping the slot's sequence number
+ * (Vyukov's bounded queue), so {@link #offer(Object)} never blocks and fails fast when the ring is
+ * full. Only one thread may call the consuming methods.
+ */
+public class MpscRingBuffer<E> {
+
+    private final Object[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final WaitStrategy waitStrategy;
+
+    public MpscRingBuffer(int requestedCapacity, WaitStrategy waitStrategy) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.slots = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        this.waitStrategy = waitStrategy;
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /** Returns false without blocking if the ring is full. */
+    public boolean offer(E element) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+        slots[index] = element;
+        sequences.set(index, position + 1);
+        waitStrategy.signal();
+        return true;
+    }
+
+    /** Consumer only. */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long position = head.get();
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = (E) slots[index];
+        slots[index] = null;
+        sequences.lazySet(index, position + slots.length);
+        head.lazySet(position + 1);
+        return element;
+    }
+
+    /** Consumer only. Waits with the configured strategy. */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E element = poll();
+        if (element != null) {
+            return element;
+        }
+        if (!awaitNotEmpty(System.nanoTime() + unit.toNanos(timeout))) {
+            return null;
+        }
+        return poll();
+    }
+
+    /** Consumer only. */
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        int drained = 0;
+        E element;
+        while (drained < maxElements && (element = poll()) != null) {
+            target.add(element);
+            drained++;
+        }
+        return drained;
+    }
+
+    /** Consumer only. Returns false if the deadline (System.nanoTime) passed with the ring still empty. */
+    public boolean awaitNotEmpty(long deadlineNanos) throws InterruptedException {
+        return waitStrategy.await(this::hasNext, deadlineNanos);
+    }
+
+    private boolean hasNext() {
+        long position = head.get();
+        return sequences.get((int) position & mask) == position + 1;
+    }
+
+    public int size() {
+        long size = tail.get() - head.get();
+        return (int) Math.max(0, Math.min(size, slots.length));
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+}
@@ -0,0 +1,64 @@
+package utils;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection pool figures for one persistence unit: the pool's own gauges (active, idle,
+ * waiting threads) plus what Hikari reports through its metrics tracker, the time spent waiting
+ * for a connection and the number of acquisitions that timed out.
+ */
+public class PoolMetrics implements IMetricsTracker {
+
+    private final String name;
+    private volatile HikariDataSource dataSource;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+
+    public PoolMetrics(String name) {
+        this.name = name;
+    }
+
+    void attach(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquisitions.increment();
+        acquireNanos.add(elapsedAcquiredNanos);
+        maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeouts.increment();
+    }
+
+    public long timeoutCount() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public String toString() {
+        HikariDataSource ds = dataSource;
+        HikariPoolMXBean pool = ds != null ? ds.getHikariPoolMXBean() : null;
+        if (pool == null) {
+            return name + ": not started";
+        }
+        long count = acquisitions.sum();
+        long averageMicros = count > 0 ? TimeUnit.NANOSECONDS.toMicros(acquireNanos.sum() / count) : 0;
+        return String.format("%s: %d active, %d idle, %d/%d open, %d waiting, acquire avg %dus max %dus over %d, %d timeouts",
+                             name, pool.getActiveConnections(), pool.getIdleConnections(),
+                             pool.getTotalConnections(), ds.getMaximumPoolSize(), pool.getThreadsAwaitingConnection(),
+                             averageMicros, TimeUnit.NANOSECONDS.toMicros(maxAcquireNanos.get()), count, timeouts.sum());
+    }
+}
@@ -0,0 +1,33 @@
+package utils;
+
+import com.zeroc.Ice.Communicator;
+import com.zeroc.Ice.Properties;
+
+/**
+ * Read access to the server's tunables (the Server.* keys of config.serverN.cfg).
+ * Falls back to the given defaults when the communicator has not been registered,
+ * e.g. when ServerImpl is built directly in tests.
+ */
+public class ServerConfig {
+
+    private static volatile Properties properties;
+
+    public static void initialize(Communicator communicator) {
+        ServerConfig.properties = communicator.getProperties();
+    }
+
+    /** Settings without a communicator, for tests that build ServerImpl directly. */
+    public static void initialize(Properties properties) {
+        ServerConfig.properties = properties;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        Properties props = properties;
+        return props != null ? props.getPropertyAsIntWithDefault(key, defaultValue) : defaultValue;
+    }
+
+    public static String getString(String key, String defaultValue) {
+        Properties props = properties;
+        return props != null ? props.getPropertyWithDefault(key, defaultValue) : defaultValue;
+    }
+}
@@ -0,0 +1,230 @@
+package utils;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache with W-TinyLFU admission.
+ *
+ * New entries go into a small FIFO window (1% of the capacity) so a burst of fresh keys can be
+ * served at once. When an entry leaves the window it competes with a victim from the main region,
+ * the least frequent of a few randomly sampled entries. The one with the higher estimated access
+ * frequency ({@link FrequencySketch}) stays. A scan of one-off keys therefore cycles through the
+ * window without pushing out the hot set.
+ *
+ * Reads are lock-free; inserts and evictions are serialized. Entries optionally expire a fixed
+ * time after they were written.
+ */
+public class TinyLfuCache<K, V> {
+
+    private static final int EVICTION_SAMPLES = 8;
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final long expiresAtNanos;
+        boolean inWindow = true;
+        int slot = -1;
+
+        Node(K key, V value, long expiresAtNanos) {
+            this.key = key;
+            this.value = value;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final int maximumSize;
+    private final int windowMax;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final FrequencySketch sketch;
+    // Window in insertion order. Removed nodes are left in place and skipped when they come out.
+    private final ArrayDeque<Node<K, V>> window = new ArrayDeque<>();
+    // Main region as an array so victims can be sampled at random; a node knows its slot.
+    private final Object[] main;
+    private int mainSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /** {@code ttlSeconds} of 0 or less keeps entries until they are evicted. */
+    public TinyLfuCache(int maximumSize, long ttlSeconds) {
+        this.maximumSize = Math.max(2, maximumSize);
+        this.windowMax = Math.max(1, this.maximumSize / 100);
+        this.ttlNanos = ttlSeconds > 0 ? TimeUnit.SECONDS.toNanos(ttlSeconds) : 0;
+        this.data = new ConcurrentHashMap<>(this.maximumSize * 4 / 3 + 1);
+        this.sketch = new FrequencySketch(this.maximumSize);
+        this.main = new Object[this.maximumSize - windowMax];
+    }
+
+    /** The cached value, or null. Counts towards the key's frequency either way. */
+    public V get(K key) {
+        sketch.increment(key);
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(node, System.nanoTime())) {
+            misses.increment();
+            if (remove(node)) {
+                expirations.increment();
+            }
+            return null;
+        }
+        hits.increment();
+        return node.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        Node<K, V> node = new Node<>(key, value, ttlNanos > 0 ? System.nanoTime() + ttlNanos : 0);
+        Node<K, V> existing = data.get(key);
+        if (existing != null) {
+            // Same position, new value.
+            node.inWindow = existing.inWindow;
+            node.slot = existing.slot;
+            if (existing.inWindow) {
+                window.addLast(node);
+            } else {
+                main[existing.slot] = node;
+            }
+            data.put(key, node);
+            return;
+        }
+
+        data.put(key, node);
+        window.addLast(node);
+        while (window.size() > windowMax) {
+            Node<K, V> candidate = window.pollFirst();
+            if (data.get(candidate.key) == candidate) {
+                admit(candidate);
+            }
+        }
+    }
+
+    public synchronized void invalidate(K key) {
+        Node<K, V> node = data.remove(key);
+        if (node != null && !node.inWindow) {
+            removeFromMain(node);
+        }
+    }
+
+    public synchronized void clear() {
+        data.clear();
+        window.clear();
+        Arrays.fill(main, null);
+        mainSize = 0;
+        sketch.clear();
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+        expirations.reset();
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    public long expirationCount() {
+        return expirations.sum();
+    }
+
+    private void admit(Node<K, V> candidate) {
+        candidate.inWindow = false;
+        if (mainSize < main.length) {
+            addToMain(candidate);
+            return;
+        }
+
+        Node<K, V> victim = sampleVictim();
+        boolean victimExpired = isExpired(victim, System.nanoTime());
+        if (!victimExpired && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+            data.remove(candidate.key, candidate);
+            evictions.increment();
+            return;
+        }
+        if (victimExpired) {
+            expirations.increment();
+        } else {
+            evictions.increment();
+        }
+        data.remove(victim.key, victim);
+        removeFromMain(victim);
+        addToMain(candidate);
+    }
+
+    // Least frequent of a few random main entries; an expired one is taken straight away.
+    @SuppressWarnings("unchecked")
+    private Node<K, V> sampleVictim() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.nanoTime();
+        Node<K, V> victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        for (int i = 0; i < EVICTION_SAMPLES; i++) {
+            Node<K, V> node = (Node<K, V>) main[random.nextInt(mainSize)];
+            if (isExpired(node, now)) {
+                return node;
+            }
+            int frequency = sketch.frequency(node.key);
+            if (frequency < victimFrequency) {
+                victim = node;
+                victimFrequency = frequency;
+            }
+        }
+        return victim;
+    }
+
+    private void addToMain(Node<K, V> node) {
+        node.slot = mainSize;
+        main[mainSize++] = node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void removeFromMain(Node<K, V> node) {
+        int slot = node.slot;
+        if (slot < 0 || main[slot] != node) {
+            return;
+        }
+        Node<K, V> last = (Node<K, V>) main[--mainSize];
+        main[slot] = last;
+        last.slot = slot;
+        main[mainSize] = null;
+        node.slot = -1;
+    }
+
+    private synchronized boolean remove(Node<K, V> node) {
+        if (!data.remove(node.key, node)) {
+            return false;
+        }
+        if (!node.inWindow) {
+            removeFromMain(node);
+        }
+        return true;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return ttlNanos > 0 && now - node.expiresAtNanos >= 0;
+    }
+}
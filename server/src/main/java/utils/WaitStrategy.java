@@ -0,0 +1,136 @@
+package utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * How the consumer of a {@link MpscRingBuffer} waits for producers: trading CPU for wake-up latency.
+ * spin and yield keep a core busy and react in well under a microsecond; park backs off in short
+ * sleeps; blocking sleeps on a condition that producers signal only when the consumer is waiting.
+ */
+public interface WaitStrategy {
+
+    /** Waits until {@code ready} holds or {@code deadlineNanos} (System.nanoTime) passes. */
+    boolean await(BooleanSupplier ready, long deadlineNanos) throws InterruptedException;
+
+    /** Called by producers after publishing. */
+    void signal();
+
+    static WaitStrategy named(String name) {
+        switch (name.toLowerCase()) {
+            case "spin":
+                return new Spin(false);
+            case "yield":
+                return new Spin(true);
+            case "park":
+                return new Park(TimeUnit.MICROSECONDS.toNanos(50));
+            case "blocking":
+                return new Blocking();
+            default:
+                throw new IllegalArgumentException("Unknown wait strategy: " + name);
+        }
+    }
+
+    class Spin implements WaitStrategy {
+        private final boolean yield;
+
+        Spin(boolean yield) {
+            this.yield = yield;
+        }
+
+        @Override
+        public boolean await(BooleanSupplier ready, long deadlineNanos) throws InterruptedException {
+            while (!ready.getAsBoolean()) {
+                if (System.nanoTime() - deadlineNanos >= 0) {
+                    return false;
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (yield) {
+                    Thread.yield();
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void signal() {
+        }
+    }
+
+    class Park implements WaitStrategy {
+        private final long parkNanos;
+
+        Park(long parkNanos) {
+            this.parkNanos = parkNanos;
+        }
+
+        @Override
+        public boolean await(BooleanSupplier ready, long deadlineNanos) throws InterruptedException {
+            while (!ready.getAsBoolean()) {
+                long remaining = deadlineNanos - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                LockSupport.parkNanos(Math.min(parkNanos, remaining));
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void signal() {
+        }
+    }
+
+    class Blocking implements WaitStrategy {
+        // Bounds the cost of a wake-up that races with the consumer going to sleep.
+        private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private volatile boolean waiting;
+
+        @Override
+        public boolean await(BooleanSupplier ready, long deadlineNanos) throws InterruptedException {
+            if (ready.getAsBoolean()) {
+                return true;
+            }
+            lock.lock();
+            try {
+                waiting = true;
+                while (!ready.getAsBoolean()) {
+                    long remaining = deadlineNanos - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    notEmpty.awaitNanos(Math.min(remaining, MAX_SLEEP_NANOS));
+                }
+                return true;
+            } finally {
+                waiting = false;
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signal() {
+            if (waiting) {
+                lock.lock();
+                try {
+                    notEmpty.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,10 @@
 import ElectionSystem.*;
 import com.zeroc.Ice.Current;
+import com.zeroc.Ice.Properties;
+import com.zeroc.Ice.Util;
 import models.elections.*;
+import models.votaciones.VotingStation;
+import models.votaciones.VotingTable;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,6 +12,7 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import repositories.elections.CacheInvalidationRepository;
 import repositories.elections.CandidateRepository;
 import repositories.elections.ElectionRepository;
 import repositories.elections.VoteRepository;
@@ -15,6 +20,7 @@ import repositories.elections.VotedCitizenRepository;
 import repositories.votaciones.CitizenRepository;
 import repositories.votaciones.VotingTableRepository;
 import utils.JPAUtil;
+import utils.ServerConfig;
 
 import jakarta.persistence.EntityManager;
 
@@ -44,6 +50,8 @@ class ServerImplTest {
     @Mock
     private VotedCitizenRepository votedCitizenRepository;
     @Mock
+    private CacheInvalidationRepository cacheInvalidationRepository;
+    @Mock
     private Current current;
     @Mock
     private EntityManager entityManager;
@@ -54,6 +62,9 @@ class ServerImplTest {
     private final String SAMPLE_CITIZEN_DOCUMENT = "DOC001";
     private final int SAMPLE_CANDIDATE_ID = 101;
     private final int SAMPLE_TABLE_ID = 201;
+    private final int SAMPLE_STATION_ID = 301;
+    // Census loaded into the citizen directory: document -> {citizenId, tableId}
+    private final Map<String, int[]> census = new HashMap<>();
 
     @BeforeEach
     void setUp() throws Exception {
@@ -78,23 +89,59 @@ class ServerImplTest {
         lenient().when(electionRepository.findById(1)).thenReturn(Optional.of(currentElection));
         lenient().when(voteRepository.countByCandidateId(anyInt())).thenReturn(0L);
         lenient().when(voteRepository.countVotesGroupedByTableAndCandidate()).thenReturn(new HashMap<>());
-        lenient().when(votingTableRepository.groupVotingTablesByStation()).thenReturn(new HashMap<>());
         
-        // Initialize ServerImpl with mocked static JPAUtil
+        census.put(SAMPLE_CITIZEN_DOCUMENT, new int[] {1, SAMPLE_TABLE_ID});
+        for (int i = 0; i < 3; i++) {
+            census.put("DOC" + i, new int[] {10 + i, SAMPLE_TABLE_ID});
+        }
+        lenient().when(citizenRepository.countCitizens()).thenReturn((long) census.size());
+        lenient().doAnswer(invocation -> {
+            CitizenRepository.CitizenKeyConsumer consumer = invocation.getArgument(0);
+            census.forEach((document, keys) -> consumer.accept(keys[0], document, keys[1]));
+            return null;
+        }).when(citizenRepository).streamCitizenKeys(any());
+        
+        VotingStation station = new VotingStation();
+        station.setId(SAMPLE_STATION_ID);
+        station.setName("Station A");
+        Map<Integer, List<VotingTable>> tablesByStation = new HashMap<>();
+        tablesByStation.put(SAMPLE_STATION_ID, List.of(votingTable(SAMPLE_TABLE_ID, station)));
+        lenient().when(votingTableRepository.groupVotingTablesByStation()).thenReturn(tablesByStation);
+        
+        // No rollup thread: it would query the elections database outside the static mock.
+        Properties properties = Util.createProperties();
+        properties.setProperty("Server.Rollup.IntervalSeconds", "0");
+        // Nor the invalidation log poller; tests poll on their own thread.
+        properties.setProperty("Server.CacheInvalidation.PollMs", "0");
+        ServerConfig.initialize(properties);
+        
+        serverImpl = newServer();
+    }
+
+    // Initialize ServerImpl with mocked static JPAUtil
+    private ServerImpl newServer() {
         try (MockedStatic<JPAUtil> jpaUtilMock = Mockito.mockStatic(JPAUtil.class)) {
             jpaUtilMock.when(JPAUtil::getEntityManagerVoting).thenReturn(entityManager);
             jpaUtilMock.when(JPAUtil::getEntityManagerElections).thenReturn(entityManager);
             
-            serverImpl = new ServerImpl(electionRepository, candidateRepository, voteRepository, 
-                                      citizenRepository, votingTableRepository, votedCitizenRepository);
+            return new ServerImpl(electionRepository, candidateRepository, voteRepository, 
+                                  citizenRepository, votingTableRepository, votedCitizenRepository,
+                                  cacheInvalidationRepository);
         }
     }
 
+    private static VotingTable votingTable(int id, VotingStation station) {
+        VotingTable table = new VotingTable();
+        table.setId(id);
+        table.setVotingStation(station);
+        return table;
+    }
+
     @Test
     void registerVote_Successful() throws Exception {
         VoteData voteData = new VoteData(SAMPLE_CITIZEN_DOCUMENT, SAMPLE_CANDIDATE_ID, SAMPLE_TABLE_ID, "ts");
         
-        assertDoesNotThrow(() -> serverImpl.registerVote(voteData, current));
+        assertDoesNotThrow(() -> serverImpl.registerVoteAsync(voteData, current).toCompletableFuture().join());
     }
 
     @Test
@@ -102,10 +149,12 @@ class ServerImplTest {
         int nonExistentCandidateId = 999;
         VoteData voteData = new VoteData(SAMPLE_CITIZEN_DOCUMENT, nonExistentCandidateId, SAMPLE_TABLE_ID, "ts");
         
-        CandidateNotFound exception = assertThrows(CandidateNotFound.class, () -> {
-            serverImpl.registerVote(voteData, current);
-        });
+        // Ice marshals whatever the stage fails with, so it must be the declared exception itself.
+        Throwable failure = serverImpl.registerVoteAsync(voteData, current)
+            .handle((ok, error) -> error)
+            .toCompletableFuture().join();
         
+        CandidateNotFound exception = assertInstanceOf(CandidateNotFound.class, failure);
         assertEquals("Candidate with ID " + nonExistentCandidateId + " not found", exception.reason);
     }
 
@@ -113,7 +162,7 @@ class ServerImplTest {
     void registerVote_MultipleVotes_AsyncProcessing() throws Exception {
         for (int i = 0; i < 3; i++) {
             VoteData voteData = new VoteData("DOC" + i, SAMPLE_CANDIDATE_ID, SAMPLE_TABLE_ID, "ts" + i);
-            assertDoesNotThrow(() -> serverImpl.registerVote(voteData, current));
+            assertDoesNotThrow(() -> serverImpl.registerVoteAsync(voteData, current).toCompletableFuture().join());
         }
     }
 
@@ -121,7 +170,7 @@ class ServerImplTest {
     void registerVote_QueueFull_ShouldThrowException() throws Exception {
         VoteData voteData = new VoteData(SAMPLE_CITIZEN_DOCUMENT, SAMPLE_CANDIDATE_ID, SAMPLE_TABLE_ID, "ts");
         
-        assertDoesNotThrow(() -> serverImpl.registerVote(voteData, current));
+        assertDoesNotThrow(() -> serverImpl.registerVoteAsync(voteData, current).toCompletableFuture().join());
     }
 
     @Test
@@ -141,7 +190,7 @@ class ServerImplTest {
 
     @Test
     void getGlobalResults_ShouldReturnResults() throws Exception {
-        CandidateResult[] results = serverImpl.getGlobalResults(current);
+        CandidateResult[] results = serverImpl.getGlobalResultsAsync(current).toCompletableFuture().join();
         assertNotNull(results);
     }
 
@@ -181,8 +230,118 @@ class ServerImplTest {
             jpaUtilMock.when(() -> JPAUtil.executeInTransaction(any(EntityManager.class), any()))
                       .thenReturn("");
             
-            String result = serverImpl.findVotingStationByDocument(document, current);
+            PollingPlace result = serverImpl.findVotingStationByDocumentAsync(document, current).toCompletableFuture().join();
             assertNotNull(result);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void findVotingStationByDocument_ResolvesFromCitizenDirectory() throws Exception {
+        PollingPlace result = serverImpl.findVotingStationByDocumentAsync(SAMPLE_CITIZEN_DOCUMENT, current).toCompletableFuture().join();
+        
+        assertTrue(result.found);
+        assertEquals(SAMPLE_TABLE_ID, result.tableId);
+        assertEquals(SAMPLE_STATION_ID, result.stationId);
+        assertEquals("Station A", result.stationName);
+        verify(citizenRepository, never()).findVotingTableByDocument(anyString());
+    }
+
+    @Test
+    void invalidateDocuments_LookupReturnsTheCitizensNewTable() throws Exception {
+        int movedTableId = 202;
+        VotingStation otherStation = new VotingStation();
+        otherStation.setId(302);
+        otherStation.setName("Station B");
+        when(votingTableRepository.findById(movedTableId)).thenReturn(Optional.of(votingTable(movedTableId, otherStation)));
+        doAnswer(invocation -> {
+            CitizenRepository.CitizenKeyConsumer consumer = invocation.getArgument(2);
+            consumer.accept(1, SAMPLE_CITIZEN_DOCUMENT, movedTableId);
+            return null;
+        }).when(citizenRepository).findCitizenKeysByDocuments(any(), any(), any());
+        
+        PollingPlace before = serverImpl.findVotingStationByDocumentAsync(SAMPLE_CITIZEN_DOCUMENT, current).toCompletableFuture().join();
+        assertEquals(SAMPLE_TABLE_ID, before.tableId);
+        
+        try (MockedStatic<JPAUtil> jpaUtilMock = mockVotingTransactions()) {
+            serverImpl.invalidateDocuments(new String[] {SAMPLE_CITIZEN_DOCUMENT}, current);
+        }
+        
+        PollingPlace after = serverImpl.findVotingStationByDocumentAsync(SAMPLE_CITIZEN_DOCUMENT, current).toCompletableFuture().join();
+        assertTrue(after.found);
+        assertEquals(movedTableId, after.tableId);
+        assertEquals(302, after.stationId);
+        assertEquals("Station B", after.stationName);
+    }
+
+    @Test
+    void invalidateDocuments_CitizenNoLongerInCensusIsNotFound() throws Exception {
+        PollingPlace before = serverImpl.findVotingStationByDocumentAsync("DOC0", current).toCompletableFuture().join();
+        assertTrue(before.found);
+        
+        try (MockedStatic<JPAUtil> jpaUtilMock = mockVotingTransactions()) {
+            serverImpl.invalidateDocuments(new String[] {"DOC0"}, current);
+        }
+        
+        PollingPlace after = serverImpl.findVotingStationByDocumentAsync("DOC0", current).toCompletableFuture().join();
+        assertFalse(after.found);
+    }
+
+    @Test
+    void invalidateDocuments_OtherReplicaSeesTheCorrectionAfterPolling() throws Exception {
+        int movedTableId = 202;
+        VotingStation otherStation = new VotingStation();
+        otherStation.setId(302);
+        otherStation.setName("Station B");
+        when(votingTableRepository.findById(movedTableId)).thenReturn(Optional.of(votingTable(movedTableId, otherStation)));
+        doAnswer(invocation -> {
+            CitizenRepository.CitizenKeyConsumer consumer = invocation.getArgument(2);
+            consumer.accept(1, SAMPLE_CITIZEN_DOCUMENT, movedTableId);
+            return null;
+        }).when(citizenRepository).findCitizenKeysByDocuments(any(), any(), any());
+        
+        // cache_invalidations shared by both replicas: row i has id i + 1
+        List<String[]> sharedLog = new ArrayList<>();
+        when(cacheInvalidationRepository.findMaxId()).thenAnswer(invocation -> (long) sharedLog.size());
+        when(cacheInvalidationRepository.append(anyString(), anyString())).thenAnswer(invocation -> {
+            sharedLog.add(new String[] {invocation.getArgument(0), invocation.getArgument(1)});
+            return (long) sharedLog.size();
+        });
+        doAnswer(invocation -> {
+            long afterId = invocation.getArgument(0);
+            CacheInvalidationRepository.InvalidationConsumer consumer = invocation.getArgument(1);
+            for (int i = (int) afterId; i < sharedLog.size(); i++) {
+                consumer.accept(i + 1, sharedLog.get(i)[0], sharedLog.get(i)[1]);
+            }
+            return null;
+        }).when(cacheInvalidationRepository).findAfter(anyLong(), any());
+        
+        ServerImpl otherReplica = newServer();
+        PollingPlace before = otherReplica.findVotingStationByDocumentAsync(SAMPLE_CITIZEN_DOCUMENT, current).toCompletableFuture().join();
+        assertEquals(SAMPLE_TABLE_ID, before.tableId);
+        
+        try (MockedStatic<JPAUtil> jpaUtilMock = mockVotingTransactions()) {
+            serverImpl.invalidateDocuments(new String[] {SAMPLE_CITIZEN_DOCUMENT}, current);
+            otherReplica.pollCacheInvalidations();
+            // The replica that took the call already applied it and skips its own row.
+            serverImpl.pollCacheInvalidations();
+        }
+        
+        PollingPlace after = otherReplica.findVotingStationByDocumentAsync(SAMPLE_CITIZEN_DOCUMENT, current).toCompletableFuture().join();
+        assertTrue(after.found);
+        assertEquals(movedTableId, after.tableId);
+        assertEquals(302, after.stationId);
+        assertEquals("Station B", after.stationName);
+        verify(citizenRepository, times(2)).findCitizenKeysByDocuments(any(), any(), any());
+    }
+
+    private MockedStatic<JPAUtil> mockVotingTransactions() {
+        MockedStatic<JPAUtil> jpaUtilMock = Mockito.mockStatic(JPAUtil.class);
+        jpaUtilMock.when(JPAUtil::getEntityManagerVoting).thenReturn(entityManager);
+        jpaUtilMock.when(() -> JPAUtil.executeInTransactionVoid(any(EntityManager.class), any())).thenAnswer(invocation -> {
+            JPAUtil.TransactionCallbackVoid callback = invocation.getArgument(1);
+            callback.execute(invocation.getArgument(0));
+            return null;
+        });
+        return jpaUtilMock;
+    }
+}
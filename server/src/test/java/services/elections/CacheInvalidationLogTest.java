@@ -0,0 +1,104 @@
+package services.elections;
+
+import org.junit.jupiter.api.Test;
+import repositories.elections.CacheInvalidationRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheInvalidationLogTest {
+
+    private final InMemoryRepository repository = new InMemoryRepository();
+    private final List<List<String>> applied = new ArrayList<>();
+
+    @Test
+    void poll_AppliesOnlyWhatOtherReplicasAppended() {
+        repository.insert(1, CacheInvalidationPublisher.SCOPE_DOCUMENTS, "OLD");
+        CacheInvalidationLog log = newLog();
+
+        log.append(Arrays.asList("A", "B"));
+        repository.insert(3, CacheInvalidationPublisher.SCOPE_DOCUMENTS, "C");
+        repository.insert(4, CacheInvalidationPublisher.SCOPE_ALL, "");
+        log.poll();
+        log.poll();
+
+        assertEquals(Arrays.asList(Arrays.asList("C"), null), applied);
+    }
+
+    @Test
+    void poll_AppliesARowThatCommitsAfterAHigherId() {
+        CacheInvalidationLog log = newLog();
+
+        repository.insert(2, CacheInvalidationPublisher.SCOPE_DOCUMENTS, "LATER");
+        log.poll();
+        repository.insert(1, CacheInvalidationPublisher.SCOPE_DOCUMENTS, "EARLIER");
+        log.poll();
+        log.poll();
+
+        assertEquals(Arrays.asList(Arrays.asList("LATER"), Arrays.asList("EARLIER")), applied);
+    }
+
+    @Test
+    void poll_RetriesAnInvalidationWhoseApplyFailed() {
+        int[] attempts = new int[1];
+        CacheInvalidationLog log = new CacheInvalidationLog(repository, 1000, 60, documents -> {
+            if (attempts[0]++ == 0) {
+                throw new IllegalStateException("votaciones database down");
+            }
+            applied.add(documents);
+        });
+
+        repository.insert(1, CacheInvalidationPublisher.SCOPE_DOCUMENTS, "A");
+        assertThrows(IllegalStateException.class, log::poll);
+        log.poll();
+        log.poll();
+
+        assertEquals(2, attempts[0]);
+        assertEquals(Arrays.asList(Arrays.asList("A")), applied);
+    }
+
+    private CacheInvalidationLog newLog() {
+        return new CacheInvalidationLog(repository, 1000, 60, applied::add);
+    }
+
+    // Only the committed rows are visible, so tests can commit them out of id order.
+    private static class InMemoryRepository extends CacheInvalidationRepository {
+        private final TreeMap<Long, String[]> rows = new TreeMap<>();
+        private long nextId = 1;
+
+        void insert(long id, String scope, String documents) {
+            rows.put(id, new String[] {scope, documents});
+            nextId = Math.max(nextId, id + 1);
+        }
+
+        @Override
+        public long append(String scope, String documents) {
+            long id = nextId;
+            insert(id, scope, documents);
+            return id;
+        }
+
+        @Override
+        public long findMaxId() {
+            return rows.isEmpty() ? 0 : rows.lastKey();
+        }
+
+        @Override
+        public void findAfter(long afterId, InvalidationConsumer consumer) {
+            for (Map.Entry<Long, String[]> row : rows.tailMap(afterId, false).entrySet()) {
+                consumer.accept(row.getKey(), row.getValue()[0], row.getValue()[1]);
+            }
+        }
+
+        @Override
+        public int deleteOlderThan(LocalDateTime cutoff) {
+            return 0;
+        }
+    }
+}
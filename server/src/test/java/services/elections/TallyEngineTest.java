@@ -0,0 +1,73 @@
+package services.elections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TallyEngineTest {
+
+    private final TallyEngine tally = new TallyEngine(new int[] {1, 2});
+
+    @Test
+    void rebase_ReplacesCountsWithTheDatabases() {
+        tally.record(10, 1);
+        tally.record(10, 2);
+
+        tally.rebase(() -> counts(10, 5, 3));
+
+        assertArrayEquals(new long[] {5, 3}, tally.votesByTable().get(10));
+        assertEquals(5, tally.votesFor(1));
+        assertEquals(3, tally.votesFor(2));
+    }
+
+    @Test
+    void rebase_KeepsVotesRecordedWhileTheDatabaseIsRead() {
+        tally.record(10, 1);
+
+        tally.rebase(() -> {
+            tally.record(10, 1);
+            tally.record(11, 2);
+            return counts(10, 4, 0);
+        });
+
+        assertArrayEquals(new long[] {5, 0}, tally.votesByTable().get(10));
+        assertArrayEquals(new long[] {0, 1}, tally.votesByTable().get(11));
+        assertEquals(5, tally.votesFor(1));
+        assertEquals(1, tally.votesFor(2));
+    }
+
+    @Test
+    void rebase_LeavesTablesWithoutDatabaseCountsInTheTotals() {
+        tally.record(10, 1);
+        tally.record(11, 2);
+
+        tally.rebase(() -> counts(10, 2, 0));
+
+        assertArrayEquals(new long[] {0, 1}, tally.votesByTable().get(11));
+        assertEquals(2, tally.votesFor(1));
+        assertEquals(1, tally.votesFor(2));
+    }
+
+    @Test
+    void rebase_IgnoresUnknownCandidates() {
+        Map<Integer, Map<Integer, Integer>> counts = counts(10, 1, 1);
+        counts.get(10).put(99, 7);
+
+        tally.rebase(() -> counts);
+
+        assertArrayEquals(new long[] {1, 1}, tally.votesByTable().get(10));
+        assertEquals(0, tally.votesFor(99));
+    }
+
+    private static Map<Integer, Map<Integer, Integer>> counts(int tableId, int first, int second) {
+        Map<Integer, Integer> byCandidate = new HashMap<>();
+        byCandidate.put(1, first);
+        byCandidate.put(2, second);
+        Map<Integer, Map<Integer, Integer>> counts = new HashMap<>();
+        counts.put(tableId, byCandidate);
+        return counts;
+    }
+}
@@ -0,0 +1,283 @@
+package services.elections;
+
+import ElectionSystem.VoteData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoteJournalTest {
+
+    private static final String TIMESTAMP = "2026-01-01T10:00:00";
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    private final List<VoteJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        for (VoteJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    @Test
+    void recover_ReturnsVotesAppendedBeforeClose() throws Exception {
+        VoteJournal journal = open();
+        journal.recover();
+        journal.append(vote("DOC001", 1)).get();
+        journal.append(vote("DOC\u00d102", 2)).get();
+        journal.close();
+
+        List<VoteJournal.Entry> recovered = open().recover();
+
+        assertEquals(2, recovered.size());
+        assertVote(recovered.get(0).vote, "DOC001", 1);
+        assertVote(recovered.get(1).vote, "DOC\u00d102", 2);
+    }
+
+    @Test
+    void recover_SkipsCompletedVotes() throws Exception {
+        VoteJournal journal = open();
+        journal.recover();
+        VoteJournal.Entry first = journal.append(vote("DOC001", 1)).get();
+        journal.append(vote("DOC002", 2)).get();
+        journal.complete(first);
+        journal.close();
+
+        List<VoteJournal.Entry> recovered = open().recover();
+
+        assertEquals(1, recovered.size());
+        assertVote(recovered.get(0).vote, "DOC002", 2);
+    }
+
+    @Test
+    void recover_DeletesSegmentsWithNothingPending() throws Exception {
+        VoteJournal journal = open();
+        journal.recover();
+        journal.complete(journal.append(vote("DOC001", 1)).get());
+        journal.close();
+
+        VoteJournal reopened = open();
+        assertTrue(reopened.recover().isEmpty());
+        // Only the fresh segment the reopened journal appends to is left.
+        assertEquals(1, segmentFiles().size());
+        assertEquals(1, reopened.segmentCount());
+    }
+
+    @Test
+    void recover_ReadsVotesAcrossRolledSegments() throws Exception {
+        VoteJournal journal = open();
+        journal.recover();
+        int votes = 3 * SEGMENT_BYTES / recordBytes("DOC000");
+        for (int i = 0; i < votes; i++) {
+            journal.append(vote(String.format("DOC%03d", i), i)).get();
+        }
+        journal.close();
+
+        List<VoteJournal.Entry> recovered = open().recover();
+
+        assertTrue(segmentFiles().size() > 3);
+        assertEquals(votes, recovered.size());
+        for (int i = 0; i < votes; i++) {
+            assertVote(recovered.get(i).vote, String.format("DOC%03d", i), i);
+        }
+    }
+
+    @Test
+    void recover_StopsAtTruncatedRecord() throws Exception {
+        VoteJournal journal = open();
+        journal.recover();
+        for (int i = 0; i < 3; i++) {
+            journal.append(vote("DOC00" + i, i)).get();
+        }
+        journal.close();
+
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(2L * recordBytes("DOC000") + 10);
+        }
+
+        List<VoteJournal.Entry> recovered = open().recover();
+
+        assertEquals(2, recovered.size());
+        assertVote(recovered.get(1).vote, "DOC001", 1);
+    }
+
+    @Test
+    void recover_StopsAtRecordWithCorruptStringLength() throws Exception {
+        VoteJournal journal = open();
+        journal.recover();
+        for (int i = 0; i < 3; i++) {
+            journal.append(vote("DOC00" + i, i)).get();
+        }
+        journal.close();
+
+        // Document length prefix of the second record, just after its header.
+        int offset = recordBytes("DOC000") + Integer.BYTES + 1;
+        writeInt(segmentFiles().get(0), offset, Integer.MAX_VALUE);
+
+        List<VoteJournal.Entry> recovered = open().recover();
+
+        assertEquals(1, recovered.size());
+        assertVote(recovered.get(0).vote, "DOC000", 0);
+    }
+
+    @Test
+    void recover_StopsAtRecordWithNegativeStringLength() throws Exception {
+        VoteJournal journal = open();
+        journal.recover();
+        journal.append(vote("DOC000", 0)).get();
+        journal.close();
+
+        writeInt(segmentFiles().get(0), Integer.BYTES + 1, -7);
+
+        assertTrue(open().recover().isEmpty());
+    }
+
+    @Test
+    void recover_StopsAtRecordWithUnknownState() throws Exception {
+        VoteJournal journal = open();
+        journal.recover();
+        journal.append(vote("DOC000", 0)).get();
+        journal.append(vote("DOC001", 1)).get();
+        journal.close();
+
+        writeByte(segmentFiles().get(0), recordBytes("DOC000") + Integer.BYTES, (byte) 0x7f);
+
+        List<VoteJournal.Entry> recovered = open().recover();
+
+        assertEquals(1, recovered.size());
+        assertVote(recovered.get(0).vote, "DOC000", 0);
+    }
+
+    @Test
+    void append_AfterRecoverGoesToNewSegment() throws Exception {
+        VoteJournal journal = open();
+        journal.recover();
+        journal.append(vote("DOC000", 0)).get();
+        journal.close();
+
+        VoteJournal reopened = open();
+        List<VoteJournal.Entry> recovered = reopened.recover();
+        reopened.append(vote("DOC001", 1)).get();
+        reopened.complete(recovered.get(0));
+        reopened.close();
+
+        List<VoteJournal.Entry> remaining = open().recover();
+
+        assertEquals(1, remaining.size());
+        assertVote(remaining.get(0).vote, "DOC001", 1);
+    }
+
+    @Test
+    void append_FailsAfterClose() throws Exception {
+        VoteJournal journal = open();
+        journal.recover();
+        journal.close();
+
+        assertTrue(journal.append(vote("DOC000", 0)).isCompletedExceptionally());
+    }
+
+    @Test
+    void append_FailsUntilTheFlusherRecoversFromFailedForces() throws Exception {
+        AtomicInteger failingForces = new AtomicInteger(2);
+        VoteJournal journal = new VoteJournal(directory.toString(), SEGMENT_BYTES, 0) {
+            @Override
+            void force(MappedByteBuffer buffer) {
+                if (failingForces.getAndDecrement() > 0) {
+                    throw new UncheckedIOException(new IOException("disk error"));
+                }
+                super.force(buffer);
+            }
+        };
+        opened.add(journal);
+        journal.recover();
+
+        ExecutionException failed = assertThrows(ExecutionException.class, () -> journal.append(vote("DOC000", 0)).get());
+        assertInstanceOf(VoteJournal.FlushFailedException.class, failed.getCause());
+        assertTrue(((VoteJournal.FlushFailedException) failed.getCause()).retryAfterMs > 0);
+
+        // The flusher keeps retrying; votes sent while it fails are rejected, then accepted again.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        VoteJournal.Entry accepted = null;
+        while (accepted == null && System.nanoTime() < deadline) {
+            try {
+                accepted = journal.append(vote("DOC001", 1)).get();
+            } catch (ExecutionException e) {
+                assertInstanceOf(VoteJournal.FlushFailedException.class, e.getCause());
+                Thread.sleep(20);
+            }
+        }
+        assertNotNull(accepted);
+        journal.close();
+
+        // Only the accepted vote is replayed: the rejected ones are sent again by their callers.
+        List<VoteJournal.Entry> recovered = open().recover();
+        assertEquals(1, recovered.size());
+        assertVote(recovered.get(0).vote, "DOC001", 1);
+    }
+
+    private VoteJournal open() throws IOException {
+        VoteJournal journal = new VoteJournal(directory.toString(), SEGMENT_BYTES, 0);
+        opened.add(journal);
+        return journal;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static VoteData vote(String document, int candidateId) {
+        return new VoteData(document, candidateId, 200 + candidateId, TIMESTAMP);
+    }
+
+    private static void assertVote(VoteData vote, String document, int candidateId) {
+        assertEquals(document, vote.citizenDocument);
+        assertEquals(candidateId, vote.candidateId);
+        assertEquals(200 + candidateId, vote.tableId);
+        assertEquals(TIMESTAMP, vote.timestamp);
+    }
+
+    // Header (length, state) plus payload (document, candidate, table, timestamp).
+    private static int recordBytes(String asciiDocument) {
+        return Integer.BYTES + 1
+            + Integer.BYTES + asciiDocument.getBytes(StandardCharsets.UTF_8).length
+            + 2 * Integer.BYTES
+            + Integer.BYTES + TIMESTAMP.length();
+    }
+
+    private static void writeInt(Path file, long position, int value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, value), position);
+        }
+    }
+
+    private static void writeByte(Path file, long position, byte value) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {value}), position);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package services.elections;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VotedCitizenBitmapTest {
+
+    private static final int THREADS = 8;
+
+    @Test
+    void trySet_OnlyFirstClaimSucceeds() {
+        VotedCitizenBitmap bitmap = new VotedCitizenBitmap(200);
+
+        assertTrue(bitmap.trySet(63));
+        assertFalse(bitmap.trySet(63));
+        assertTrue(bitmap.isSet(63));
+        assertFalse(bitmap.isSet(62));
+        assertFalse(bitmap.isSet(64));
+        assertEquals(1, bitmap.count());
+    }
+
+    @Test
+    void clear_ReleasesClaimOnce() {
+        VotedCitizenBitmap bitmap = new VotedCitizenBitmap(200);
+        bitmap.trySet(130);
+
+        bitmap.clear(130);
+        bitmap.clear(130);
+
+        assertFalse(bitmap.isSet(130));
+        assertEquals(0, bitmap.count());
+        assertTrue(bitmap.trySet(130));
+    }
+
+    @Test
+    void covers_OnlyIdsWithinCapacity() {
+        VotedCitizenBitmap bitmap = new VotedCitizenBitmap(100);
+
+        assertTrue(bitmap.covers(0));
+        assertTrue(bitmap.covers(99));
+        assertFalse(bitmap.covers(100));
+        assertFalse(bitmap.covers(-1));
+        assertEquals(2 * Long.BYTES, bitmap.memoryBytes());
+    }
+
+    @Test
+    void concurrentClaims_OneWinnerPerCitizen() throws Exception {
+        int citizens = 10_000;
+        VotedCitizenBitmap bitmap = new VotedCitizenBitmap(citizens);
+        AtomicInteger winners = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int id = 0; id < citizens; id++) {
+                if (bitmap.trySet(id)) {
+                    winners.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(citizens, winners.get());
+        assertEquals(citizens, bitmap.count());
+    }
+
+    // Each thread claims and clears its own ids, all sharing the same words, so a lost CAS
+    // update would leave a neighbour's bit wrong.
+    @Test
+    void concurrentClaimAndClear_OnSharedWordsKeepNeighbours() throws Exception {
+        int rounds = 20_000;
+        VotedCitizenBitmap bitmap = new VotedCitizenBitmap(64 * THREADS);
+        AtomicInteger next = new AtomicInteger();
+
+        runConcurrently(() -> {
+            int offset = next.getAndIncrement();
+            for (int round = 0; round < rounds; round++) {
+                for (int word = 0; word < THREADS; word++) {
+                    int id = word * 64 + offset;
+                    assertTrue(bitmap.trySet(id));
+                    assertTrue(bitmap.isSet(id));
+                    bitmap.clear(id);
+                }
+            }
+            for (int word = 0; word < THREADS; word++) {
+                bitmap.trySet(word * 64 + offset);
+            }
+        });
+
+        for (int id = 0; id < 64 * THREADS; id++) {
+            assertEquals(id % 64 < THREADS, bitmap.isSet(id), "bit " + id);
+        }
+        assertEquals(THREADS * THREADS, bitmap.count());
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] futures = new Future<?>[THREADS];
+            for (int i = 0; i < THREADS; i++) {
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
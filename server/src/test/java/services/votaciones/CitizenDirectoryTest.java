@@ -0,0 +1,163 @@
+package services.votaciones;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CitizenDirectoryTest {
+
+    @Test
+    void lookup_KeepsLeadingZerosDistinct() {
+        CitizenDirectory.Builder builder = CitizenDirectory.builder(4);
+        builder.add("0123", 1, 101);
+        builder.add("123", 2, 102);
+        builder.add("00123", 3, 103);
+        CitizenDirectory directory = builder.build();
+
+        assertCitizen(directory, "0123", 1, 101);
+        assertCitizen(directory, "123", 2, 102);
+        assertCitizen(directory, "00123", 3, 103);
+        assertEquals(CitizenDirectory.NOT_FOUND, directory.lookup("0"));
+        assertEquals(CitizenDirectory.NOT_FOUND, directory.lookup("000123"));
+    }
+
+    @Test
+    void pack_FitsSeventeenDigitsOnly() {
+        assertTrue(CitizenDirectory.pack("99999999999999999") >= 0);
+        assertEquals(-1, CitizenDirectory.pack("999999999999999999"));
+        assertEquals(-1, CitizenDirectory.pack("12A45"));
+        assertEquals(-1, CitizenDirectory.pack("-1234"));
+        assertEquals(-1, CitizenDirectory.pack(""));
+    }
+
+    @Test
+    void lookup_FindsDocumentsKeptInTheSideMap() {
+        CitizenDirectory.Builder builder = CitizenDirectory.builder(4);
+        builder.add("99999999999999999", 1, 101);
+        builder.add("999999999999999999", 2, 102);
+        builder.add("CC-1234", 3, 103);
+        builder.add("1234", 4, 104);
+        CitizenDirectory directory = builder.build();
+
+        assertCitizen(directory, "99999999999999999", 1, 101);
+        assertCitizen(directory, "999999999999999999", 2, 102);
+        assertCitizen(directory, "CC-1234", 3, 103);
+        assertCitizen(directory, "1234", 4, 104);
+        assertEquals(CitizenDirectory.NOT_FOUND, directory.lookup("CC-12345"));
+        assertEquals(CitizenDirectory.NOT_FOUND, directory.lookup(null));
+        assertEquals(4, directory.size());
+        assertEquals(4, directory.maxCitizenId());
+    }
+
+    @Test
+    void build_KeepsHighestCitizenIdOfDuplicates() {
+        CitizenDirectory.Builder builder = CitizenDirectory.builder(8);
+        builder.add("555", 7, 101);
+        builder.add("555", 9, 102);
+        builder.add("555", 8, 103);
+        builder.add("DOC-1", 5, 201);
+        builder.add("DOC-1", 4, 202);
+        builder.add("777", 1, 301);
+        CitizenDirectory directory = builder.build();
+
+        assertCitizen(directory, "555", 9, 102);
+        assertCitizen(directory, "DOC-1", 5, 201);
+        assertCitizen(directory, "777", 1, 301);
+        assertEquals(3, directory.size());
+    }
+
+    @Test
+    void build_CollapsesRunsOfDuplicatesLongerThanTheInsertionSortCutoff() {
+        // Ten keys added forty times each: most partitions see keys equal to the pivot.
+        List<Integer> citizens = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            citizens.add(i);
+        }
+        Collections.shuffle(citizens, new Random(7));
+
+        CitizenDirectory.Builder builder = CitizenDirectory.builder(16);
+        for (int citizen : citizens) {
+            builder.add(String.valueOf(1000 + citizen % 10), citizen + 1, citizen);
+        }
+        CitizenDirectory directory = builder.build();
+
+        assertEquals(10, directory.size());
+        for (int key = 0; key < 10; key++) {
+            assertCitizen(directory, String.valueOf(1000 + key), 391 + key, 390 + key);
+        }
+    }
+
+    @Test
+    void lookup_FindsEveryEntryAddedInRandomOrder() {
+        // Well past the 16-entry insertion sort cutoff, so both partition branches run.
+        List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            values.add(i);
+        }
+        Collections.shuffle(values, new Random(42));
+
+        CitizenDirectory.Builder builder = CitizenDirectory.builder(16);
+        for (int value : values) {
+            builder.add(document(value), value + 1, value % 97);
+        }
+        CitizenDirectory directory = builder.build();
+
+        assertEquals(values.size(), directory.size());
+        for (int value = 0; value < values.size(); value++) {
+            assertCitizen(directory, document(value), value + 1, value % 97);
+        }
+        assertEquals(CitizenDirectory.NOT_FOUND, directory.lookup(document(values.size())));
+    }
+
+    @Test
+    void lookup_FindsEveryEntryAddedInDescendingOrder() {
+        CitizenDirectory.Builder builder = CitizenDirectory.builder(16);
+        for (int value = 999; value >= 0; value--) {
+            builder.add(String.valueOf(value), value + 1, value);
+        }
+        CitizenDirectory directory = builder.build();
+
+        for (int value = 0; value < 1000; value++) {
+            assertCitizen(directory, String.valueOf(value), value + 1, value);
+        }
+    }
+
+    @Test
+    void lookup_ReturnsCorrectionsBeforeBuiltEntries() {
+        CitizenDirectory.Builder builder = CitizenDirectory.builder(4);
+        builder.add("1001", 1, 101);
+        builder.add("1002", 2, 102);
+        builder.add("CC-1003", 3, 103);
+        CitizenDirectory directory = builder.build();
+
+        directory.update("1001", 1, 201);
+        directory.update("2000", 4, 204);
+        directory.remove("1002");
+        directory.remove("CC-1003");
+
+        assertCitizen(directory, "1001", 1, 201);
+        assertCitizen(directory, "2000", 4, 204);
+        assertEquals(CitizenDirectory.NOT_FOUND, directory.lookup("1002"));
+        assertEquals(CitizenDirectory.NOT_FOUND, directory.lookup("CC-1003"));
+
+        directory.update("1002", 2, 302);
+        assertCitizen(directory, "1002", 2, 302);
+    }
+
+    private static String document(int value) {
+        // Every fifth document has a leading zero, so equal values with different lengths mix in.
+        return value % 5 == 0 ? "0" + (value * 7919L) : String.valueOf(value * 7919L);
+    }
+
+    private static void assertCitizen(CitizenDirectory directory, String document, int citizenId, int tableId) {
+        long entry = directory.lookup(document);
+        assertNotEquals(CitizenDirectory.NOT_FOUND, entry, document);
+        assertEquals(citizenId, CitizenDirectory.citizenId(entry), document);
+        assertEquals(tableId, CitizenDirectory.tableId(entry), document);
+    }
+}
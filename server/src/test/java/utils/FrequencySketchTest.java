@@ -0,0 +1,67 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrequencySketchTest {
+
+    @Test
+    void frequency_UnseenKeyIsZero() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+
+        assertEquals(0, sketch.frequency("DOC001"));
+    }
+
+    @Test
+    void increment_CountsUpAndSaturatesAtFifteen() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 1; i <= 10; i++) {
+            sketch.increment("DOC001");
+            assertEquals(i, sketch.frequency("DOC001"));
+        }
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("DOC001");
+        }
+
+        assertEquals(15, sketch.frequency("DOC001"));
+        assertEquals(0, sketch.frequency("DOC002"));
+    }
+
+    @Test
+    void increment_HalvesEveryCounterAfterTenTimesTheCacheSize() {
+        // 16 entries: the sketch ages after 160 increments.
+        FrequencySketch sketch = new FrequencySketch(16);
+        for (int round = 0; round < 10; round++) {
+            for (int key = 0; key < 16; key++) {
+                if (round == 9 && key == 15) {
+                    for (int k = 0; k < 16; k++) {
+                        assertTrue(sketch.frequency(k) >= 9);
+                    }
+                }
+                sketch.increment(key);
+            }
+        }
+
+        // Ten each before aging; collisions can only raise an estimate, and 15 halves to 7.
+        for (int key = 0; key < 16; key++) {
+            int frequency = sketch.frequency(key);
+            assertTrue(frequency >= 5 && frequency <= 7, "key " + key + " has frequency " + frequency);
+        }
+    }
+
+    @Test
+    void clear_ForgetsEveryKey() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int key = 0; key < 64; key++) {
+            sketch.increment(key);
+            sketch.increment(key);
+        }
+
+        sketch.clear();
+
+        for (int key = 0; key < 64; key++) {
+            assertEquals(0, sketch.frequency(key));
+        }
+    }
+}
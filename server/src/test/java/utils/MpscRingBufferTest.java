@@ -0,0 +1,186 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MpscRingBufferTest {
+
+    private static final String[] STRATEGIES = {"spin", "yield", "park", "blocking"};
+
+    @Test
+    void capacity_RoundsUpToPowerOfTwo() {
+        assertEquals(8, new MpscRingBuffer<Integer>(5, WaitStrategy.named("park")).capacity());
+        assertEquals(8, new MpscRingBuffer<Integer>(8, WaitStrategy.named("park")).capacity());
+        assertEquals(1024, new MpscRingBuffer<Integer>(1000, WaitStrategy.named("park")).capacity());
+    }
+
+    @Test
+    void poll_EmptyRingReturnsNull() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(8, WaitStrategy.named("park"));
+
+        assertNull(ring.poll());
+        assertTrue(ring.isEmpty());
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void offer_FullRingFailsFastUntilConsumerFreesASlot() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(8, WaitStrategy.named("park"));
+        for (int i = 0; i < 8; i++) {
+            assertTrue(ring.offer(i));
+        }
+
+        assertFalse(ring.offer(8));
+        assertEquals(8, ring.size());
+
+        assertEquals(0, ring.poll());
+        assertTrue(ring.offer(8));
+        assertFalse(ring.offer(9));
+        for (int i = 1; i <= 8; i++) {
+            assertEquals(i, ring.poll());
+        }
+        assertNull(ring.poll());
+    }
+
+    @Test
+    void offerAndPoll_KeepOrderAcrossManyWraparounds() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(4, WaitStrategy.named("park"));
+        int next = 0;
+        int expected = 0;
+        // Fill, then take three: head and tail lap the ring at a different offset every round.
+        for (int round = 0; round < 100; round++) {
+            while (ring.offer(next)) {
+                next++;
+            }
+            assertEquals(ring.capacity(), ring.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected++, ring.poll());
+            }
+        }
+        Integer element;
+        while ((element = ring.poll()) != null) {
+            assertEquals(expected++, element);
+        }
+        assertEquals(next, expected);
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    void drainTo_TakesAtMostMaxElements() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(8, WaitStrategy.named("park"));
+        for (int i = 0; i < 5; i++) {
+            ring.offer(i);
+        }
+        List<Integer> drained = new ArrayList<>();
+
+        assertEquals(3, ring.drainTo(drained, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertEquals(2, ring.drainTo(drained, 10));
+        assertEquals(0, ring.drainTo(drained, 10));
+        assertEquals(List.of(0, 1, 2, 3, 4), drained);
+    }
+
+    @Test
+    void pollWithTimeout_ReturnsNullWhenNothingArrives() throws Exception {
+        for (String strategy : STRATEGIES) {
+            MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(8, WaitStrategy.named(strategy));
+            long start = System.nanoTime();
+
+            assertNull(ring.poll(20, TimeUnit.MILLISECONDS), strategy);
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20), strategy);
+        }
+    }
+
+    @Test
+    void pollWithTimeout_WakesWhenProducerOffers() throws Exception {
+        for (String strategy : STRATEGIES) {
+            MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(8, WaitStrategy.named(strategy));
+            Thread producer = new Thread(() -> {
+                sleep(20);
+                ring.offer(42);
+            });
+            producer.start();
+
+            assertEquals(42, ring.poll(5, TimeUnit.SECONDS), strategy);
+            producer.join();
+        }
+    }
+
+    @Test
+    void offer_ConcurrentProducersDeliverEveryElementOnceInProducerOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 20000;
+        MpscRingBuffer<long[]> ring = new MpscRingBuffer<>(64, WaitStrategy.named("blocking"));
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            Thread thread = new Thread(() -> {
+                await(start);
+                for (int i = 0; i < perProducer; i++) {
+                    long[] element = {producer, i};
+                    while (!ring.offer(element)) {
+                        Thread.yield();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        int[] nextByProducer = new int[producers];
+        for (int received = 0; received < producers * perProducer; received++) {
+            long[] element = ring.poll(5, TimeUnit.SECONDS);
+            assertNotNull(element, "ring went quiet after " + received + " elements");
+            int producer = (int) element[0];
+            assertEquals(nextByProducer[producer]++, (int) element[1]);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(ring.poll());
+        for (int count : nextByProducer) {
+            assertEquals(perProducer, count);
+        }
+    }
+
+    @Test
+    void named_RejectsUnknownStrategy() {
+        assertThrows(IllegalArgumentException.class, () -> WaitStrategy.named("busy"));
+    }
+
+    @Test
+    void await_InterruptedConsumerStopsWaiting() {
+        for (String strategy : STRATEGIES) {
+            WaitStrategy waitStrategy = WaitStrategy.named(strategy);
+            Thread.currentThread().interrupt();
+
+            assertThrows(InterruptedException.class,
+                () -> waitStrategy.await(() -> false, System.nanoTime() + TimeUnit.SECONDS.toNanos(5)), strategy);
+            assertFalse(Thread.currentThread().isInterrupted(), strategy);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
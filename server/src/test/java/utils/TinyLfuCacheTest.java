@@ -0,0 +1,155 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TinyLfuCacheTest {
+
+    // 100 entries: a window of one and 99 slots in the main region.
+    private static final int MAXIMUM_SIZE = 100;
+    private static final int MAIN_SIZE = 99;
+
+    @Test
+    void get_CountsHitsAndMisses() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(MAXIMUM_SIZE, 0);
+        cache.put("DOC001", 201);
+
+        assertEquals(201, cache.get("DOC001"));
+        assertNull(cache.get("DOC002"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void put_ExistingKeyReplacesValueWithoutEvicting() {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(MAXIMUM_SIZE, 0);
+        for (int i = 0; i < MAXIMUM_SIZE; i++) {
+            cache.put("DOC" + i, i);
+        }
+
+        cache.put("DOC0", 500);
+        cache.put("DOC99", 599);
+
+        assertEquals(500, cache.get("DOC0"));
+        assertEquals(599, cache.get("DOC99"));
+        assertEquals(MAXIMUM_SIZE, cache.size());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    void put_CandidateNoMoreFrequentThanVictimIsRejected() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(MAXIMUM_SIZE, 0);
+        for (int key = 0; key < 2 * MAXIMUM_SIZE; key++) {
+            cache.put(key, key);
+        }
+
+        // Nothing was read, so every later key tied with its victim and lost.
+        assertEquals(MAXIMUM_SIZE, cache.size());
+        assertEquals(MAXIMUM_SIZE, cache.evictionCount());
+        for (int key = 0; key < MAIN_SIZE; key++) {
+            assertNotNull(cache.get(key), "key " + key);
+        }
+        for (int key = MAIN_SIZE; key < 2 * MAXIMUM_SIZE - 1; key++) {
+            assertNull(cache.get(key), "key " + key);
+        }
+        assertNotNull(cache.get(2 * MAXIMUM_SIZE - 1));
+    }
+
+    @Test
+    void put_FrequentCandidateReplacesColdVictim() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(MAXIMUM_SIZE, 0);
+        for (int key = 0; key < MAXIMUM_SIZE; key++) {
+            cache.put(key, key);
+        }
+        long evictionsBefore = cache.evictionCount();
+        for (int i = 0; i < 5; i++) {
+            cache.get(1000);
+        }
+
+        cache.put(1000, 1000);
+        cache.put(1001, 1001);
+
+        // 99 left the window unread and lost its tie; 1000 then replaced a cold victim.
+        assertNull(cache.get(99));
+        assertEquals(1000, cache.get(1000));
+        assertEquals(MAXIMUM_SIZE, cache.size());
+        assertEquals(evictionsBefore + 2, cache.evictionCount());
+    }
+
+    @Test
+    void put_ScanOfOneOffKeysKeepsTheHotSet() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(MAXIMUM_SIZE, 0);
+        for (int key = 0; key < 50; key++) {
+            cache.put(key, key);
+        }
+        for (int i = 0; i < 10; i++) {
+            for (int key = 0; key < 50; key++) {
+                cache.get(key);
+            }
+        }
+
+        for (int key = 10_000; key < 10_500; key++) {
+            if (cache.get(key) == null) {
+                cache.put(key, key);
+            }
+        }
+
+        for (int key = 0; key < 50; key++) {
+            assertEquals(key, cache.get(key), "hot key " + key);
+        }
+        assertTrue(cache.size() <= MAXIMUM_SIZE);
+    }
+
+    @Test
+    void invalidate_FreesMainSlotForNextAdmission() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(MAXIMUM_SIZE, 0);
+        for (int key = 0; key < MAXIMUM_SIZE; key++) {
+            cache.put(key, key);
+        }
+        long evictionsBefore = cache.evictionCount();
+
+        cache.invalidate(10);
+        cache.invalidate(20);
+        cache.put(1000, 1000);
+        cache.put(1001, 1001);
+
+        // 99 and 1000 left the window into the freed slots; 1001 is the window entry.
+        assertNull(cache.get(10));
+        assertNull(cache.get(20));
+        assertEquals(99, cache.get(99));
+        assertEquals(1000, cache.get(1000));
+        assertEquals(1001, cache.get(1001));
+        assertEquals(evictionsBefore, cache.evictionCount());
+        assertEquals(MAXIMUM_SIZE, cache.size());
+    }
+
+    @Test
+    void get_ExpiredEntryIsAMiss() throws Exception {
+        TinyLfuCache<String, Integer> cache = new TinyLfuCache<>(MAXIMUM_SIZE, 1);
+        cache.put("DOC001", 201);
+        assertEquals(201, cache.get("DOC001"));
+
+        Thread.sleep(1100);
+
+        assertNull(cache.get("DOC001"));
+        assertEquals(1, cache.expirationCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void clear_DropsEntriesAndStatistics() {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache<>(MAXIMUM_SIZE, 0);
+        for (int key = 0; key < 2 * MAXIMUM_SIZE; key++) {
+            cache.put(key, key);
+            cache.get(key);
+        }
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.evictionCount());
+        assertEquals(0, cache.hitCount());
+        assertNull(cache.get(0));
+    }
+}
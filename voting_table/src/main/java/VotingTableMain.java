@@ -8,6 +8,7 @@ import ElectionSystem.VoteData;
 import ElectionSystem.CandidateData; 
 import ElectionSystem.CitizenData; 
 import ElectionSystem.ElectionInactive; 
+import ElectionSystem.VoteStatus; 
 
 import java.util.Scanner; 
 import java.time.LocalDateTime; 
@@ -18,9 +19,12 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Random;
 
+import org.HdrHistogram.Histogram;
+
 public class VotingTableMain {
     
     private static VotingTableImpl votingTableImpl;
+    private static final int CITIZEN_PAGE_SIZE = 1000;
     public static void main(String[] args) {
         String tableIdStr = System.getProperty("VOTING_TABLE_ID", "Table1");
         int numericTableId; 
@@ -89,7 +93,7 @@ public class VotingTableMain {
                                 int numericTableId, String tableIdStr) {
         boolean running = true;
         System.out.println("\nVoting Table UI (" + tableIdStr + ")");
-        System.out.println("Commands: vote <citizenDocument> <candidateId> | candidates | status | test [threads] [duration_seconds] [target_vps] | exit");
+        System.out.println("Commands: vote <citizenDocument> <candidateId> | candidates | status | test [threads] [duration_seconds] [target_vps] [batch_size] | exit");
 
         while(running) {
             System.out.print("> ");
@@ -122,7 +126,7 @@ public class VotingTableMain {
                         if (!command.isEmpty()) {
                             System.err.println("Unknown command: " + command);
                         }
-                        System.out.println("Available commands: vote <citizenDocument> <candidateId> | candidates | status | test [threads] [duration_seconds] [target_vps] | exit");
+                        System.out.println("Available commands: vote <citizenDocument> <candidateId> | candidates | status | test [threads] [duration_seconds] [target_vps] [batch_size] | exit");
                         break;
                 }
             } catch (com.zeroc.Ice.CommunicatorDestroyedException e) {
@@ -186,6 +190,7 @@ public class VotingTableMain {
         int threads = 50;
         int durationSeconds = 60;
         int targetVPS = 1777; // Votes Per Second
+        int batchSize = 1; // 1 = one submitVote per vote, >1 = submitVotes batches
         
         // Parse optional parameters
         if (parts.length >= 2) {
@@ -211,23 +216,33 @@ public class VotingTableMain {
                 System.err.println("Invalid target VPS parameter, using default: " + targetVPS);
             }
         }
+        
+        if (parts.length >= 5) {
+            try {
+                batchSize = Math.max(1, Integer.parseInt(parts[4]));
+            } catch (NumberFormatException e) {
+                System.err.println("Invalid batch size parameter, using default: " + batchSize);
+            }
+        }
 
         System.out.println("\n=== VOTING STRESS TEST CONFIGURATION ===");
         System.out.println("Threads: " + threads);
         System.out.println("Duration: " + durationSeconds + " seconds");
         System.out.println("Target VPS (Votes Per Second): " + targetVPS);
         System.out.println("Target total votes: " + (targetVPS * durationSeconds));
+        System.out.println("Batch size: " + batchSize);
         System.out.println("========================================");
         
-        runVotingStressTest(threads, durationSeconds, targetVPS, numericTableId, controlCenterService);
+        runVotingStressTest(threads, durationSeconds, targetVPS, batchSize, numericTableId, controlCenterService);
     }
 
-    private static void runVotingStressTest(int threads, int durationSeconds, int targetVPS, int numericTableId, ControlCenterServicePrx controlCenterService) {
+    private static void runVotingStressTest(int threads, int durationSeconds, int targetVPS, int batchSize, int numericTableId, ControlCenterServicePrx controlCenterService) {
         System.out.println("\n=== VOTING STRESS TEST CONFIGURATION ===");
         System.out.println("Threads: " + threads);
         System.out.println("Duration: " + durationSeconds + " seconds");
         System.out.println("Target VPS (Votes Per Second): " + targetVPS);
         System.out.println("Target total votes: " + (targetVPS * durationSeconds));
+        System.out.println("Batch size: " + batchSize + (batchSize > 1 ? " (submitVotes)" : " (submitVote)"));
         System.out.println("========================================");
 
         // Load citizens for stress test
@@ -255,10 +270,9 @@ public class VotingTableMain {
         // Simplified metrics for server processing capacity
         AtomicLong totalRequests = new AtomicLong(0);
         AtomicLong processedRequests = new AtomicLong(0); // Successfully processed by server
+        AtomicLong acceptedVotes = new AtomicLong(0); // Batch mode: votes reported as Accepted
 
-        AtomicLong totalResponseTime = new AtomicLong(0);
-        AtomicLong minResponseTime = new AtomicLong(Long.MAX_VALUE);
-        AtomicLong maxResponseTime = new AtomicLong(0);
+        LatencyStats latency = new LatencyStats();
 
         // Load candidates
         CandidateData[] candidates;
@@ -281,7 +295,7 @@ public class VotingTableMain {
         long endTime = startTime + (durationSeconds * 1000L);
         
         int votesPerThreadPerSecond = Math.max(1, targetVPS / threads);
-        long delayBetweenVotes = Math.max(0, 1000 / votesPerThreadPerSecond);
+        long delayBetweenVotes = Math.max(0, 1000L * batchSize / votesPerThreadPerSecond);
 
         System.out.println("Starting voting stress test with async processing...");
         System.out.println("Measuring SERVER REQUEST PROCESSING CAPACITY");
@@ -292,6 +306,46 @@ public class VotingTableMain {
             Future<?> future = executor.submit(() -> {
                 Random random = new Random();
                 while (System.currentTimeMillis() < endTime) {
+                    if (batchSize > 1) {
+                        try {
+                            VoteData[] batch = new VoteData[batchSize];
+                            for (int b = 0; b < batchSize; b++) {
+                                String citizenDocument;
+                                synchronized (availableCitizens) {
+                                    citizenDocument = availableCitizens.isEmpty()
+                                        ? allCitizensForReuse.get(random.nextInt(allCitizensForReuse.size()))
+                                        : availableCitizens.remove(0);
+                                }
+                                batch[b] = new VoteData(citizenDocument, candidates[random.nextInt(candidates.length)].id, numericTableId,
+                                                        LocalDateTime.now().format(DateTimeFormatter.ISO_DATE_TIME));
+                            }
+                            
+                            long batchStart = System.nanoTime();
+                            try {
+                                VoteStatus[] statuses = controlCenterService.submitVotes(batch);
+                                for (VoteStatus status : statuses) {
+                                    if (status == VoteStatus.Accepted) {
+                                        acceptedVotes.incrementAndGet();
+                                    }
+                                }
+                            } catch (Exception e) {
+                                // Any server response (including errors) counts as processed
+                            }
+                            latency.record(System.nanoTime() - batchStart);
+                            
+                            totalRequests.addAndGet(batchSize);
+                            processedRequests.addAndGet(batchSize);
+                            
+                            if (delayBetweenVotes > 0) {
+                                Thread.sleep(delayBetweenVotes);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                        continue;
+                    }
+                    
                     try {
                         String citizenDocument;
                         synchronized (availableCitizens) {
@@ -305,39 +359,30 @@ public class VotingTableMain {
 
                         int candidateId = candidates[random.nextInt(candidates.length)].id;
 
-                        long voteStart = System.currentTimeMillis();
+                        long voteStart = System.nanoTime();
                         
                         try {
                             votingTableImpl.vote(citizenDocument, candidateId, null);
-                            long voteEnd = System.currentTimeMillis();
-                            long responseTime = voteEnd - voteStart;
+                            latency.record(System.nanoTime() - voteStart);
                             
                             totalRequests.incrementAndGet();
-                            totalResponseTime.addAndGet(responseTime);
-                            updateMinMax(minResponseTime, maxResponseTime, responseTime);
                             
                             // Count all server responses as processed (server is working)
                             processedRequests.incrementAndGet();
                             
                         } catch (com.zeroc.Ice.TimeoutException timeoutEx) {
                             // For async processing, timeout likely means request was queued
-                            long voteEnd = System.currentTimeMillis();
-                            long responseTime = voteEnd - voteStart;
+                            latency.record(System.nanoTime() - voteStart);
                             
                             totalRequests.incrementAndGet();
                             processedRequests.incrementAndGet(); // Assume queued successfully
-                            totalResponseTime.addAndGet(responseTime);
-                            updateMinMax(minResponseTime, maxResponseTime, responseTime);
                             
                         } catch (Exception e) {
                             // Any server response (including errors) counts as processed
-                            long voteEnd = System.currentTimeMillis();
-                            long responseTime = voteEnd - voteStart;
+                            latency.record(System.nanoTime() - voteStart);
                             
                             totalRequests.incrementAndGet();
                             processedRequests.incrementAndGet(); // Server responded
-                            totalResponseTime.addAndGet(responseTime);
-                            updateMinMax(minResponseTime, maxResponseTime, responseTime);
                         }
                         
                         if (delayBetweenVotes > 0) {
@@ -380,13 +425,14 @@ public class VotingTableMain {
                     }
                     
                     synchronized (availableCitizens) {
-                        System.out.printf("[%ds] Total: %d, Processed: %d, Available citizens: %d, Current RPS: %.1f, Recent RPS: %.1f%n",
+                        System.out.printf("[%ds] Total: %d, Processed: %d, Available citizens: %d, Current RPS: %.1f, Recent RPS: %.1f, Latency: %s%n",
                                 elapsed / 1000,
                                 currentTotal,
                                 currentProcessed,
                                 availableCitizens.size(),
                                 currentVPS,
-                                recentVPS);
+                                recentVPS,
+                                LatencyStats.percentiles(latency.interval()));
                     }
                 }
             } catch (InterruptedException e) {
@@ -414,6 +460,9 @@ public class VotingTableMain {
         System.out.printf("Actual duration: %dms (%.2fs)%n", finalDuration, finalDuration / 1000.0);
         System.out.println("Total requests: " + finalTotal);
         System.out.println("Server processed requests: " + finalProcessed);
+        if (batchSize > 1) {
+            System.out.println("Votes accepted (submitVotes status): " + acceptedVotes.get());
+        }
         
         double serverProcessingRate = (double) finalProcessed / (finalDuration / 1000.0);
         double successRate = finalTotal > 0 ? (double) finalProcessed * 100 / finalTotal : 0;
@@ -428,15 +477,16 @@ public class VotingTableMain {
             System.out.println("Remaining unique citizens available: " + availableCitizens.size());
         }
         
-        if (finalTotal > 0) {
-            double avgResponseTime = (double) totalResponseTime.get() / finalTotal;
-            System.out.printf("Average response time: %.2fms%n", avgResponseTime);
-            System.out.println("Min response time: " + minResponseTime.get() + "ms");
-            System.out.println("Max response time: " + maxResponseTime.get() + "ms");
+        Histogram totalLatency = latency.total();
+        if (totalLatency.getTotalCount() > 0) {
+            System.out.printf("Average response time: %.2fms%n", totalLatency.getMean() / 1_000_000.0);
+            System.out.printf("Min response time: %.2fms%n", totalLatency.getMinValue() / 1_000_000.0);
+            writeLatencyFile(latency);
         }
 
         System.out.println("\nPERFORMANCE VERDICT: " + 
                           (rpsAchievement >= 80 ? "✅ PASSED" : "❌ FAILED"));
+        System.out.println("Response time" + (batchSize > 1 ? " per submitVotes call: " : ": ") + LatencyStats.percentiles(totalLatency));
         if (rpsAchievement >= 80) {
             System.out.printf("The server successfully processed %.2f requests per second!%n", serverProcessingRate);
         } else {
@@ -467,30 +517,45 @@ public class VotingTableMain {
         System.out.println("===============================");
     }
 
-    private static void updateMinMax(AtomicLong minResponseTime, AtomicLong maxResponseTime, long responseTime) {
-        long currentMin = minResponseTime.get();
-        while (responseTime < currentMin && !minResponseTime.compareAndSet(currentMin, responseTime)) {
-            currentMin = minResponseTime.get();
+    // -DLATENCY_HGRM_FILE=<path> keeps the full distribution for comparing runs.
+    private static void writeLatencyFile(LatencyStats latency) {
+        String path = System.getProperty("LATENCY_HGRM_FILE");
+        if (path == null || path.isEmpty()) {
+            return;
         }
-
-        long currentMax = maxResponseTime.get();
-        while (responseTime > currentMax && !maxResponseTime.compareAndSet(currentMax, responseTime)) {
-            currentMax = maxResponseTime.get();
+        try {
+            latency.writeHgrm(path);
+            System.out.println("Latency distribution written to " + path);
+        } catch (Exception e) {
+            System.err.println("Could not write latency distribution to " + path + ": " + e.getMessage());
         }
     }
 
     /**
-     * Load citizens for a specific table from the control center service
+     * Load citizens for a specific table from the control center service, one page at a time
      */
     private static List<String> loadCitizensForTable(int tableId, ControlCenterServicePrx controlCenterService) {
         List<String> citizenDocuments = new ArrayList<>();
+        long cursorId = -1;
         try {
-            CitizenData[] citizens = controlCenterService.getCitizensByTableId(tableId);
-            for (CitizenData citizen : citizens) {
-                citizenDocuments.add(citizen.document);
+            cursorId = controlCenterService.openCitizenCursor(tableId);
+            CitizenData[] page;
+            while ((page = controlCenterService.nextCitizens(cursorId, CITIZEN_PAGE_SIZE)).length > 0) {
+                for (CitizenData citizen : page) {
+                    citizenDocuments.add(citizen.document);
+                }
             }
+            cursorId = -1; // the server closes the cursor after the last page
         } catch (Exception e) {
             System.err.println("Error loading citizens for table " + tableId + ": " + e.getMessage());
+        } finally {
+            if (cursorId >= 0) {
+                try {
+                    controlCenterService.closeCitizenCursor(cursorId);
+                } catch (Exception e) {
+                    System.err.println("Error closing citizen cursor for table " + tableId + ": " + e.getMessage());
+                }
+            }
         }
         return citizenDocuments;
     }